@@ -0,0 +1,91 @@
+package com.example.urlshortener;
+
+import com.example.urlshortener.model.ResolvedLink;
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.service.UrlShortenerService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * End-to-end redirect lookup against an embedded in-memory H2 database: a database read plus
+ * decrypt on every call, and the same lookup served through the redirect cache, with the target
+ * stored as Base64 text and as binary ciphertext.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RedirectBenchmark {
+  private static final int LINK_COUNT = 10_000;
+
+  @Param({"text", "binary"})
+  private String storage;
+
+  private ConfigurableApplicationContext context;
+  private UrlShortenerService service;
+  private String[] codes;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SpringApplication application = new SpringApplication(UrlShortenerApplication.class);
+    application.setWebApplicationType(WebApplicationType.NONE);
+    context =
+        application.run(
+            "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+            "--encryption.storage=" + storage,
+            "--logging.level.root=WARN",
+            "--logging.level.com.example.urlshortener=WARN");
+    service = context.getBean(UrlShortenerService.class);
+
+    codes = new String[LINK_COUNT];
+    for (int i = 0; i < LINK_COUNT; i++) {
+      codes[i] = service.shorten("https://example.com/jmh/" + i, null, null).getShortCode();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  private String randomCode() {
+    return codes[ThreadLocalRandom.current().nextInt(codes.length)];
+  }
+
+  @Benchmark
+  public String findByCodeAndDecrypt() {
+    UrlMapping mapping = service.findByCode(randomCode()).orElseThrow();
+    return service.decryptUrl(mapping.getEncryptedUrl());
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String findByCodeAndDecryptContended() {
+    UrlMapping mapping = service.findByCode(randomCode()).orElseThrow();
+    return service.decryptUrl(mapping.getEncryptedUrl());
+  }
+
+  @Benchmark
+  public ResolvedLink resolveCached() {
+    return service.resolve(randomCode()).orElseThrow();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public ResolvedLink resolveCachedContended() {
+    return service.resolve(randomCode()).orElseThrow();
+  }
+}
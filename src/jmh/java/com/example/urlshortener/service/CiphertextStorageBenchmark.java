@@ -0,0 +1,62 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.model.EncryptedUrl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Encrypt and decrypt of a target URL in each {@code encryption.storage} form. The stored size of
+ * the ciphertext is printed once per trial, since JMH only reports times.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CiphertextStorageBenchmark {
+
+  @Param({"text", "binary"})
+  private String storage;
+
+  @Param({"40", "400", "2000"})
+  private int urlLength;
+
+  private EncryptionService encryptionService;
+  private String plaintext;
+  private EncryptedUrl ciphertext;
+
+  @Setup
+  public void setUp() {
+    encryptionService = new EncryptionService("", "", "", storage, 256, new SimpleMeterRegistry());
+    // Query strings repeat parameter names, so long URLs compress well
+    StringBuilder url = new StringBuilder("https://example.com/search?");
+    for (int i = 0; url.length() < urlLength; i++) {
+      url.append("filter").append(i).append("=value").append(i % 10).append('&');
+    }
+    plaintext = url.substring(0, urlLength);
+    ciphertext = encryptionService.encryptForStorage(plaintext);
+    int storedBytes =
+        ciphertext.isBinary()
+            ? ciphertext.binary().length
+            : ciphertext.text().getBytes(StandardCharsets.UTF_8).length;
+    System.out.printf(
+        "%s storage: %d-byte URL stored in %d bytes%n", storage, urlLength, storedBytes);
+  }
+
+  @Benchmark
+  public EncryptedUrl encrypt() {
+    return encryptionService.encryptForStorage(plaintext);
+  }
+
+  @Benchmark
+  public String decrypt() {
+    return encryptionService.decrypt(ciphertext);
+  }
+}
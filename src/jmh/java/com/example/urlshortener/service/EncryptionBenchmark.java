@@ -0,0 +1,60 @@
+package com.example.urlshortener.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/** AES-GCM encrypt and decrypt of a target URL, single-threaded and with contending threads. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EncryptionBenchmark {
+
+  @Param({"40", "400"})
+  private int urlLength;
+
+  private EncryptionService encryptionService;
+  private String plaintext;
+  private String ciphertext;
+
+  @Setup
+  public void setUp() {
+    encryptionService = new EncryptionService("", new SimpleMeterRegistry());
+    StringBuilder url = new StringBuilder("https://example.com/");
+    while (url.length() < urlLength) {
+      url.append('a');
+    }
+    plaintext = url.toString();
+    ciphertext = encryptionService.encrypt(plaintext);
+  }
+
+  @Benchmark
+  public String encrypt() {
+    return encryptionService.encrypt(plaintext);
+  }
+
+  @Benchmark
+  public String decrypt() {
+    return encryptionService.decrypt(ciphertext);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String encryptContended() {
+    return encryptionService.encrypt(plaintext);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String decryptContended() {
+    return encryptionService.decrypt(ciphertext);
+  }
+}
@@ -0,0 +1,96 @@
+package com.example.urlshortener.service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Heap footprint and lookup time of an in-process index of generated short codes, keyed by {@code
+ * String} in a {@link HashMap}, by boxed packed {@code Long} in a {@link HashMap}, and by primitive
+ * packed {@code long} in a {@link ShortCodeMap}. The heap each index retains, keys included, is
+ * printed once per trial, since JMH only reports times. Lookups start from a {@code String} code as
+ * a request would, so the packed indexes pay for {@link ShortCodeCodec#pack}; probe strings cache
+ * their hash after the first pass, which favours the {@code String} index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:+UseParallelGC"})
+public class ShortCodeIndexBenchmark {
+  private static final int PROBES = 1 << 20;
+  private static final Object VALUE = new Object();
+
+  @Param({"string", "boxed", "packed"})
+  private String keys;
+
+  @Param({"10000000"})
+  private int entries;
+
+  private Function<String, Object> lookup;
+  private String[] probes;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    // encode() never touches the database, so no JdbcTemplate or transaction manager is needed
+    ShortCodeAllocator allocator = new ShortCodeAllocator(null, null, 1000, 6, true, "benchmark");
+    long before = usedHeap();
+    switch (keys) {
+      case "string" -> {
+        Map<String, Object> index = new HashMap<>();
+        for (int i = 0; i < entries; i++) {
+          index.put(allocator.encode(i), VALUE);
+        }
+        lookup = index::get;
+      }
+      case "boxed" -> {
+        Map<Long, Object> index = new HashMap<>();
+        for (int i = 0; i < entries; i++) {
+          index.put(ShortCodeCodec.pack(allocator.encode(i)), VALUE);
+        }
+        lookup = code -> index.get(ShortCodeCodec.pack(code));
+      }
+      default -> {
+        ShortCodeMap<Object> index = new ShortCodeMap<>();
+        for (int i = 0; i < entries; i++) {
+          index.put(allocator.encode(i), VALUE);
+        }
+        lookup = index::get;
+      }
+    }
+    long retained = usedHeap() - before;
+    System.out.printf(
+        "%s keys: %d entries retain %d MiB, %.1f bytes per entry%n",
+        keys, entries, retained >> 20, (double) retained / entries);
+
+    Random random = new Random(42);
+    probes = new String[PROBES];
+    for (int i = 0; i < PROBES; i++) {
+      probes[i] = allocator.encode(random.nextInt(entries));
+    }
+  }
+
+  @Benchmark
+  public Object lookup() {
+    return lookup.apply(probes[next++ & (PROBES - 1)]);
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,60 @@
+package com.example.urlshortener.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * CPU-bound parts of the shorten path: short code encoding (plain and scrambled) and URL
+ * validation. Block reservation is not measured because it happens once per block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShortenBenchmark {
+
+  private final AtomicLong nextId = new AtomicLong();
+  private ShortCodeAllocator plainAllocator;
+  private ShortCodeAllocator scrambledAllocator;
+
+  @Setup
+  public void setUp() {
+    // encode() never touches the database, so no JdbcTemplate or transaction manager is needed
+    plainAllocator = new ShortCodeAllocator(null, null, 1000, 6, false, "benchmark");
+    scrambledAllocator = new ShortCodeAllocator(null, null, 1000, 6, true, "benchmark");
+  }
+
+  @Benchmark
+  public String encodePlain() {
+    return plainAllocator.encode(nextId.getAndIncrement() % 56_800_235_584L);
+  }
+
+  @Benchmark
+  public String encodeScrambled() {
+    return scrambledAllocator.encode(nextId.getAndIncrement() % 56_800_235_584L);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String encodeScrambledContended() {
+    return scrambledAllocator.encode(nextId.getAndIncrement() % 56_800_235_584L);
+  }
+
+  @Benchmark
+  public void validateUrl() {
+    UrlShortenerService.validateUrl("https://example.com/some/path?utm_source=benchmark&id=42");
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void validateUrlContended() {
+    UrlShortenerService.validateUrl("https://example.com/some/path?utm_source=benchmark&id=42");
+  }
+}
@@ -2,8 +2,13 @@ package com.example.urlshortener;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// A ConnectionFactory bean would switch off the JDBC DataSource that JPA, Flyway and the background
+// jobs use; the reactive runtime creates its R2DBC pool privately instead
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
+@EnableScheduling
 public class UrlShortenerApplication {
 
   public static void main(String[] args) {
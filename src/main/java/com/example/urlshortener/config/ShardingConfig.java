@@ -0,0 +1,118 @@
+package com.example.urlshortener.config;
+
+import com.example.urlshortener.repository.LinkShards;
+import com.example.urlshortener.repository.LinkShards.Shard;
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * Builds the {@link LinkShards}. With {@code sharding.enabled} every {@code
+ * sharding.shards.<name>.url} becomes a shard with its own connection pool of {@code
+ * sharding.pool-size}, migrated with the same Flyway scripts as the primary database before it is
+ * used. Otherwise the primary database is the only shard. The primary shard keeps using the
+ * application's transaction manager, so its work joins surrounding JPA transactions. Sharding is
+ * rejected together with the redirect snapshot or the reactive runtime, whose reads only reach the
+ * primary.
+ */
+@Configuration
+public class ShardingConfig {
+
+  @Bean
+  public LinkShards linkShards(
+      JdbcTemplate jdbcTemplate,
+      // Lazy: the entity manager factory behind it needs the short code filter, which needs this
+      @Lazy PlatformTransactionManager transactionManager,
+      DataSourceProperties dataSourceProperties,
+      Environment environment,
+      ApplicationContext applicationContext,
+      @Value("${sharding.enabled:false}") boolean enabled,
+      @Value("${sharding.virtual-nodes:128}") int virtualNodes,
+      @Value("${sharding.previous-shards:}") List<String> previousShards,
+      @Value("${sharding.pool-size:10}") int poolSize,
+      @Value("${spring.flyway.locations:classpath:db/migration}") String[] migrations,
+      @Value("${snapshot.enabled:false}") boolean snapshotEnabled) {
+    if (!enabled) {
+      return LinkShards.single(jdbcTemplate, transactionManager);
+    }
+    if (snapshotEnabled) {
+      // The snapshot repository falls back to the JPA repository, which only reads the primary
+      throw new IllegalArgumentException(
+          "snapshot.enabled cannot be combined with sharding.enabled");
+    }
+    if (applicationContext instanceof ReactiveWebApplicationContext) {
+      // The R2DBC repository only reads the primary, so codes on other shards would answer 404
+      throw new IllegalArgumentException(
+          "The reactive runtime cannot be combined with sharding.enabled");
+    }
+    Map<String, ShardProperties> configured =
+        Binder.get(environment)
+            .bind("sharding.shards", Bindable.mapOf(String.class, ShardProperties.class))
+            .orElse(Map.of());
+    List<Shard> shards = new ArrayList<>();
+    shards.add(Shard.of(LinkShards.PRIMARY, jdbcTemplate, transactionManager));
+    List<HikariDataSource> dataSources = new ArrayList<>();
+    try {
+      for (Map.Entry<String, ShardProperties> entry : configured.entrySet()) {
+        HikariDataSource dataSource =
+            dataSource(entry.getKey(), entry.getValue(), dataSourceProperties, poolSize);
+        dataSources.add(dataSource);
+        Flyway.configure()
+            .dataSource(dataSource)
+            .locations(migrations)
+            .baselineOnMigrate(true)
+            .load()
+            .migrate();
+        shards.add(
+            Shard.of(
+                entry.getKey(),
+                new JdbcTemplate(dataSource),
+                new DataSourceTransactionManager(dataSource)));
+      }
+      return new LinkShards(shards, virtualNodes, previousShards);
+    } catch (RuntimeException e) {
+      dataSources.forEach(HikariDataSource::close);
+      throw e;
+    }
+  }
+
+  private static HikariDataSource dataSource(
+      String name, ShardProperties properties, DataSourceProperties primary, int poolSize) {
+    if (name.equals(LinkShards.PRIMARY)) {
+      throw new IllegalArgumentException("The shard name " + name + " is reserved");
+    }
+    if (properties.url() == null) {
+      throw new IllegalArgumentException("sharding.shards." + name + ".url is not set");
+    }
+    HikariDataSource dataSource =
+        DataSourceBuilder.create()
+            .type(HikariDataSource.class)
+            .driverClassName(primary.determineDriverClassName())
+            .url(properties.url())
+            .username(properties.username() != null ? properties.username() : primary.getUsername())
+            .password(properties.password() != null ? properties.password() : primary.getPassword())
+            .build();
+    dataSource.setPoolName("shard-" + name);
+    dataSource.setMaximumPoolSize(poolSize);
+    return dataSource;
+  }
+
+  /** Connection settings of one shard; username and password default to the primary's. */
+  record ShardProperties(String url, String username, String password) {}
+}
@@ -0,0 +1,66 @@
+package com.example.urlshortener.controller;
+
+import com.example.urlshortener.dto.ImportResult;
+import com.example.urlshortener.dto.ReencryptionStatus;
+import com.example.urlshortener.service.LinkTransferService;
+import com.example.urlshortener.service.LinkTransferService.ImportMode;
+import com.example.urlshortener.service.ReencryptionService;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.util.Locale;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Bulk export and import of link mappings, and re-encryption after a key rotation. Only registered
+ * when {@code admin.enabled} is set, since the endpoints are not authenticated and expose every
+ * stored mapping.
+ */
+@RestController
+@RequestMapping("/admin")
+@ConditionalOnProperty(name = "admin.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdminController {
+
+  private final LinkTransferService linkTransferService;
+  private final ReencryptionService reencryptionService;
+
+  public AdminController(
+      LinkTransferService linkTransferService, ReencryptionService reencryptionService) {
+    this.linkTransferService = linkTransferService;
+    this.reencryptionService = reencryptionService;
+  }
+
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportLinks() {
+    StreamingResponseBody body = linkTransferService::exportTo;
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<?> importLinks(
+      HttpServletRequest request, @RequestParam(defaultValue = "insert") String mode)
+      throws IOException {
+    try {
+      ImportMode importMode = ImportMode.valueOf(mode.toUpperCase(Locale.ROOT));
+      ImportResult result = linkTransferService.importFrom(request.getInputStream(), importMode);
+      return ResponseEntity.ok(result);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
+    }
+  }
+
+  @PostMapping("/reencrypt")
+  public ResponseEntity<ReencryptionStatus> startReencryption() {
+    return ResponseEntity.accepted().body(reencryptionService.start());
+  }
+
+  @GetMapping("/reencrypt")
+  public ReencryptionStatus reencryptionStatus() {
+    return reencryptionService.status();
+  }
+}
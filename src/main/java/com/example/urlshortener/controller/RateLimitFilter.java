@@ -0,0 +1,222 @@
+package com.example.urlshortener.controller;
+
+import com.example.urlshortener.service.RateLimiter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Admission control for {@code POST /shorten}, {@code POST /shorten/batch} and {@code GET /{code}},
+ * with a separate {@link RateLimiter} for each. A batch takes one token per link from its own
+ * bucket, whose burst is the largest batch a client can send at once. Clients are identified by
+ * their remote address, or by the {@code ratelimit.api-key-header} header if it carries one of the
+ * {@code ratelimit.api-keys}. Any other key is ignored, so clients cannot escape their bucket, or
+ * evict other clients' buckets, by sending a new key with each request. Behind a proxy, set {@code
+ * server.forward-headers-strategy} so the remote address is the client's. Throttled requests get
+ * 429 with {@code Retry-After} and are counted in {@code urlshortener.ratelimit.throttled}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+@ConditionalOnProperty(name = "ratelimit.enabled", havingValue = "true")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RateLimitFilter extends OncePerRequestFilter {
+
+  private final RateLimiter shortenLimiter;
+  private final RateLimiter batchLimiter;
+  private final RateLimiter redirectLimiter;
+  private final String apiKeyHeader;
+  private final Set<String> apiKeys;
+  private final Counter shortenThrottled;
+  private final Counter batchThrottled;
+  private final Counter redirectThrottled;
+
+  public RateLimitFilter(
+      MeterRegistry meterRegistry,
+      @Value("${ratelimit.shorten.requests-per-second:5}") double shortenRate,
+      @Value("${ratelimit.shorten.burst:20}") int shortenBurst,
+      @Value("${ratelimit.batch.links-per-second:100}") double batchRate,
+      @Value("${ratelimit.batch.burst:10000}") int batchBurst,
+      @Value("${ratelimit.redirect.requests-per-second:100}") double redirectRate,
+      @Value("${ratelimit.redirect.burst:200}") int redirectBurst,
+      @Value("${ratelimit.max-clients:100000}") long maxClients,
+      @Value("${ratelimit.api-key-header:X-API-Key}") String apiKeyHeader,
+      @Value("${ratelimit.api-keys:}") List<String> apiKeys) {
+    this.shortenLimiter = new RateLimiter(shortenRate, shortenBurst, maxClients);
+    this.batchLimiter = new RateLimiter(batchRate, batchBurst, maxClients);
+    this.redirectLimiter = new RateLimiter(redirectRate, redirectBurst, maxClients);
+    this.apiKeyHeader = apiKeyHeader;
+    this.apiKeys =
+        Set.copyOf(apiKeys.stream().map(String::trim).filter(key -> !key.isEmpty()).toList());
+    this.shortenThrottled = throttledCounter(meterRegistry, "shorten");
+    this.batchThrottled = throttledCounter(meterRegistry, "batch");
+    this.redirectThrottled = throttledCounter(meterRegistry, "redirect");
+    Gauge.builder("urlshortener.ratelimit.clients", this, RateLimitFilter::trackedClients)
+        .description("Clients with rate limit state")
+        .register(meterRegistry);
+  }
+
+  @Override
+  protected void doFilterInternal(
+      HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+      throws ServletException, IOException {
+    String path = request.getRequestURI();
+    String method = request.getMethod();
+    RateLimiter limiter;
+    Counter throttled;
+    int permits = 1;
+    if ("POST".equals(method) && path.equals("/shorten/batch")) {
+      // The body is read here to count its links, and replayed to the controller
+      CachedBodyRequest cached = new CachedBodyRequest(request);
+      request = cached;
+      limiter = batchLimiter;
+      throttled = batchThrottled;
+      permits = cached.countItems();
+    } else if ("POST".equals(method) && path.equals("/shorten")) {
+      limiter = shortenLimiter;
+      throttled = shortenThrottled;
+    } else if (("GET".equals(method) || "HEAD".equals(method)) && isShortCodePath(path)) {
+      limiter = redirectLimiter;
+      throttled = redirectThrottled;
+    } else {
+      chain.doFilter(request, response);
+      return;
+    }
+
+    long waitNanos = limiter.tryAcquire(clientKey(request), permits);
+    if (waitNanos == 0) {
+      chain.doFilter(request, response);
+      return;
+    }
+    throttled.increment();
+    // Round up so a client that waits as told is admitted
+    long retryAfterSeconds = -Math.floorDiv(-waitNanos, TimeUnit.SECONDS.toNanos(1));
+    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+    response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    response.setContentType("text/plain");
+    response.getWriter().write("Too many requests");
+  }
+
+  private String clientKey(HttpServletRequest request) {
+    String apiKey = request.getHeader(apiKeyHeader);
+    // Prefixed so an API key can never collide with an address
+    return apiKey != null && apiKeys.contains(apiKey)
+        ? "key:" + apiKey
+        : "ip:" + request.getRemoteAddr();
+  }
+
+  private static boolean isShortCodePath(String path) {
+    return path.length() > 1 && path.indexOf('/', 1) < 0;
+  }
+
+  private double trackedClients() {
+    return shortenLimiter.trackedClients()
+        + batchLimiter.trackedClients()
+        + redirectLimiter.trackedClients();
+  }
+
+  private static Counter throttledCounter(MeterRegistry meterRegistry, String endpoint) {
+    return Counter.builder("urlshortener.ratelimit.throttled")
+        .description("Requests rejected with 429 by the per-client rate limiter")
+        .tag("endpoint", endpoint)
+        .register(meterRegistry);
+  }
+
+  /** A request whose body has been read into memory, so it can be inspected and read again. */
+  private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private final byte[] body;
+
+    CachedBodyRequest(HttpServletRequest request) throws IOException {
+      super(request);
+      this.body = request.getInputStream().readAllBytes();
+    }
+
+    /**
+     * Counts the elements of the JSON array in the body, or up to where it stops being valid JSON.
+     * Anything else counts as one, and is left for the controller to reject.
+     */
+    int countItems() {
+      int items = 0;
+      try (JsonParser parser = JSON.createParser(body)) {
+        if (parser.nextToken() == JsonToken.START_ARRAY) {
+          for (JsonToken token = parser.nextToken();
+              token != null && token != JsonToken.END_ARRAY;
+              token = parser.nextToken()) {
+            parser.skipChildren();
+            items++;
+          }
+        }
+      } catch (IOException e) {
+        // Malformed; charge what was counted
+      }
+      return Math.max(items, 1);
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      ByteArrayInputStream in = new ByteArrayInputStream(body);
+      return new ServletInputStream() {
+        @Override
+        public boolean isFinished() {
+          return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+          throw new UnsupportedOperationException("Asynchronous reads are not supported");
+        }
+
+        @Override
+        public int read() {
+          return in.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+          return in.read(buffer, offset, length);
+        }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      String encoding = getCharacterEncoding();
+      Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+      return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+  }
+}
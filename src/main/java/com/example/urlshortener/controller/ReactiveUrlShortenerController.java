@@ -0,0 +1,146 @@
+package com.example.urlshortener.controller;
+
+import com.example.urlshortener.dto.ShortenRequest;
+import com.example.urlshortener.dto.ShortenResponse;
+import com.example.urlshortener.dto.UrlMetadata;
+import com.example.urlshortener.model.LinkView;
+import com.example.urlshortener.service.ClickAnalyticsService;
+import com.example.urlshortener.service.ReactiveUrlShortenerService;
+import com.example.urlshortener.service.UrlShortenerMetrics;
+import com.example.urlshortener.service.UrlShortenerMetrics.Stage;
+import java.time.Instant;
+import java.util.concurrent.RejectedExecutionException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link UrlShortenerController} for {@code POST /shorten}, {@code GET
+ * /{code}} and {@code HEAD /{code}}, registered when the application runs as a reactive web
+ * application. Responses, including the HTTP caching headers, match the servlet controller.
+ */
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUrlShortenerController {
+
+  private final ReactiveUrlShortenerService urlShortenerService;
+  private final ClickAnalyticsService clickAnalyticsService;
+  private final UrlShortenerMetrics metrics;
+  private final RedirectCachePolicy redirectCachePolicy;
+
+  public ReactiveUrlShortenerController(
+      ReactiveUrlShortenerService urlShortenerService,
+      ClickAnalyticsService clickAnalyticsService,
+      UrlShortenerMetrics metrics,
+      RedirectCachePolicy redirectCachePolicy) {
+    this.urlShortenerService = urlShortenerService;
+    this.clickAnalyticsService = clickAnalyticsService;
+    this.metrics = metrics;
+    this.redirectCachePolicy = redirectCachePolicy;
+  }
+
+  @PostMapping("/shorten")
+  public Mono<ResponseEntity<?>> shortenUrl(
+      @RequestBody ShortenRequest request, ServerHttpRequest httpRequest) {
+    long start = System.nanoTime();
+    String baseUrl = getBaseUrl(httpRequest);
+    return urlShortenerService
+        .shorten(request.getLongUrl(), request.getCustomAlias(), request.getExpiry())
+        .<ResponseEntity<?>>map(
+            code -> ResponseEntity.ok(new ShortenResponse(baseUrl + "/" + code)))
+        .onErrorResume(
+            IllegalArgumentException.class,
+            e -> Mono.just(ResponseEntity.badRequest().body(e.getMessage())))
+        .doFinally(signal -> metrics.record(Stage.SHORTEN, start));
+  }
+
+  @GetMapping("/{code}")
+  public Mono<ResponseEntity<Void>> redirect(@PathVariable String code) {
+    long start = System.nanoTime();
+    return urlShortenerService
+        .resolve(code)
+        .map(
+            link -> {
+              if (link.disabled() || link.isExpired()) {
+                return ResponseEntity.status(HttpStatus.GONE).<Void>build();
+              }
+              clickAnalyticsService.recordClick(code);
+              HttpStatus status = redirectCachePolicy.redirectStatus(link);
+              return ResponseEntity.status(status)
+                  .header("Location", link.targetUrl())
+                  .cacheControl(redirectCachePolicy.redirectCacheControl(link, status))
+                  .<Void>build();
+            })
+        .defaultIfEmpty(ResponseEntity.notFound().build())
+        .doFinally(signal -> metrics.record(Stage.REDIRECT, start));
+  }
+
+  /** Same as {@link UrlShortenerController#getMetadata}, including the 304 before decryption. */
+  @RequestMapping(value = "/{code}", method = RequestMethod.HEAD)
+  public Mono<ResponseEntity<UrlMetadata>> getMetadata(
+      @PathVariable String code, ServerWebExchange exchange) {
+    long start = System.nanoTime();
+    return urlShortenerService
+        .findView(code)
+        .flatMap(view -> metadataResponse(view, exchange))
+        .defaultIfEmpty(ResponseEntity.notFound().build())
+        .doFinally(signal -> metrics.record(Stage.METADATA, start));
+  }
+
+  /**
+   * The crypto scheduler's queue is full, or a redirect lookup shared with other requests did not
+   * finish in time; shed load rather than queue without limit.
+   */
+  @ExceptionHandler({RejectedExecutionException.class, QueryTimeoutException.class})
+  public ResponseEntity<Void> overloaded() {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+  }
+
+  private Mono<ResponseEntity<UrlMetadata>> metadataResponse(
+      LinkView view, ServerWebExchange exchange) {
+    boolean expired = view.expiry() != null && Instant.now().isAfter(view.expiry());
+    if (view.disabled() || expired) {
+      return Mono.just(ResponseEntity.status(HttpStatus.GONE).build());
+    }
+    String etag = RedirectCachePolicy.metadataETag(view.shortCode(), view.createdAt());
+    Instant lastModified = view.createdAt();
+    if (exchange.checkNotModified(etag, lastModified)) {
+      return Mono.just(
+          ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+              .eTag(etag)
+              .lastModified(lastModified)
+              .build());
+    }
+    return urlShortenerService
+        .decryptUrl(view.encryptedUrl())
+        .map(
+            url ->
+                ResponseEntity.ok()
+                    .eTag(etag)
+                    .lastModified(lastModified)
+                    .cacheControl(CacheControl.noCache())
+                    .body(
+                        new UrlMetadata(
+                            view.shortCode(),
+                            url,
+                            view.createdAt(),
+                            view.expiry(),
+                            view.disabled(),
+                            expired)));
+  }
+
+  private static String getBaseUrl(ServerHttpRequest request) {
+    return UriComponentsBuilder.fromUri(request.getURI())
+        .replacePath(request.getPath().contextPath().value())
+        .replaceQuery(null)
+        .build()
+        .toUriString();
+  }
+}
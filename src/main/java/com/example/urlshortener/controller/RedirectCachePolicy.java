@@ -0,0 +1,62 @@
+package com.example.urlshortener.controller;
+
+import com.example.urlshortener.model.ResolvedLink;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+/**
+ * HTTP caching rules for redirects and link metadata, shared by the servlet and reactive
+ * controllers. Configured through {@code redirect.http.max-age} and {@code
+ * redirect.http.permanent-status}.
+ */
+@Component
+public class RedirectCachePolicy {
+  private final Duration redirectMaxAge;
+  private final HttpStatus permanentRedirectStatus;
+
+  public RedirectCachePolicy(
+      @Value("${redirect.http.max-age:PT0S}") Duration redirectMaxAge,
+      @Value("${redirect.http.permanent-status:302}") int permanentRedirectStatus) {
+    if (permanentRedirectStatus != 301
+        && permanentRedirectStatus != 302
+        && permanentRedirectStatus != 308) {
+      throw new IllegalArgumentException("redirect.http.permanent-status must be 301, 302 or 308");
+    }
+    this.redirectMaxAge = redirectMaxAge;
+    this.permanentRedirectStatus = HttpStatus.valueOf(permanentRedirectStatus);
+  }
+
+  /** Links without an expiry can use the configured permanent status; all others get 302. */
+  public HttpStatus redirectStatus(ResolvedLink link) {
+    return link.expiry() == null ? permanentRedirectStatus : HttpStatus.FOUND;
+  }
+
+  /**
+   * Lets browsers and shared caches keep a redirect for {@code redirect.http.max-age}, but never
+   * beyond the link's expiry. Without a max-age, permanent statuses are explicitly marked for
+   * revalidation, since browsers otherwise cache them indefinitely.
+   */
+  public CacheControl redirectCacheControl(ResolvedLink link, HttpStatus status) {
+    long maxAge = redirectMaxAge.toSeconds();
+    if (link.expiry() != null) {
+      maxAge = Math.min(maxAge, Duration.between(Instant.now(), link.expiry()).toSeconds());
+    }
+    if (maxAge > 0) {
+      return CacheControl.maxAge(maxAge, TimeUnit.SECONDS).cachePublic();
+    }
+    return status == HttpStatus.FOUND ? CacheControl.empty() : CacheControl.noCache();
+  }
+
+  /**
+   * Returns the metadata {@code ETag} of a live link. Only the code and creation time are included:
+   * disabling or expiring a link turns its metadata response into 410 instead.
+   */
+  public static String metadataETag(String shortCode, Instant createdAt) {
+    return "\"" + shortCode + '-' + createdAt.toEpochMilli() + '"';
+  }
+}
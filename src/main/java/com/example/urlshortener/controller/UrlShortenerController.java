@@ -1,27 +1,55 @@
 package com.example.urlshortener.controller;
 
+import com.example.urlshortener.dto.BatchShortenItem;
+import com.example.urlshortener.dto.LinkStats;
 import com.example.urlshortener.dto.ShortenRequest;
 import com.example.urlshortener.dto.ShortenResponse;
 import com.example.urlshortener.dto.UrlMetadata;
 import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.service.BatchShortenService;
+import com.example.urlshortener.service.ClickAnalyticsService;
+import com.example.urlshortener.service.UrlShortenerMetrics;
+import com.example.urlshortener.service.UrlShortenerMetrics.Stage;
 import com.example.urlshortener.service.UrlShortenerService;
 import jakarta.servlet.http.HttpServletRequest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UrlShortenerController {
 
   private final UrlShortenerService urlShortenerService;
+  private final BatchShortenService batchShortenService;
+  private final ClickAnalyticsService clickAnalyticsService;
+  private final UrlShortenerMetrics metrics;
+  private final RedirectCachePolicy redirectCachePolicy;
 
-  public UrlShortenerController(UrlShortenerService urlShortenerService) {
+  public UrlShortenerController(
+      UrlShortenerService urlShortenerService,
+      BatchShortenService batchShortenService,
+      ClickAnalyticsService clickAnalyticsService,
+      UrlShortenerMetrics metrics,
+      RedirectCachePolicy redirectCachePolicy) {
     this.urlShortenerService = urlShortenerService;
+    this.batchShortenService = batchShortenService;
+    this.clickAnalyticsService = clickAnalyticsService;
+    this.metrics = metrics;
+    this.redirectCachePolicy = redirectCachePolicy;
   }
 
   @PostMapping("/shorten")
   public ResponseEntity<?> shortenUrl(
       @RequestBody ShortenRequest request, HttpServletRequest httpRequest) {
+    long start = System.nanoTime();
     try {
       UrlMapping mapping =
           urlShortenerService.shorten(
@@ -33,50 +61,121 @@ public class UrlShortenerController {
       return ResponseEntity.ok(new ShortenResponse(shortUrl));
     } catch (IllegalArgumentException e) {
       return ResponseEntity.badRequest().body(e.getMessage());
+    } finally {
+      metrics.record(Stage.SHORTEN, start);
+    }
+  }
+
+  @PostMapping("/shorten/batch")
+  public ResponseEntity<?> shortenBatch(
+      @RequestBody List<ShortenRequest> requests, HttpServletRequest httpRequest) {
+    try {
+      String baseUrl = getBaseUrl(httpRequest);
+      List<BatchShortenItem> items =
+          batchShortenService.shortenAll(requests).stream()
+              .map(
+                  result ->
+                      new BatchShortenItem(
+                          result.index(),
+                          result.isSuccess() ? baseUrl + "/" + result.shortCode() : null,
+                          result.error()))
+              .toList();
+
+      return ResponseEntity.ok(items);
+    } catch (IllegalArgumentException e) {
+      return ResponseEntity.badRequest().body(e.getMessage());
     }
   }
 
   @GetMapping("/{code}")
   public ResponseEntity<Void> redirect(@PathVariable String code) {
-    return urlShortenerService
-        .findByCode(code)
-        .map(
-            mapping -> {
-              if (mapping.isDisabled()) {
-                return ResponseEntity.status(HttpStatus.GONE).<Void>build();
-              }
-              if (mapping.isExpired()) {
-                return ResponseEntity.status(HttpStatus.GONE).<Void>build();
-              }
-              String decryptedUrl = urlShortenerService.decryptUrl(mapping.getEncryptedLongUrl());
-              return ResponseEntity.status(HttpStatus.FOUND)
-                  .header("Location", decryptedUrl)
-                  .<Void>build();
-            })
-        .orElse(ResponseEntity.notFound().build());
+    long start = System.nanoTime();
+    try {
+      return urlShortenerService
+          .resolve(code)
+          .map(
+              link -> {
+                if (link.disabled()) {
+                  return ResponseEntity.status(HttpStatus.GONE).<Void>build();
+                }
+                if (link.isExpired()) {
+                  return ResponseEntity.status(HttpStatus.GONE).<Void>build();
+                }
+                clickAnalyticsService.recordClick(code);
+                HttpStatus status = redirectCachePolicy.redirectStatus(link);
+                return ResponseEntity.status(status)
+                    .header("Location", link.targetUrl())
+                    .cacheControl(redirectCachePolicy.redirectCacheControl(link, status))
+                    .<Void>build();
+              })
+          .orElse(ResponseEntity.notFound().build());
+    } finally {
+      metrics.record(Stage.REDIRECT, start);
+    }
+  }
+
+  @GetMapping("/{code}/stats")
+  public ResponseEntity<LinkStats> getStats(
+      @PathVariable String code, @RequestParam(required = false) Instant since) {
+    if (urlShortenerService.resolve(code).isEmpty()) {
+      return ResponseEntity.notFound().build();
+    }
+    Instant from = since != null ? since : Instant.now().minus(Duration.ofDays(1));
+    return ResponseEntity.ok(clickAnalyticsService.getStats(code, from));
   }
 
+  /**
+   * Returns the metadata for a live link with an {@code ETag} and {@code Last-Modified} derived
+   * from its code and creation time; disabling or expiring the link turns the response into 410
+   * instead. A matching conditional request is answered with 304 before the target URL is
+   * decrypted.
+   */
   @RequestMapping(value = "/{code}", method = RequestMethod.HEAD)
-  public ResponseEntity<UrlMetadata> getMetadata(@PathVariable String code) {
-    return urlShortenerService
-        .findByCode(code)
-        .map(
-            mapping -> {
-              if (mapping.isDisabled() || mapping.isExpired()) {
-                return ResponseEntity.status(HttpStatus.GONE).<UrlMetadata>build();
-              }
-              String decryptedUrl = urlShortenerService.decryptUrl(mapping.getEncryptedLongUrl());
-              UrlMetadata metadata =
-                  new UrlMetadata(
-                      mapping.getShortCode(),
-                      decryptedUrl,
-                      mapping.getCreatedAt(),
-                      mapping.getExpiry(),
-                      mapping.isDisabled(),
-                      mapping.isExpired());
-              return ResponseEntity.ok(metadata);
-            })
-        .orElse(ResponseEntity.notFound().build());
+  public ResponseEntity<UrlMetadata> getMetadata(@PathVariable String code, WebRequest request) {
+    long start = System.nanoTime();
+    try {
+      return urlShortenerService
+          .findByCode(code)
+          .map(
+              mapping -> {
+                if (mapping.isDisabled() || mapping.isExpired()) {
+                  return ResponseEntity.status(HttpStatus.GONE).<UrlMetadata>build();
+                }
+                String etag =
+                    RedirectCachePolicy.metadataETag(
+                        mapping.getShortCode(), mapping.getCreatedAt());
+                long lastModified = mapping.getCreatedAt().toEpochMilli();
+                if (request.checkNotModified(etag, lastModified)) {
+                  return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                      .eTag(etag)
+                      .lastModified(lastModified)
+                      .<UrlMetadata>build();
+                }
+                String decryptedUrl = urlShortenerService.decryptUrl(mapping.getEncryptedUrl());
+                UrlMetadata metadata =
+                    new UrlMetadata(
+                        mapping.getShortCode(),
+                        decryptedUrl,
+                        mapping.getCreatedAt(),
+                        mapping.getExpiry(),
+                        mapping.isDisabled(),
+                        mapping.isExpired());
+                return ResponseEntity.ok()
+                    .eTag(etag)
+                    .lastModified(lastModified)
+                    .cacheControl(CacheControl.noCache())
+                    .body(metadata);
+              })
+          .orElse(ResponseEntity.notFound().build());
+    } finally {
+      metrics.record(Stage.METADATA, start);
+    }
+  }
+
+  /** A redirect lookup shared with other requests did not finish in time; shed load. */
+  @ExceptionHandler(QueryTimeoutException.class)
+  public ResponseEntity<Void> lookupTimedOut() {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
   }
 
   private String getBaseUrl(HttpServletRequest request) {
@@ -0,0 +1,39 @@
+package com.example.urlshortener.dto;
+
+public class BatchShortenItem {
+  private int index;
+  private String shortUrl;
+  private String error;
+
+  public BatchShortenItem() {}
+
+  public BatchShortenItem(int index, String shortUrl, String error) {
+    this.index = index;
+    this.shortUrl = shortUrl;
+    this.error = error;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public void setIndex(int index) {
+    this.index = index;
+  }
+
+  public String getShortUrl() {
+    return shortUrl;
+  }
+
+  public void setShortUrl(String shortUrl) {
+    this.shortUrl = shortUrl;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public void setError(String error) {
+    this.error = error;
+  }
+}
@@ -0,0 +1,31 @@
+package com.example.urlshortener.dto;
+
+import java.time.Instant;
+
+public class ClickBucket {
+  private Instant minute;
+  private long clicks;
+
+  public ClickBucket() {}
+
+  public ClickBucket(Instant minute, long clicks) {
+    this.minute = minute;
+    this.clicks = clicks;
+  }
+
+  public Instant getMinute() {
+    return minute;
+  }
+
+  public void setMinute(Instant minute) {
+    this.minute = minute;
+  }
+
+  public long getClicks() {
+    return clicks;
+  }
+
+  public void setClicks(long clicks) {
+    this.clicks = clicks;
+  }
+}
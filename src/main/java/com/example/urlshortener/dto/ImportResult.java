@@ -0,0 +1,66 @@
+package com.example.urlshortener.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of an import. {@code skipped} counts records left out because their code was already live
+ * or archived; {@code skippedCodes} lists the first hundred of those codes.
+ */
+public class ImportResult {
+  private long rows;
+  private long durationMillis;
+  private long rowsPerSecond;
+  private long skipped;
+  private List<String> skippedCodes;
+
+  public ImportResult() {}
+
+  public ImportResult(
+      long rows, long durationMillis, long rowsPerSecond, long skipped, List<String> skippedCodes) {
+    this.rows = rows;
+    this.durationMillis = durationMillis;
+    this.rowsPerSecond = rowsPerSecond;
+    this.skipped = skipped;
+    this.skippedCodes = skippedCodes;
+  }
+
+  public long getRows() {
+    return rows;
+  }
+
+  public void setRows(long rows) {
+    this.rows = rows;
+  }
+
+  public long getDurationMillis() {
+    return durationMillis;
+  }
+
+  public void setDurationMillis(long durationMillis) {
+    this.durationMillis = durationMillis;
+  }
+
+  public long getRowsPerSecond() {
+    return rowsPerSecond;
+  }
+
+  public void setRowsPerSecond(long rowsPerSecond) {
+    this.rowsPerSecond = rowsPerSecond;
+  }
+
+  public long getSkipped() {
+    return skipped;
+  }
+
+  public void setSkipped(long skipped) {
+    this.skipped = skipped;
+  }
+
+  public List<String> getSkippedCodes() {
+    return skippedCodes;
+  }
+
+  public void setSkippedCodes(List<String> skippedCodes) {
+    this.skippedCodes = skippedCodes;
+  }
+}
@@ -0,0 +1,115 @@
+package com.example.urlshortener.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One line of an NDJSON export. The first line of an export only carries {@code codeRanges}, the
+ * allocator positions to restore; every other line is a mapping with its target URL still
+ * encrypted: in {@code targetUrl} as stored text, or in {@code targetBin} as the Base64 of the
+ * stored binary envelope. Mappings from {@code links_archive} also carry {@code archivedAt} and
+ * {@code archiveReason}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class LinkRecord {
+  private String code;
+  private String targetUrl;
+  private byte[] targetBin;
+  private byte[] urlHmac;
+  private Instant createdAt;
+  private Instant expiry;
+  private boolean disabled;
+  private Instant disabledAt;
+  private Instant archivedAt;
+  private String archiveReason;
+  private Map<String, Long> codeRanges;
+
+  public String getCode() {
+    return code;
+  }
+
+  public void setCode(String code) {
+    this.code = code;
+  }
+
+  public String getTargetUrl() {
+    return targetUrl;
+  }
+
+  public void setTargetUrl(String targetUrl) {
+    this.targetUrl = targetUrl;
+  }
+
+  public byte[] getTargetBin() {
+    return targetBin;
+  }
+
+  public void setTargetBin(byte[] targetBin) {
+    this.targetBin = targetBin;
+  }
+
+  public byte[] getUrlHmac() {
+    return urlHmac;
+  }
+
+  public void setUrlHmac(byte[] urlHmac) {
+    this.urlHmac = urlHmac;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Instant getExpiry() {
+    return expiry;
+  }
+
+  public void setExpiry(Instant expiry) {
+    this.expiry = expiry;
+  }
+
+  public boolean isDisabled() {
+    return disabled;
+  }
+
+  public void setDisabled(boolean disabled) {
+    this.disabled = disabled;
+  }
+
+  public Instant getDisabledAt() {
+    return disabledAt;
+  }
+
+  public void setDisabledAt(Instant disabledAt) {
+    this.disabledAt = disabledAt;
+  }
+
+  public Instant getArchivedAt() {
+    return archivedAt;
+  }
+
+  public void setArchivedAt(Instant archivedAt) {
+    this.archivedAt = archivedAt;
+  }
+
+  public String getArchiveReason() {
+    return archiveReason;
+  }
+
+  public void setArchiveReason(String archiveReason) {
+    this.archiveReason = archiveReason;
+  }
+
+  public Map<String, Long> getCodeRanges() {
+    return codeRanges;
+  }
+
+  public void setCodeRanges(Map<String, Long> codeRanges) {
+    this.codeRanges = codeRanges;
+  }
+}
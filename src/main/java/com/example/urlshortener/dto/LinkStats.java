@@ -0,0 +1,53 @@
+package com.example.urlshortener.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public class LinkStats {
+  private String shortCode;
+  private long totalClicks;
+  private Instant since;
+  private List<ClickBucket> clicksPerMinute;
+
+  public LinkStats() {}
+
+  public LinkStats(
+      String shortCode, long totalClicks, Instant since, List<ClickBucket> clicksPerMinute) {
+    this.shortCode = shortCode;
+    this.totalClicks = totalClicks;
+    this.since = since;
+    this.clicksPerMinute = clicksPerMinute;
+  }
+
+  public String getShortCode() {
+    return shortCode;
+  }
+
+  public void setShortCode(String shortCode) {
+    this.shortCode = shortCode;
+  }
+
+  public long getTotalClicks() {
+    return totalClicks;
+  }
+
+  public void setTotalClicks(long totalClicks) {
+    this.totalClicks = totalClicks;
+  }
+
+  public Instant getSince() {
+    return since;
+  }
+
+  public void setSince(Instant since) {
+    this.since = since;
+  }
+
+  public List<ClickBucket> getClicksPerMinute() {
+    return clicksPerMinute;
+  }
+
+  public void setClicksPerMinute(List<ClickBucket> clicksPerMinute) {
+    this.clicksPerMinute = clicksPerMinute;
+  }
+}
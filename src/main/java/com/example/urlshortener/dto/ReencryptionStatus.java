@@ -0,0 +1,88 @@
+package com.example.urlshortener.dto;
+
+import java.time.Instant;
+
+public class ReencryptionStatus {
+  private boolean running;
+  private long totalRows;
+  private long scannedRows;
+  private long rewrittenRows;
+  private long failedRows;
+  private Instant startedAt;
+  private Instant finishedAt;
+
+  public ReencryptionStatus() {}
+
+  public ReencryptionStatus(
+      boolean running,
+      long totalRows,
+      long scannedRows,
+      long rewrittenRows,
+      long failedRows,
+      Instant startedAt,
+      Instant finishedAt) {
+    this.running = running;
+    this.totalRows = totalRows;
+    this.scannedRows = scannedRows;
+    this.rewrittenRows = rewrittenRows;
+    this.failedRows = failedRows;
+    this.startedAt = startedAt;
+    this.finishedAt = finishedAt;
+  }
+
+  public boolean isRunning() {
+    return running;
+  }
+
+  public void setRunning(boolean running) {
+    this.running = running;
+  }
+
+  public long getTotalRows() {
+    return totalRows;
+  }
+
+  public void setTotalRows(long totalRows) {
+    this.totalRows = totalRows;
+  }
+
+  public long getScannedRows() {
+    return scannedRows;
+  }
+
+  public void setScannedRows(long scannedRows) {
+    this.scannedRows = scannedRows;
+  }
+
+  public long getRewrittenRows() {
+    return rewrittenRows;
+  }
+
+  public void setRewrittenRows(long rewrittenRows) {
+    this.rewrittenRows = rewrittenRows;
+  }
+
+  public long getFailedRows() {
+    return failedRows;
+  }
+
+  public void setFailedRows(long failedRows) {
+    this.failedRows = failedRows;
+  }
+
+  public Instant getStartedAt() {
+    return startedAt;
+  }
+
+  public void setStartedAt(Instant startedAt) {
+    this.startedAt = startedAt;
+  }
+
+  public Instant getFinishedAt() {
+    return finishedAt;
+  }
+
+  public void setFinishedAt(Instant finishedAt) {
+    this.finishedAt = finishedAt;
+  }
+}
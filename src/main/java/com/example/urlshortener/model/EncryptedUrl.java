@@ -0,0 +1,26 @@
+package com.example.urlshortener.model;
+
+/**
+ * An encrypted target URL in one of its two storage forms: Base64 text in {@code target_url}, or
+ * the binary envelope in {@code target_bin}. Exactly one of the two is set.
+ */
+public record EncryptedUrl(String text, byte[] binary) {
+
+  public EncryptedUrl {
+    if ((text == null) == (binary == null)) {
+      throw new IllegalArgumentException("Exactly one of text or binary ciphertext must be set");
+    }
+  }
+
+  public static EncryptedUrl ofText(String text) {
+    return new EncryptedUrl(text, null);
+  }
+
+  public static EncryptedUrl ofBinary(byte[] binary) {
+    return new EncryptedUrl(null, binary);
+  }
+
+  public boolean isBinary() {
+    return binary != null;
+  }
+}
@@ -0,0 +1,26 @@
+package com.example.urlshortener.model;
+
+import java.time.Instant;
+
+/**
+ * Read-only projection of a {@code links_core} row with just what resolving a redirect needs. It is
+ * built by a JPQL constructor expression, so loading it creates no managed entity and no
+ * dirty-checking snapshot.
+ */
+public record LinkView(
+    String shortCode,
+    EncryptedUrl encryptedUrl,
+    Instant createdAt,
+    Instant expiry,
+    boolean disabled) {
+
+  public LinkView(
+      String shortCode,
+      String encryptedText,
+      byte[] encryptedBinary,
+      Instant createdAt,
+      Instant expiry,
+      boolean disabled) {
+    this(shortCode, new EncryptedUrl(encryptedText, encryptedBinary), createdAt, expiry, disabled);
+  }
+}
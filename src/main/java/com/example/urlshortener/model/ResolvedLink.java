@@ -0,0 +1,16 @@
+package com.example.urlshortener.model;
+
+import java.time.Instant;
+
+/**
+ * Immutable redirect state for a short code: everything the redirect path needs, with the target
+ * URL already decrypted. The target URL is {@code null} for disabled links, which are never
+ * decrypted.
+ */
+public record ResolvedLink(
+    String shortCode, String targetUrl, Instant createdAt, Instant expiry, boolean disabled) {
+
+  public boolean isExpired() {
+    return expiry != null && Instant.now().isAfter(expiry);
+  }
+}
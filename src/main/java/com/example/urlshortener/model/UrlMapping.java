@@ -1,18 +1,27 @@
 package com.example.urlshortener.model;
 
+import com.example.urlshortener.repository.UrlMappingChangeListener;
 import jakarta.persistence.*;
 import java.time.Instant;
+import org.springframework.data.domain.Persistable;
 
 @Entity
 @Table(name = "links_core")
-public class UrlMapping {
+@EntityListeners(UrlMappingChangeListener.class)
+public class UrlMapping implements Persistable<String> {
   @Id
   @Column(name = "code", nullable = false)
   private String shortCode;
 
-  @Column(name = "target_url", nullable = false, columnDefinition = "TEXT")
+  @Column(name = "target_url", columnDefinition = "TEXT")
   private String encryptedLongUrl;
 
+  @Column(name = "target_bin", length = 8192)
+  private byte[] encryptedTarget;
+
+  @Column(name = "url_hmac", length = 32)
+  private byte[] urlHmac;
+
   @Column(name = "created_at", nullable = false, updatable = false)
   @org.hibernate.annotations.CreationTimestamp
   private Instant createdAt;
@@ -23,25 +32,84 @@ public class UrlMapping {
   @Column(name = "is_disabled", nullable = false)
   private boolean disabled;
 
+  @Column(name = "disabled_at")
+  private Instant disabledAt;
+
+  // Short codes are assigned, not generated, so tell Spring Data which instances are new to get a
+  // plain INSERT instead of a SELECT followed by a merge.
+  @Transient private boolean isNew = true;
+
   protected UrlMapping() {
     // JPA requires a no-arg constructor
   }
 
   public UrlMapping(String shortCode, String encryptedLongUrl, Instant expiry) {
+    this(shortCode, EncryptedUrl.ofText(encryptedLongUrl), expiry);
+  }
+
+  public UrlMapping(String shortCode, EncryptedUrl encryptedUrl, Instant expiry) {
+    this(shortCode, encryptedUrl, null, expiry);
+  }
+
+  public UrlMapping(String shortCode, EncryptedUrl encryptedUrl, byte[] urlHmac, Instant expiry) {
     this.shortCode = shortCode;
-    this.encryptedLongUrl = encryptedLongUrl;
+    this.encryptedLongUrl = encryptedUrl.text();
+    this.encryptedTarget = encryptedUrl.binary();
+    this.urlHmac = urlHmac;
     this.expiry = expiry;
     this.disabled = false;
   }
 
+  /** Recreates a stored mapping read with plain SQL rather than loaded by JPA. */
+  public static UrlMapping fromRow(
+      String shortCode,
+      EncryptedUrl encryptedUrl,
+      byte[] urlHmac,
+      Instant createdAt,
+      Instant expiry,
+      boolean disabled,
+      Instant disabledAt) {
+    UrlMapping mapping = new UrlMapping(shortCode, encryptedUrl, urlHmac, expiry);
+    mapping.createdAt = createdAt;
+    mapping.disabled = disabled;
+    mapping.disabledAt = disabledAt;
+    mapping.isNew = false;
+    return mapping;
+  }
+
+  @Override
+  public String getId() {
+    return shortCode;
+  }
+
+  @Override
+  public boolean isNew() {
+    return isNew;
+  }
+
+  @PostLoad
+  @PostPersist
+  void markNotNew() {
+    this.isNew = false;
+  }
+
   public String getShortCode() {
     return shortCode;
   }
 
+  /** Returns the Base64 ciphertext, or {@code null} if the URL is stored in binary form. */
   public String getEncryptedLongUrl() {
     return encryptedLongUrl;
   }
 
+  public EncryptedUrl getEncryptedUrl() {
+    return new EncryptedUrl(encryptedLongUrl, encryptedTarget);
+  }
+
+  public byte[] getUrlHmac() {
+    return urlHmac;
+  }
+
   public Instant getCreatedAt() {
     return createdAt;
   }
@@ -54,7 +122,16 @@ public class UrlMapping {
     return disabled;
   }
 
+  public Instant getDisabledAt() {
+    return disabledAt;
+  }
+
   public void setDisabled(boolean disabled) {
+    if (disabled && !this.disabled) {
+      this.disabledAt = Instant.now();
+    } else if (!disabled) {
+      this.disabledAt = null;
+    }
     this.disabled = disabled;
   }
 
@@ -0,0 +1,117 @@
+package com.example.urlshortener.repository;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The databases that hold {@code links_core}. Without sharding this is just the primary database.
+ * With {@code sharding.enabled} every short code is owned by one shard, chosen by a {@link
+ * ShardRing}. While the rows of a previous ring are still being rebalanced, a code missing from its
+ * owner may still be on the shard that owned it before, which {@link #previousOwner} names. All
+ * other tables live on the primary database only.
+ */
+public class LinkShards {
+  public static final String PRIMARY = "primary";
+
+  private final Map<String, Shard> shards = new LinkedHashMap<>();
+  private final ShardRing ring;
+  private final ShardRing previousRing;
+
+  /**
+   * @param shards the shards, including one named {@link #PRIMARY}
+   * @param previousShards the shards of the ring before the last shard was added, or empty once
+   *     rebalancing is complete
+   */
+  public LinkShards(List<Shard> shards, int virtualNodes, Collection<String> previousShards) {
+    for (Shard shard : shards) {
+      if (this.shards.putIfAbsent(shard.name(), shard) != null) {
+        throw new IllegalArgumentException("Duplicate shard " + shard.name());
+      }
+    }
+    if (!this.shards.containsKey(PRIMARY)) {
+      throw new IllegalArgumentException("No " + PRIMARY + " shard");
+    }
+    for (String name : previousShards) {
+      if (!this.shards.containsKey(name)) {
+        throw new IllegalArgumentException("Previous shard " + name + " is not configured");
+      }
+    }
+    this.ring = new ShardRing(this.shards.keySet(), virtualNodes);
+    this.previousRing =
+        previousShards.isEmpty() ? null : new ShardRing(previousShards, virtualNodes);
+  }
+
+  /** A single shard on the primary database, used when sharding is disabled. */
+  public static LinkShards single(
+      JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+    return new LinkShards(
+        List.of(Shard.of(PRIMARY, jdbcTemplate, transactionManager)), 1, List.of());
+  }
+
+  public Shard primary() {
+    return shards.get(PRIMARY);
+  }
+
+  public Collection<Shard> all() {
+    return shards.values();
+  }
+
+  public boolean isRebalancing() {
+    return previousRing != null;
+  }
+
+  public Shard owner(String code) {
+    return shards.get(ring.shardFor(code));
+  }
+
+  /**
+   * Returns the shard that owned {@code code} in the previous ring while a rebalance is pending, or
+   * {@code null} if there is none or it is the current owner.
+   */
+  public Shard previousOwner(String code) {
+    if (previousRing == null) {
+      return null;
+    }
+    String previous = previousRing.shardFor(code);
+    return previous.equals(ring.shardFor(code)) ? null : shards.get(previous);
+  }
+
+  /** Groups {@code items} by the owner of the code {@code codeOf} returns for each. */
+  public <T> Map<Shard, List<T>> byOwner(Collection<T> items, Function<T, String> codeOf) {
+    Map<Shard, List<T>> groups = new LinkedHashMap<>();
+    for (T item : items) {
+      groups.computeIfAbsent(owner(codeOf.apply(item)), shard -> new ArrayList<>()).add(item);
+    }
+    return groups;
+  }
+
+  /** Closes the connection pools of the shards other than the primary, which Spring Boot owns. */
+  public void close() {
+    for (Shard shard : shards.values()) {
+      if (!shard.name().equals(PRIMARY)
+          && shard.jdbcTemplate().getDataSource() instanceof HikariDataSource dataSource) {
+        dataSource.close();
+      }
+    }
+  }
+
+  /**
+   * One database holding part of {@code links_core}. Transactions on a shard are local to it; no
+   * operation spans shards atomically.
+   */
+  public record Shard(String name, JdbcTemplate jdbcTemplate, TransactionTemplate transactions) {
+
+    public static Shard of(
+        String name, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+      return new Shard(name, jdbcTemplate, new TransactionTemplate(transactionManager));
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package com.example.urlshortener.repository;
+
+import com.example.urlshortener.model.EncryptedUrl;
+import com.example.urlshortener.model.LinkView;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Immutable, memory-mapped copy of the redirect state of {@code links_core}: for every code, what
+ * {@link LinkView} holds. Lookups read the mapped file directly, so a snapshot of millions of links
+ * costs no heap and opening one takes as long as mapping the file.
+ *
+ * <p>The file starts with a 32-byte header (magic, version, time taken, link count, slot table
+ * offset), followed by one packed record per link: code length and code, a flags byte, the creation
+ * time, the expiry if there is one, and the ciphertext. An open-addressing slot table at most half
+ * full comes last; each 8-byte slot holds a 32-bit hash of a code and the offset of its record, so
+ * a lookup usually reads one slot and one record. Records must fit in the first 2 GiB.
+ */
+public final class LinkSnapshot {
+  private static final int MAGIC = 0x4C4E4B53;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 32;
+  private static final int MAX_SLOTS = 1 << 27;
+
+  private static final int DISABLED = 1;
+  private static final int EXPIRES = 2;
+  private static final int BINARY = 4;
+
+  private final MappedByteBuffer records;
+  private final MappedByteBuffer slots;
+  private final int slotMask;
+  private final int size;
+  private final Instant takenAt;
+  private final long sizeInBytes;
+
+  private LinkSnapshot(MappedByteBuffer records, MappedByteBuffer slots, long sizeInBytes) {
+    this.records = records;
+    this.slots = slots;
+    this.slotMask = slots.capacity() / Long.BYTES - 1;
+    this.size = records.getInt(20);
+    this.takenAt = Instant.ofEpochSecond(records.getLong(8), records.getInt(16));
+    this.sizeInBytes = sizeInBytes;
+  }
+
+  /** Maps the snapshot written to {@code path}. */
+  public static LinkSnapshot open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < HEADER_SIZE) {
+        throw new IOException("Not a link snapshot: " + path);
+      }
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      channel.read(header, 0);
+      if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+        throw new IOException("Not a link snapshot: " + path);
+      }
+      long slotsOffset = header.getLong(24);
+      long slotBytes = fileSize - slotsOffset;
+      if (slotsOffset < HEADER_SIZE
+          || slotsOffset > Integer.MAX_VALUE
+          || slotBytes < 2 * Long.BYTES
+          || slotBytes > (long) MAX_SLOTS * Long.BYTES
+          || Long.bitCount(slotBytes) != 1) {
+        throw new IOException("Truncated link snapshot: " + path);
+      }
+      return new LinkSnapshot(
+          channel.map(FileChannel.MapMode.READ_ONLY, 0, slotsOffset),
+          channel.map(FileChannel.MapMode.READ_ONLY, slotsOffset, slotBytes),
+          fileSize);
+    }
+  }
+
+  /**
+   * Starts writing a snapshot taken at {@code takenAt} to {@code path}, replacing any file there.
+   * Write to a temporary file and move it into place once {@link Writer#finish} returns, so readers
+   * never map a partial file.
+   */
+  public static Writer writer(Path path, Instant takenAt) throws IOException {
+    return new Writer(path, takenAt);
+  }
+
+  public Optional<LinkView> find(String code) {
+    int offset = locate(code);
+    return offset != 0 ? Optional.of(read(offset)) : Optional.empty();
+  }
+
+  public boolean contains(String code) {
+    return locate(code) != 0;
+  }
+
+  /** Returns the number of links in the snapshot. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns when the scan the snapshot was compiled from started. */
+  public Instant takenAt() {
+    return takenAt;
+  }
+
+  public long sizeInBytes() {
+    return sizeInBytes;
+  }
+
+  private int locate(String code) {
+    byte[] key = code.getBytes(StandardCharsets.UTF_8);
+    int hash = hash(key);
+    for (int index = hash & slotMask; ; index = (index + 1) & slotMask) {
+      long slot = slots.getLong(index * Long.BYTES);
+      if (slot == 0) {
+        return 0;
+      }
+      int offset = (int) slot;
+      if ((int) (slot >>> 32) == hash && codeEquals(offset, key)) {
+        return offset;
+      }
+    }
+  }
+
+  private boolean codeEquals(int offset, byte[] key) {
+    if ((records.getShort(offset) & 0xFFFF) != key.length) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (records.get(offset + 2 + i) != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private LinkView read(int offset) {
+    int codeLength = records.getShort(offset) & 0xFFFF;
+    byte[] code = new byte[codeLength];
+    records.get(offset + 2, code);
+    int position = offset + 2 + codeLength;
+    int flags = records.get(position++);
+    Instant createdAt = readInstant(position);
+    position += 12;
+    Instant expiry = null;
+    if ((flags & EXPIRES) != 0) {
+      expiry = readInstant(position);
+      position += 12;
+    }
+    byte[] ciphertext = new byte[records.getInt(position)];
+    records.get(position + 4, ciphertext);
+    EncryptedUrl encryptedUrl =
+        (flags & BINARY) != 0
+            ? EncryptedUrl.ofBinary(ciphertext)
+            : EncryptedUrl.ofText(new String(ciphertext, StandardCharsets.UTF_8));
+    return new LinkView(
+        new String(code, StandardCharsets.UTF_8),
+        encryptedUrl,
+        createdAt,
+        expiry,
+        (flags & DISABLED) != 0);
+  }
+
+  private Instant readInstant(int position) {
+    return Instant.ofEpochSecond(records.getLong(position), records.getInt(position + 8));
+  }
+
+  private static int hash(byte[] key) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : key) {
+      hash ^= b & 0xFF;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return (int) hash;
+  }
+
+  /**
+   * Appends links to a new snapshot file. Records are streamed to disk as they are added; only an
+   * 8-byte hash and offset per link is kept on the heap until {@link #finish} builds the slot
+   * table.
+   */
+  public static final class Writer implements Closeable {
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final Instant takenAt;
+    private long position = HEADER_SIZE;
+    private long[] entries = new long[1024];
+    private int count;
+
+    private Writer(Path path, Instant takenAt) throws IOException {
+      this.channel =
+          FileChannel.open(
+              path,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.TRUNCATE_EXISTING,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      channel.position(HEADER_SIZE);
+      this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+      this.takenAt = takenAt;
+    }
+
+    public void add(LinkView view) throws IOException {
+      byte[] code = view.shortCode().getBytes(StandardCharsets.UTF_8);
+      EncryptedUrl encryptedUrl = view.encryptedUrl();
+      byte[] ciphertext =
+          encryptedUrl.isBinary()
+              ? encryptedUrl.binary()
+              : encryptedUrl.text().getBytes(StandardCharsets.UTF_8);
+      int flags =
+          (view.disabled() ? DISABLED : 0)
+              | (view.expiry() != null ? EXPIRES : 0)
+              | (encryptedUrl.isBinary() ? BINARY : 0);
+      long length =
+          2L + code.length + 1 + 12 + (view.expiry() != null ? 12 : 0) + 4 + ciphertext.length;
+      if (code.length > 0xFFFF) {
+        throw new IllegalArgumentException("Short code too long for a snapshot: " + code.length);
+      }
+      if (position + length > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Link snapshot records exceed 2 GiB");
+      }
+
+      if (count == entries.length) {
+        entries = Arrays.copyOf(entries, count * 2);
+      }
+      entries[count++] = ((long) hash(code) << 32) | position;
+
+      out.writeShort(code.length);
+      out.write(code);
+      out.writeByte(flags);
+      writeInstant(view.createdAt());
+      if (view.expiry() != null) {
+        writeInstant(view.expiry());
+      }
+      out.writeInt(ciphertext.length);
+      out.write(ciphertext);
+      position += length;
+    }
+
+    /** Writes the slot table and header and forces the file to disk. */
+    public void finish() throws IOException {
+      out.flush();
+      long slotsOffset = (position + Long.BYTES - 1) & -Long.BYTES;
+      if (count > MAX_SLOTS / 2) {
+        throw new IllegalStateException("Too many links for a snapshot: " + count);
+      }
+      // The smallest power of two at least twice the count
+      int slotCount = Integer.highestOneBit(Math.max(1, 2 * count - 1)) << 1;
+      int mask = slotCount - 1;
+      MappedByteBuffer slots =
+          channel.map(FileChannel.MapMode.READ_WRITE, slotsOffset, (long) slotCount * Long.BYTES);
+      for (int i = 0; i < count; i++) {
+        long entry = entries[i];
+        int index = (int) (entry >>> 32) & mask;
+        while (slots.getLong(index * Long.BYTES) != 0) {
+          index = (index + 1) & mask;
+        }
+        slots.putLong(index * Long.BYTES, entry);
+      }
+      slots.force();
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+      header.putInt(MAGIC).putInt(VERSION);
+      header.putLong(takenAt.getEpochSecond()).putInt(takenAt.getNano());
+      header.putInt(count).putLong(slotsOffset).flip();
+      channel.write(header, 0);
+      channel.force(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+
+    private void writeInstant(Instant instant) throws IOException {
+      out.writeLong(instant.getEpochSecond());
+      out.writeInt(instant.getNano());
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package com.example.urlshortener.repository;
+
+import com.example.urlshortener.model.EncryptedUrl;
+import com.example.urlshortener.model.LinkView;
+import com.example.urlshortener.model.UrlMapping;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import io.r2dbc.spi.Readable;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.DatabaseClient.GenericExecuteSpec;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * {@link ReactiveUrlMappingRepository} over {@code links_core} using R2DBC. The connection pool is
+ * owned by this repository rather than exposed as a bean, because a {@code ConnectionFactory} bean
+ * would make Spring Boot back off from the JDBC {@code DataSource} that Flyway, JPA and the
+ * background jobs still use. Timestamps are converted in the JVM time zone, like the JDBC code.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class R2dbcUrlMappingRepository implements ReactiveUrlMappingRepository {
+  private static final String VIEW_COLUMNS =
+      "code, target_url, target_bin, created_at, expiry_ts, is_disabled";
+
+  private final ConnectionPool connectionPool;
+  private final DatabaseClient databaseClient;
+
+  public R2dbcUrlMappingRepository(
+      @Value("${reactive.r2dbc.url}") String url,
+      @Value("${spring.datasource.username:sa}") String username,
+      @Value("${spring.datasource.password:}") String password,
+      @Value("${reactive.r2dbc.pool.max-size:20}") int maxSize,
+      @Value("${reactive.r2dbc.pool.max-acquire-time:PT5S}") Duration maxAcquireTime) {
+    if (maxSize < 1) {
+      throw new IllegalArgumentException("R2DBC pool size must be positive");
+    }
+    ConnectionFactoryOptions options =
+        ConnectionFactoryOptions.parse(url)
+            .mutate()
+            .option(ConnectionFactoryOptions.USER, username)
+            .option(ConnectionFactoryOptions.PASSWORD, password)
+            .build();
+    this.connectionPool =
+        new ConnectionPool(
+            ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(1)
+                .maxSize(maxSize)
+                .maxAcquireTime(maxAcquireTime)
+                .build());
+    this.databaseClient = DatabaseClient.create(connectionPool);
+  }
+
+  @Override
+  public Mono<LinkView> findViewByShortCode(String shortCode) {
+    return databaseClient
+        .sql("SELECT " + VIEW_COLUMNS + " FROM links_core WHERE code = :code")
+        .bind("code", shortCode)
+        .map(R2dbcUrlMappingRepository::toView)
+        .one();
+  }
+
+  @Override
+  public Mono<Boolean> existsByShortCode(String shortCode) {
+    return databaseClient
+        .sql(
+            "SELECT 1 FROM links_core WHERE code = :code"
+                + " UNION ALL SELECT 1 FROM links_archive WHERE code = :code")
+        .bind("code", shortCode)
+        .map(row -> Boolean.TRUE)
+        .first()
+        .hasElement();
+  }
+
+  @Override
+  public Flux<LinkView> findByUrlHmac(byte[] urlHmac) {
+    return databaseClient
+        .sql(
+            "SELECT "
+                + VIEW_COLUMNS
+                + " FROM links_core WHERE url_hmac = :urlHmac AND is_disabled = FALSE")
+        .bind("urlHmac", urlHmac)
+        .map(R2dbcUrlMappingRepository::toView)
+        .all();
+  }
+
+  @Override
+  public Mono<Void> persist(UrlMapping urlMapping) {
+    EncryptedUrl encryptedUrl = urlMapping.getEncryptedUrl();
+    GenericExecuteSpec spec =
+        databaseClient
+            .sql(
+                "INSERT INTO links_core (code, target_url, target_bin, expiry_ts, url_hmac)"
+                    + " VALUES (:code, :targetUrl, :targetBin, :expiry, :urlHmac)")
+            .bind("code", urlMapping.getShortCode());
+    spec = bind(spec, "targetUrl", encryptedUrl.text(), String.class);
+    spec = bind(spec, "targetBin", encryptedUrl.binary(), byte[].class);
+    spec = bind(spec, "expiry", toLocalDateTime(urlMapping.getExpiry()), LocalDateTime.class);
+    spec = bind(spec, "urlHmac", urlMapping.getUrlHmac(), byte[].class);
+    return spec.fetch().rowsUpdated().then();
+  }
+
+  @PreDestroy
+  void close() {
+    connectionPool.dispose();
+  }
+
+  private static GenericExecuteSpec bind(
+      GenericExecuteSpec spec, String name, Object value, Class<?> type) {
+    return value != null ? spec.bind(name, value) : spec.bindNull(name, type);
+  }
+
+  private static LinkView toView(Readable row) {
+    return new LinkView(
+        row.get("code", String.class),
+        row.get("target_url", String.class),
+        row.get("target_bin", byte[].class),
+        toInstant(row.get("created_at", LocalDateTime.class)),
+        toInstant(row.get("expiry_ts", LocalDateTime.class)),
+        Boolean.TRUE.equals(row.get("is_disabled", Boolean.class)));
+  }
+
+  private static Instant toInstant(LocalDateTime value) {
+    return value != null ? value.atZone(ZoneId.systemDefault()).toInstant() : null;
+  }
+
+  private static LocalDateTime toLocalDateTime(Instant value) {
+    return value != null ? LocalDateTime.ofInstant(value, ZoneId.systemDefault()) : null;
+  }
+}
@@ -0,0 +1,28 @@
+package com.example.urlshortener.repository;
+
+import com.example.urlshortener.model.LinkView;
+import com.example.urlshortener.model.UrlMapping;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link UrlMappingReadRepository} and {@link
+ * UrlMappingWriteRepository} with the operations the reactive runtime needs. Rows are returned as
+ * {@link LinkView} projections, since there is no persistence context to manage entities.
+ */
+public interface ReactiveUrlMappingRepository {
+  Mono<LinkView> findViewByShortCode(String shortCode);
+
+  /** Same as {@link UrlMappingReadRepository#existsByShortCode}, archived codes included. */
+  Mono<Boolean> existsByShortCode(String shortCode);
+
+  /** Returns the enabled mappings whose {@code url_hmac} equals {@code urlHmac}. */
+  Flux<LinkView> findByUrlHmac(byte[] urlHmac);
+
+  /**
+   * Inserts a new mapping, failing with a {@link
+   * org.springframework.dao.DataIntegrityViolationException} if the code is taken. Entity listeners
+   * do not run, so callers take care of caches and the short code filter.
+   */
+  Mono<Void> persist(UrlMapping urlMapping);
+}
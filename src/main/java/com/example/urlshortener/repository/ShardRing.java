@@ -0,0 +1,65 @@
+package com.example.urlshortener.repository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Consistent-hash ring that maps short codes to shard names. Each shard is placed on the ring at
+ * {@code virtualNodes} points and a code belongs to the shard of the first point at or after its
+ * own hash, so adding a shard only reassigns the codes that now land on its points, about 1/n of
+ * them, and all of those to the new shard.
+ *
+ * <p>The hash decides where rows are stored: changing it, or the point layout, would leave existing
+ * rows on the wrong shard.
+ */
+public final class ShardRing {
+  private final long[] points;
+  private final String[] owners;
+
+  public ShardRing(Collection<String> shards, int virtualNodes) {
+    if (shards.isEmpty() || virtualNodes < 1) {
+      throw new IllegalArgumentException("A shard ring needs at least one shard and virtual node");
+    }
+    // Sorted so that the rare point collision resolves the same way whatever the configured order
+    TreeMap<Long, String> ring = new TreeMap<>();
+    for (String shard : new TreeSet<>(shards)) {
+      for (int i = 0; i < virtualNodes; i++) {
+        ring.putIfAbsent(hash(shard + '#' + i), shard);
+      }
+    }
+    this.points = new long[ring.size()];
+    this.owners = new String[ring.size()];
+    int i = 0;
+    for (Map.Entry<Long, String> point : ring.entrySet()) {
+      points[i] = point.getKey();
+      owners[i] = point.getValue();
+      i++;
+    }
+  }
+
+  public String shardFor(String code) {
+    int index = Arrays.binarySearch(points, hash(code));
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return owners[index == points.length ? 0 : index];
+  }
+
+  // FNV-1a over the UTF-16 code units followed by the MurmurHash3 64-bit finalizer
+  private static long hash(String value) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < value.length(); i++) {
+      hash ^= value.charAt(i);
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
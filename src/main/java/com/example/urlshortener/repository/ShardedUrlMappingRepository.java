@@ -0,0 +1,284 @@
+package com.example.urlshortener.repository;
+
+import com.example.urlshortener.model.EncryptedUrl;
+import com.example.urlshortener.model.LinkView;
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.repository.LinkShards.Shard;
+import com.example.urlshortener.service.LinkChangeNotifier;
+import com.example.urlshortener.service.ShortCodeFilter;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link UrlMappingReadRepository} and {@link UrlMappingWriteRepository} over the {@link
+ * LinkShards}, used instead of the JPA repository when {@code sharding.enabled} is set. Lookups by
+ * code go to the owning shard, and while a rebalance is pending also to the previous owner if the
+ * row is not found there. Lookups by URL HMAC have no code to route by and ask every shard.
+ *
+ * <p>Rows are written with plain SQL, so this repository does what {@link UrlMappingChangeListener}
+ * does for entities. Read replicas are not used for sharded lookups.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardedUrlMappingRepository
+    implements UrlMappingReadRepository, UrlMappingWriteRepository {
+  private static final String COLUMNS =
+      "code, target_url, target_bin, url_hmac, created_at, expiry_ts, is_disabled, disabled_at";
+  private static final String INSERT =
+      "INSERT INTO links_core (code, target_url, target_bin, url_hmac, created_at, expiry_ts)"
+          + " VALUES (?, ?, ?, ?, ?, ?)";
+
+  private final LinkShards linkShards;
+  private final ShortCodeFilter shortCodeFilter;
+  private final LinkChangeNotifier linkChangeNotifier;
+
+  public ShardedUrlMappingRepository(
+      LinkShards linkShards,
+      ShortCodeFilter shortCodeFilter,
+      LinkChangeNotifier linkChangeNotifier) {
+    this.linkShards = linkShards;
+    this.shortCodeFilter = shortCodeFilter;
+    this.linkChangeNotifier = linkChangeNotifier;
+  }
+
+  @Override
+  public Optional<UrlMapping> findByShortCode(String shortCode) {
+    return findOnOwner(
+        shortCode,
+        (shard, code) ->
+            shard
+                .jdbcTemplate()
+                .query(
+                    "SELECT " + COLUMNS + " FROM links_core WHERE code = ?",
+                    (rs, rowNum) -> toMapping(rs),
+                    code)
+                .stream()
+                .findFirst());
+  }
+
+  @Override
+  public Optional<LinkView> findViewByShortCode(String shortCode) {
+    return findOnOwner(
+        shortCode,
+        (shard, code) ->
+            shard
+                .jdbcTemplate()
+                .query(
+                    "SELECT code, target_url, target_bin, created_at, expiry_ts, is_disabled"
+                        + " FROM links_core WHERE code = ?",
+                    (rs, rowNum) ->
+                        new LinkView(
+                            rs.getString(1),
+                            rs.getString(2),
+                            rs.getBytes(3),
+                            toInstant(rs.getTimestamp(4)),
+                            toInstant(rs.getTimestamp(5)),
+                            rs.getBoolean(6)),
+                    code)
+                .stream()
+                .findFirst());
+  }
+
+  @Override
+  public boolean existsByShortCode(String shortCode) {
+    return findOnOwner(
+            shortCode,
+            (shard, code) ->
+                shard
+                    .jdbcTemplate()
+                    .queryForList("SELECT code FROM links_core WHERE code = ?", String.class, code)
+                    .stream()
+                    .findFirst())
+        .isPresent()
+        || !findArchived(List.of(shortCode)).isEmpty();
+  }
+
+  @Override
+  public List<UrlMapping> findByUrlHmac(byte[] urlHmac) {
+    List<UrlMapping> mappings = new ArrayList<>();
+    for (Shard shard : linkShards.all()) {
+      mappings.addAll(
+          shard
+              .jdbcTemplate()
+              .query(
+                  "SELECT "
+                      + COLUMNS
+                      + " FROM links_core WHERE url_hmac = ? AND is_disabled = FALSE",
+                  (rs, rowNum) -> toMapping(rs),
+                  urlHmac));
+    }
+    return mappings;
+  }
+
+  @Override
+  public List<String> findExistingShortCodes(Collection<String> shortCodes) {
+    Map<Shard, List<String>> candidates = linkShards.byOwner(shortCodes, Function.identity());
+    for (String code : shortCodes) {
+      Shard previous = linkShards.previousOwner(code);
+      if (previous != null) {
+        candidates.computeIfAbsent(previous, shard -> new ArrayList<>()).add(code);
+      }
+    }
+    Set<String> existing = new HashSet<>(findArchived(shortCodes));
+    candidates.forEach(
+        (shard, codes) ->
+            existing.addAll(
+                shard
+                    .jdbcTemplate()
+                    .queryForList(
+                        "SELECT code FROM links_core WHERE code IN ("
+                            + placeholders(codes.size())
+                            + ")",
+                        String.class,
+                        codes.toArray())));
+    return new ArrayList<>(existing);
+  }
+
+  /**
+   * Inserts the mapping into the shard that owns its code. Codes on their previous shard during a
+   * rebalance are not checked, so callers that need a free code must check {@link
+   * #existsByShortCode} first, as alias handling already does.
+   */
+  @Override
+  public UrlMapping persist(UrlMapping urlMapping) {
+    UrlMapping stored = withCreatedAt(urlMapping, Instant.now());
+    linkShards.owner(stored.getShortCode()).jdbcTemplate().update(INSERT, insertArgs(stored));
+    afterInsert(stored.getShortCode());
+    return stored;
+  }
+
+  /**
+   * Inserts the mappings with one batch per shard. If a shard rejects its batch, the batches
+   * already written to other shards are deleted again, so as with a single database either all
+   * mappings are stored or none.
+   */
+  @Override
+  public List<UrlMapping> persistAll(List<UrlMapping> urlMappings) {
+    Instant now = Instant.now();
+    List<UrlMapping> stored = new ArrayList<>(urlMappings.size());
+    urlMappings.forEach(mapping -> stored.add(withCreatedAt(mapping, now)));
+
+    List<Map.Entry<Shard, List<UrlMapping>>> written = new ArrayList<>();
+    for (Map.Entry<Shard, List<UrlMapping>> batch :
+        linkShards.byOwner(stored, UrlMapping::getShortCode).entrySet()) {
+      List<Object[]> args = batch.getValue().stream().map(this::insertArgs).toList();
+      try {
+        batch
+            .getKey()
+            .transactions()
+            .executeWithoutResult(
+                status -> batch.getKey().jdbcTemplate().batchUpdate(INSERT, args));
+      } catch (RuntimeException e) {
+        written.forEach(ShardedUrlMappingRepository::delete);
+        throw e;
+      }
+      written.add(batch);
+    }
+    stored.forEach(mapping -> afterInsert(mapping.getShortCode()));
+    return stored;
+  }
+
+  private <T> Optional<T> findOnOwner(String code, BiFunction<Shard, String, Optional<T>> query) {
+    Optional<T> found = query.apply(linkShards.owner(code), code);
+    if (found.isEmpty()) {
+      Shard previous = linkShards.previousOwner(code);
+      if (previous != null) {
+        return query.apply(previous, code);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Returns the subset of {@code codes} in {@code links_archive}. Rebalancing does not move
+   * archived rows, so every shard is asked.
+   */
+  private List<String> findArchived(Collection<String> codes) {
+    List<String> archived = new ArrayList<>();
+    for (Shard shard : linkShards.all()) {
+      archived.addAll(
+          shard
+              .jdbcTemplate()
+              .queryForList(
+                  "SELECT code FROM links_archive WHERE code IN ("
+                      + placeholders(codes.size())
+                      + ")",
+                  String.class,
+                  codes.toArray()));
+    }
+    return archived;
+  }
+
+  private void afterInsert(String code) {
+    shortCodeFilter.add(code);
+    linkChangeNotifier.linkChanged(code);
+  }
+
+  private Object[] insertArgs(UrlMapping mapping) {
+    EncryptedUrl encryptedUrl = mapping.getEncryptedUrl();
+    return new Object[] {
+      mapping.getShortCode(),
+      encryptedUrl.text(),
+      encryptedUrl.binary(),
+      mapping.getUrlHmac(),
+      Timestamp.from(mapping.getCreatedAt()),
+      mapping.getExpiry() != null ? Timestamp.from(mapping.getExpiry()) : null
+    };
+  }
+
+  private static void delete(Map.Entry<Shard, List<UrlMapping>> batch) {
+    List<String> codes = batch.getValue().stream().map(UrlMapping::getShortCode).toList();
+    batch
+        .getKey()
+        .jdbcTemplate()
+        .update(
+            "DELETE FROM links_core WHERE code IN (" + placeholders(codes.size()) + ")",
+            codes.toArray());
+  }
+
+  private static UrlMapping withCreatedAt(UrlMapping mapping, Instant createdAt) {
+    return UrlMapping.fromRow(
+        mapping.getShortCode(),
+        mapping.getEncryptedUrl(),
+        mapping.getUrlHmac(),
+        createdAt,
+        mapping.getExpiry(),
+        false,
+        null);
+  }
+
+  private static UrlMapping toMapping(ResultSet rs) throws SQLException {
+    return UrlMapping.fromRow(
+        rs.getString(1),
+        new EncryptedUrl(rs.getString(2), rs.getBytes(3)),
+        rs.getBytes(4),
+        toInstant(rs.getTimestamp(5)),
+        toInstant(rs.getTimestamp(6)),
+        rs.getBoolean(7),
+        toInstant(rs.getTimestamp(8)));
+  }
+
+  private static Instant toInstant(Timestamp timestamp) {
+    return timestamp != null ? timestamp.toInstant() : null;
+  }
+
+  private static String placeholders(int count) {
+    return String.join(",", Collections.nCopies(count, "?"));
+  }
+}
@@ -0,0 +1,132 @@
+package com.example.urlshortener.repository;
+
+import com.example.urlshortener.model.LinkView;
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.service.LinkChangeNotifier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+/**
+ * {@link UrlMappingReadRepository} that serves redirect lookups from the current {@link
+ * LinkSnapshot}, used instead of the JPA repository for reads when {@code snapshot.enabled} is set.
+ * A code is looked up in the database instead if there is no snapshot yet, if the snapshot does not
+ * hold it (links created since it was taken), or if the {@link LinkChangeNotifier} reported a
+ * change to it since. All other lookups go to the database.
+ *
+ * <p>Changes are stamped with the current generation. A compile starts a new generation before it
+ * scans {@code links_core}, and once its snapshot is swapped in, changes stamped with an earlier
+ * generation are forgotten: they were committed before the notification, so the scan saw them.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = "snapshot.enabled", havingValue = "true")
+public class SnapshotUrlMappingReadRepository implements UrlMappingReadRepository {
+  private final UrlMappingRepository database;
+  private final Map<String, Long> changed = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+  private final Counter snapshotLookups;
+  private final Counter databaseLookups;
+
+  private volatile LinkSnapshot snapshot;
+
+  public SnapshotUrlMappingReadRepository(
+      UrlMappingRepository database,
+      LinkChangeNotifier linkChangeNotifier,
+      MeterRegistry meterRegistry) {
+    this.database = database;
+    this.snapshotLookups = lookupCounter(meterRegistry, "snapshot");
+    this.databaseLookups = lookupCounter(meterRegistry, "database");
+    Gauge.builder("urlshortener.snapshot.links", this, SnapshotUrlMappingReadRepository::size)
+        .description("Links in the redirect snapshot")
+        .register(meterRegistry);
+    linkChangeNotifier.subscribe(this::linkChanged);
+  }
+
+  @Override
+  public Optional<UrlMapping> findByShortCode(String shortCode) {
+    return database.findByShortCode(shortCode);
+  }
+
+  @Override
+  public Optional<LinkView> findViewByShortCode(String shortCode) {
+    LinkSnapshot current = snapshot;
+    if (current != null && !changed.containsKey(shortCode)) {
+      Optional<LinkView> view = current.find(shortCode);
+      if (view.isPresent()) {
+        snapshotLookups.increment();
+        return view;
+      }
+    }
+    databaseLookups.increment();
+    return database.findViewByShortCode(shortCode);
+  }
+
+  @Override
+  public boolean existsByShortCode(String shortCode) {
+    LinkSnapshot current = snapshot;
+    if (current != null && !changed.containsKey(shortCode) && current.contains(shortCode)) {
+      return true;
+    }
+    return database.existsByShortCode(shortCode);
+  }
+
+  @Override
+  public List<UrlMapping> findByUrlHmac(byte[] urlHmac) {
+    return database.findByUrlHmac(urlHmac);
+  }
+
+  @Override
+  public List<String> findExistingShortCodes(Collection<String> shortCodes) {
+    return database.findExistingShortCodes(shortCodes);
+  }
+
+  /** Returns the snapshot lookups are served from, or {@code null} before the first one. */
+  public LinkSnapshot snapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Starts a new generation and returns it. Call this before scanning {@code links_core} for a
+   * snapshot, and pass the result to {@link #swap}.
+   */
+  public long nextGeneration() {
+    return generation.incrementAndGet();
+  }
+
+  /**
+   * Serves lookups from {@code next}, compiled by a scan started in {@code generation}. A snapshot
+   * loaded from an earlier run passes 0, so no change is forgotten.
+   */
+  public void swap(LinkSnapshot next, long generation) {
+    // Swap first: until the old changes are dropped, their codes still go to the database
+    snapshot = next;
+    changed.values().removeIf(changedIn -> changedIn < generation);
+  }
+
+  /** Sends lookups of {@code code} to the database until a newer snapshot is swapped in. */
+  public void linkChanged(String code) {
+    changed.put(code, generation.get());
+  }
+
+  private double size() {
+    LinkSnapshot current = snapshot;
+    return current != null ? current.size() : 0;
+  }
+
+  private static Counter lookupCounter(MeterRegistry meterRegistry, String source) {
+    return Counter.builder("urlshortener.snapshot.lookups")
+        .description("Redirect lookups by where they were answered")
+        .tag("source", source)
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,80 @@
+package com.example.urlshortener.repository;
+
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.service.LinkChangeNotifier;
+import com.example.urlshortener.service.RecentWriteTracker;
+import com.example.urlshortener.service.RedirectCache;
+import com.example.urlshortener.service.ShortCodeFilter;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * JPA entity listener that drops cached redirect state whenever a mapping is inserted, updated (for
+ * example via {@link UrlMapping#setDisabled}) or removed, records the write for read-your-writes
+ * routing, and adds new codes to the {@link ShortCodeFilter}. Once the transaction completes the
+ * change is passed to the {@link LinkChangeNotifier} so other instances drop their cached state
+ * too. Instantiated by Hibernate through the Spring bean container so collaborators are
+ * constructor-injected.
+ */
+public class UrlMappingChangeListener {
+  private final RedirectCache redirectCache;
+  private final RecentWriteTracker recentWriteTracker;
+  private final ShortCodeFilter shortCodeFilter;
+  private final LinkChangeNotifier linkChangeNotifier;
+
+  public UrlMappingChangeListener(
+      RedirectCache redirectCache,
+      RecentWriteTracker recentWriteTracker,
+      ShortCodeFilter shortCodeFilter,
+      LinkChangeNotifier linkChangeNotifier) {
+    this.redirectCache = redirectCache;
+    this.recentWriteTracker = recentWriteTracker;
+    this.shortCodeFilter = shortCodeFilter;
+    this.linkChangeNotifier = linkChangeNotifier;
+  }
+
+  @PostPersist
+  void onPersist(UrlMapping mapping) {
+    String code = mapping.getShortCode();
+    shortCodeFilter.add(code);
+
+    // Add again after the commit so a concurrent filter rebuild that could not yet see the row
+    // still ends up with the code
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              shortCodeFilter.add(code);
+            }
+          });
+    }
+    onChange(mapping);
+  }
+
+  @PostUpdate
+  @PostRemove
+  void onChange(UrlMapping mapping) {
+    String code = mapping.getShortCode();
+    recentWriteTracker.recordWrite(code);
+    redirectCache.invalidate(code);
+
+    // A concurrent reader may reload the old row between the flush and the commit, so invalidate
+    // again once the transaction has completed. Other instances are only told at that point, when
+    // they can read the new row.
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              linkChangeNotifier.linkChanged(code);
+            }
+          });
+    } else {
+      linkChangeNotifier.linkChanged(code);
+    }
+  }
+}
@@ -1,11 +1,36 @@
 package com.example.urlshortener.repository;
 
+import com.example.urlshortener.model.LinkView;
 import com.example.urlshortener.model.UrlMapping;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-/** Read-only operations for URL mappings. */
+/**
+ * Read-only operations for URL mappings. Lookups run in read-only transactions and may be served by
+ * a read replica.
+ */
 public interface UrlMappingReadRepository {
   Optional<UrlMapping> findByShortCode(String shortCode);
 
+  /**
+   * Looks up the redirect state for {@code shortCode} as an unmanaged projection, without loading
+   * the entity into a persistence context.
+   */
+  Optional<LinkView> findViewByShortCode(String shortCode);
+
+  /**
+   * Returns whether {@code shortCode} is taken, either by a link or by a reaped link in {@code
+   * links_archive}. Reaped codes stay reserved so links already shared cannot be claimed again.
+   */
   boolean existsByShortCode(String shortCode);
+
+  /** Returns the enabled mappings whose {@code url_hmac} equals {@code urlHmac}. */
+  List<UrlMapping> findByUrlHmac(byte[] urlHmac);
+
+  /**
+   * Returns the subset of {@code shortCodes} that are already taken, archived codes included, using
+   * a single query.
+   */
+  List<String> findExistingShortCodes(Collection<String> shortCodes);
 }
@@ -1,13 +1,20 @@
 package com.example.urlshortener.repository;
 
+import com.example.urlshortener.model.LinkView;
 import com.example.urlshortener.model.UrlMapping;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Combined repository interface for URL mappings. Extends both read and write repository interfaces
- * to support future read/write splitting while currently using a single database.
+ * so services can depend on either side; when a read replica is configured, read-only calls are
+ * routed to it by {@link com.example.urlshortener.config.ReadWriteDataSourceConfig}.
  */
 @Repository
 public interface UrlMappingRepository
@@ -18,13 +25,47 @@ public interface UrlMappingRepository
     return findById(shortCode);
   }
 
+  // Declared queries get no transaction from SimpleJpaRepository; read-only routes to the replica
+  @Override
+  @Transactional(readOnly = true)
+  @Query(
+      "select new com.example.urlshortener.model.LinkView(m.shortCode, m.encryptedLongUrl,"
+          + " m.encryptedTarget, m.createdAt, m.expiry, m.disabled)"
+          + " from UrlMapping m where m.shortCode = :shortCode")
+  Optional<LinkView> findViewByShortCode(@Param("shortCode") String shortCode);
+
   @Override
   default boolean existsByShortCode(String shortCode) {
-    return existsById(shortCode);
+    return existsById(shortCode) || existsInArchive(shortCode);
   }
 
+  /** Returns whether the reaper has moved {@code shortCode} to {@code links_archive}. */
+  @Transactional(readOnly = true)
+  @Query(
+      value = "select count(*) > 0 from links_archive where code = :shortCode",
+      nativeQuery = true)
+  boolean existsInArchive(@Param("shortCode") String shortCode);
+
+  @Override
+  @Transactional(readOnly = true)
+  @Query("select m from UrlMapping m where m.urlHmac = :urlHmac and m.disabled = false")
+  List<UrlMapping> findByUrlHmac(@Param("urlHmac") byte[] urlHmac);
+
+  @Override
+  @Query(
+      value =
+          "select code from links_core where code in (:shortCodes)"
+              + " union select code from links_archive where code in (:shortCodes)",
+      nativeQuery = true)
+  List<String> findExistingShortCodes(@Param("shortCodes") Collection<String> shortCodes);
+
   @Override
   default UrlMapping persist(UrlMapping urlMapping) {
     return save(urlMapping);
   }
+
+  @Override
+  default List<UrlMapping> persistAll(List<UrlMapping> urlMappings) {
+    return saveAll(urlMappings);
+  }
 }
@@ -1,11 +1,18 @@
 package com.example.urlshortener.repository;
 
 import com.example.urlshortener.model.UrlMapping;
+import java.util.List;
 
 /**
  * Write operations for URL mappings. This interface defines the contract for write operations,
- * enabling future separation of read and write data sources.
+ * which always go to the primary data source.
  */
 public interface UrlMappingWriteRepository {
   UrlMapping persist(UrlMapping urlMapping);
+
+  /**
+   * Persists several new mappings. Inserts are sent as JDBC batches when the persistence provider
+   * is configured for batching.
+   */
+  List<UrlMapping> persistAll(List<UrlMapping> urlMappings);
 }
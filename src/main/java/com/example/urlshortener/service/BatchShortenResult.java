@@ -0,0 +1,17 @@
+package com.example.urlshortener.service;
+
+/** Outcome of one item of a batch shorten: either the created short code or an error message. */
+public record BatchShortenResult(int index, String shortCode, String error) {
+
+  static BatchShortenResult success(int index, String shortCode) {
+    return new BatchShortenResult(index, shortCode, null);
+  }
+
+  static BatchShortenResult failure(int index, String error) {
+    return new BatchShortenResult(index, null, error);
+  }
+
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
@@ -0,0 +1,217 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.dto.ShortenRequest;
+import com.example.urlshortener.model.EncryptedUrl;
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.repository.UrlMappingReadRepository;
+import com.example.urlshortener.repository.UrlMappingWriteRepository;
+import jakarta.persistence.EntityManager;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates many short links in one call. URLs are validated and encrypted in parallel, custom
+ * aliases are checked against the rest of the batch and against the database with one query per
+ * chunk, and mappings are inserted chunk by chunk through Hibernate JDBC batching. Failures are
+ * reported per item rather than failing the whole batch.
+ */
+@Service
+public class BatchShortenService {
+  private static final Logger log = LoggerFactory.getLogger(BatchShortenService.class);
+  private static final String ALIAS_EXISTS = "Custom alias already exists";
+
+  private final UrlShortenerService urlShortenerService;
+  private final EncryptionService encryptionService;
+  private final ShortCodeAllocator shortCodeAllocator;
+  private final UrlMappingReadRepository urlMappingReadRepository;
+  private final UrlMappingWriteRepository urlMappingWriteRepository;
+  private final ShortCodeFilter shortCodeFilter;
+  private final UrlFingerprinter urlFingerprinter;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transactionTemplate;
+  private final int maxBatchSize;
+  private final int chunkSize;
+
+  public BatchShortenService(
+      UrlShortenerService urlShortenerService,
+      EncryptionService encryptionService,
+      ShortCodeAllocator shortCodeAllocator,
+      UrlMappingReadRepository urlMappingReadRepository,
+      UrlMappingWriteRepository urlMappingWriteRepository,
+      ShortCodeFilter shortCodeFilter,
+      UrlFingerprinter urlFingerprinter,
+      EntityManager entityManager,
+      PlatformTransactionManager transactionManager,
+      @Value("${shorten.batch.max-size:10000}") int maxBatchSize,
+      @Value("${shorten.batch.chunk-size:500}") int chunkSize) {
+    this.urlShortenerService = urlShortenerService;
+    this.encryptionService = encryptionService;
+    this.shortCodeAllocator = shortCodeAllocator;
+    this.urlMappingReadRepository = urlMappingReadRepository;
+    this.urlMappingWriteRepository = urlMappingWriteRepository;
+    this.shortCodeFilter = shortCodeFilter;
+    this.urlFingerprinter = urlFingerprinter;
+    this.entityManager = entityManager;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.maxBatchSize = maxBatchSize;
+    this.chunkSize = chunkSize;
+  }
+
+  public int getMaxBatchSize() {
+    return maxBatchSize;
+  }
+
+  /** Shortens every request and returns one result per request, in request order. */
+  public List<BatchShortenResult> shortenAll(List<ShortenRequest> requests) {
+    if (requests == null || requests.isEmpty()) {
+      throw new IllegalArgumentException("Batch must contain at least one request");
+    }
+    if (requests.size() > maxBatchSize) {
+      throw new IllegalArgumentException("Batch size exceeds the maximum of " + maxBatchSize);
+    }
+
+    long start = System.nanoTime();
+    BatchShortenResult[] results = new BatchShortenResult[requests.size()];
+    List<PendingMapping> pending = prepare(requests, results);
+    for (int from = 0; from < pending.size(); from += chunkSize) {
+      persistChunk(pending.subList(from, Math.min(from + chunkSize, pending.size())), results);
+    }
+
+    log.debug(
+        "Shortened batch of {} URLs in {} ms",
+        requests.size(),
+        (System.nanoTime() - start) / 1_000_000);
+    return Arrays.asList(results);
+  }
+
+  private List<PendingMapping> prepare(
+      List<ShortenRequest> requests, BatchShortenResult[] results) {
+    // Validation and encryption are CPU-bound and independent per item
+    List<PendingMapping> prepared =
+        IntStream.range(0, requests.size())
+            .parallel()
+            .mapToObj(i -> prepareItem(i, requests.get(i), results))
+            .filter(Objects::nonNull)
+            .toList();
+
+    Set<String> aliases = new HashSet<>();
+    List<PendingMapping> accepted = new ArrayList<>(prepared.size());
+    for (PendingMapping item : prepared) {
+      if (item.alias() != null && !aliases.add(item.alias())) {
+        results[item.index()] =
+            BatchShortenResult.failure(item.index(), "Custom alias is repeated in the batch");
+      } else {
+        accepted.add(item);
+      }
+    }
+    return accepted;
+  }
+
+  private PendingMapping prepareItem(
+      int index, ShortenRequest request, BatchShortenResult[] results) {
+    if (request == null) {
+      results[index] = BatchShortenResult.failure(index, "Request cannot be empty");
+      return null;
+    }
+    try {
+      UrlShortenerService.validateUrl(request.getLongUrl());
+      String alias = request.getCustomAlias();
+      return new PendingMapping(
+          index,
+          alias == null || alias.isEmpty() ? null : alias,
+          encryptionService.encryptForStorage(request.getLongUrl()),
+          urlFingerprinter.fingerprint(request.getLongUrl()),
+          request.getExpiry());
+    } catch (IllegalArgumentException e) {
+      results[index] = BatchShortenResult.failure(index, e.getMessage());
+      return null;
+    }
+  }
+
+  private void persistChunk(List<PendingMapping> chunk, BatchShortenResult[] results) {
+    List<String> codes = new ArrayList<>(chunk.size());
+    for (PendingMapping item : chunk) {
+      codes.add(item.alias() != null ? item.alias() : shortCodeAllocator.nextCode());
+    }
+    // Only codes the filter cannot rule out need to be checked against the database. Generated
+    // codes are checked too, since an archived alias would not collide with the insert.
+    List<String> candidates = codes.stream().filter(shortCodeFilter::mightContain).toList();
+    Set<String> taken =
+        candidates.isEmpty()
+            ? Set.of()
+            : new HashSet<>(urlMappingReadRepository.findExistingShortCodes(candidates));
+
+    List<PendingMapping> inserts = new ArrayList<>(chunk.size());
+    List<UrlMapping> mappings = new ArrayList<>(chunk.size());
+    List<PendingMapping> reallocations = new ArrayList<>();
+    for (int i = 0; i < chunk.size(); i++) {
+      PendingMapping item = chunk.get(i);
+      String shortCode = codes.get(i);
+      if (taken.contains(shortCode)) {
+        if (item.alias() != null) {
+          results[item.index()] = BatchShortenResult.failure(item.index(), ALIAS_EXISTS);
+        } else {
+          reallocations.add(item);
+        }
+        continue;
+      }
+      inserts.add(item);
+      mappings.add(new UrlMapping(shortCode, item.encryptedUrl(), item.urlHmac(), item.expiry()));
+    }
+
+    try {
+      transactionTemplate.executeWithoutResult(
+          status -> {
+            urlMappingWriteRepository.persistAll(mappings);
+            entityManager.flush();
+            // Keep the persistence context from growing across chunks
+            entityManager.clear();
+          });
+      for (int i = 0; i < inserts.size(); i++) {
+        int index = inserts.get(i).index();
+        results[index] = BatchShortenResult.success(index, mappings.get(i).getShortCode());
+      }
+    } catch (DataIntegrityViolationException e) {
+      // A concurrent request claimed one of the codes; insert one by one so only it fails
+      log.debug("Batch insert conflict, retrying {} items individually", inserts.size());
+      for (PendingMapping item : inserts) {
+        results[item.index()] = persistOne(item);
+      }
+    }
+    for (PendingMapping item : reallocations) {
+      results[item.index()] = persistOne(item);
+    }
+  }
+
+  private BatchShortenResult persistOne(PendingMapping item) {
+    try {
+      UrlMapping mapping =
+          item.alias() != null
+              ? urlMappingWriteRepository.persist(
+                  new UrlMapping(item.alias(), item.encryptedUrl(), item.urlHmac(), item.expiry()))
+              : urlShortenerService.persistWithGeneratedCode(
+                  item.encryptedUrl(), item.urlHmac(), item.expiry());
+      return BatchShortenResult.success(item.index(), mapping.getShortCode());
+    } catch (DataIntegrityViolationException e) {
+      return BatchShortenResult.failure(item.index(), ALIAS_EXISTS);
+    } catch (IllegalStateException e) {
+      return BatchShortenResult.failure(item.index(), e.getMessage());
+    }
+  }
+
+  private record PendingMapping(
+      int index, String alias, EncryptedUrl encryptedUrl, byte[] urlHmac, Instant expiry) {}
+}
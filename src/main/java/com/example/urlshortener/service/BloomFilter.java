@@ -0,0 +1,89 @@
+package com.example.urlshortener.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, thread-safe Bloom filter over strings. Bits live in an {@link AtomicLongArray} and
+ * are set with a CAS loop, so concurrent {@link #put} and {@link #mightContain} calls need no
+ * locking. Probe positions come from one 64-bit hash split into two halves and combined by double
+ * hashing. Strings {@link ShortCodeCodec} can pack are hashed as their packed {@code long}, which
+ * takes one mixing step instead of one multiplication per character.
+ */
+class BloomFilter {
+  private final AtomicLongArray bits;
+  private final long bitCount;
+  private final int hashCount;
+
+  BloomFilter(long expectedInsertions, double falsePositiveRate) {
+    if (expectedInsertions < 1) {
+      throw new IllegalArgumentException("Expected insertions must be positive");
+    }
+    if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1");
+    }
+    double ln2 = Math.log(2);
+    long optimalBits =
+        (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+    long words = Math.max(1, (optimalBits + 63) / 64);
+    if (words > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Bloom filter for " + expectedInsertions + " is too big");
+    }
+    this.bits = new AtomicLongArray((int) words);
+    this.bitCount = words * 64;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+  }
+
+  void put(String value) {
+    long hash = hash(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long index = Long.remainderUnsigned(h1 + (long) i * h2, bitCount);
+      int word = (int) (index >>> 6);
+      long mask = 1L << index;
+      long current = bits.get(word);
+      while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+        current = bits.get(word);
+      }
+    }
+  }
+
+  boolean mightContain(String value) {
+    long hash = hash(value);
+    int h1 = (int) hash;
+    int h2 = (int) (hash >>> 32);
+    for (int i = 1; i <= hashCount; i++) {
+      long index = Long.remainderUnsigned(h1 + (long) i * h2, bitCount);
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  long sizeInBytes() {
+    return bitCount / 8;
+  }
+
+  int hashCount() {
+    return hashCount;
+  }
+
+  // FNV-1a over the UTF-16 code units followed by the MurmurHash3 64-bit finalizer
+  private static long hash(String value) {
+    long hash = ShortCodeCodec.pack(value);
+    if (hash == ShortCodeCodec.NOT_PACKED) {
+      hash = 0xcbf29ce484222325L;
+      for (int i = 0; i < value.length(); i++) {
+        hash ^= value.charAt(i);
+        hash *= 0x100000001b3L;
+      }
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
@@ -0,0 +1,236 @@
+package com.example.urlshortener.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link InvalidationBus} backed by the {@code link_invalidations} table, for deployments whose
+ * instances share a database but no message broker. Published codes are coalesced in memory and
+ * appended with one batched INSERT every {@code invalidation.flush-interval}; every instance tails
+ * the table by sequence number every {@code invalidation.poll-interval} and hands the codes written
+ * by other instances to its subscribers. Rows older than {@code invalidation.retention} are purged.
+ *
+ * <p>Sequence numbers are allocated at insert time, so a row can commit after a higher one has
+ * already been read. Skipped numbers are therefore re-queried for {@code invalidation.gap-timeout}
+ * before they are treated as rolled back.
+ *
+ * <p>The time from a change to its invalidation on another instance is recorded as {@code
+ * urlshortener.invalidation.lag}; it includes the flush and poll intervals and assumes the
+ * instances' clocks agree.
+ */
+@Component
+@ConditionalOnProperty(name = "invalidation.bus", havingValue = "changelog")
+public class ChangeLogInvalidationBus implements InvalidationBus {
+  private static final Logger log = LoggerFactory.getLogger(ChangeLogInvalidationBus.class);
+
+  private final JdbcTemplate jdbcTemplate;
+  private final String origin = UUID.randomUUID().toString();
+  private final int batchSize;
+  private final Duration retention;
+  private final long gapTimeoutMillis;
+  private final Counter publishedCounter;
+  private final Counter coalescedCounter;
+  private final Counter receivedCounter;
+  private final Timer lagTimer;
+
+  // Codes waiting to be written, with the time of their first change since the last flush
+  private final Map<String, Long> pending = new ConcurrentHashMap<>();
+  private final List<Consumer<Set<String>>> listeners = new CopyOnWriteArrayList<>();
+
+  // Guards the read position; the scheduler, shutdown and explicit polls may overlap
+  private final ReentrantLock pollLock = new ReentrantLock();
+  private long lastSeq = -1;
+  private final Map<Long, Long> gaps = new HashMap<>();
+
+  public ChangeLogInvalidationBus(
+      JdbcTemplate jdbcTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${invalidation.batch-size:1000}") int batchSize,
+      @Value("${invalidation.retention:PT1H}") Duration retention,
+      @Value("${invalidation.gap-timeout:PT10S}") Duration gapTimeout) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Invalidation batch size must be positive");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.batchSize = batchSize;
+    this.retention = retention;
+    this.gapTimeoutMillis = gapTimeout.toMillis();
+    this.publishedCounter =
+        Counter.builder("urlshortener.invalidation.published")
+            .description("Codes written to link_invalidations")
+            .register(meterRegistry);
+    this.coalescedCounter =
+        Counter.builder("urlshortener.invalidation.coalesced")
+            .description("Changes merged into an invalidation that was already queued")
+            .register(meterRegistry);
+    this.receivedCounter =
+        Counter.builder("urlshortener.invalidation.received")
+            .description("Invalidations from other instances applied to local caches")
+            .register(meterRegistry);
+    this.lagTimer =
+        Timer.builder("urlshortener.invalidation.lag")
+            .description("Time from a change on another instance to its local invalidation")
+            .register(meterRegistry);
+  }
+
+  @Override
+  public void publish(String code) {
+    if (pending.putIfAbsent(code, System.currentTimeMillis()) != null) {
+      coalescedCounter.increment();
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<Set<String>> listener) {
+    listeners.add(listener);
+  }
+
+  /** Writes queued codes to the change log and returns how many were written. */
+  @Scheduled(fixedDelayString = "${invalidation.flush-interval:PT0.05S}")
+  public int flush() {
+    List<Object[]> rows = new ArrayList<>();
+    for (String code : pending.keySet()) {
+      Long changedAt = pending.remove(code);
+      if (changedAt != null) {
+        rows.add(new Object[] {code, origin, new Timestamp(changedAt)});
+      }
+    }
+    if (rows.isEmpty()) {
+      return 0;
+    }
+    try {
+      jdbcTemplate.batchUpdate(
+          "INSERT INTO link_invalidations (code, origin, changed_at) VALUES (?, ?, ?)", rows);
+    } catch (DataAccessException e) {
+      // Requeue so the next flush retries; newer changes to the same codes keep their place
+      rows.forEach(row -> pending.putIfAbsent((String) row[0], ((Timestamp) row[2]).getTime()));
+      log.warn("Cannot write {} invalidations, will retry: {}", rows.size(), e.getMessage());
+      return 0;
+    }
+    publishedCounter.increment(rows.size());
+    return rows.size();
+  }
+
+  /**
+   * Reads change log entries written since the last poll, passes the codes changed by other
+   * instances to the subscribers, and returns how many codes were passed on.
+   */
+  @Scheduled(fixedDelayString = "${invalidation.poll-interval:PT0.1S}")
+  public int poll() {
+    pollLock.lock();
+    try {
+      if (lastSeq < 0) {
+        // Caches start empty, so only changes from now on matter
+        Long max =
+            jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(seq), 0) FROM link_invalidations", Long.class);
+        lastSeq = max != null ? max : 0;
+        return 0;
+      }
+
+      List<Entry> entries = new ArrayList<>(readGaps());
+      entries.addAll(
+          jdbcTemplate.query(
+              "SELECT seq, code, origin, changed_at FROM link_invalidations"
+                  + " WHERE seq > ? ORDER BY seq LIMIT ?",
+              Entry.MAPPER,
+              lastSeq,
+              batchSize));
+
+      long now = System.currentTimeMillis();
+      Set<String> codes = new HashSet<>();
+      for (Entry entry : entries) {
+        track(entry.seq(), now);
+        if (!origin.equals(entry.origin())) {
+          codes.add(entry.code());
+          lagTimer.record(Math.max(0, now - entry.changedAt()), TimeUnit.MILLISECONDS);
+        }
+      }
+      gaps.values().removeIf(firstSeen -> now - firstSeen > gapTimeoutMillis);
+
+      if (!codes.isEmpty()) {
+        listeners.forEach(listener -> listener.accept(codes));
+        receivedCounter.increment(codes.size());
+      }
+      return codes.size();
+    } finally {
+      pollLock.unlock();
+    }
+  }
+
+  /** Deletes change log entries that every running instance has long since read. */
+  @Scheduled(
+      fixedDelayString = "${invalidation.purge-interval:PT1M}",
+      initialDelayString = "${invalidation.purge-interval:PT1M}")
+  public int purge() {
+    return jdbcTemplate.update(
+        "DELETE FROM link_invalidations WHERE changed_at < ?",
+        Timestamp.from(Instant.now().minus(retention)));
+  }
+
+  @PreDestroy
+  void flushOnShutdown() {
+    flush();
+  }
+
+  private List<Entry> readGaps() {
+    if (gaps.isEmpty()) {
+      return List.of();
+    }
+    String placeholders = String.join(",", Collections.nCopies(gaps.size(), "?"));
+    return jdbcTemplate.query(
+        "SELECT seq, code, origin, changed_at FROM link_invalidations WHERE seq IN ("
+            + placeholders
+            + ")",
+        Entry.MAPPER,
+        gaps.keySet().toArray());
+  }
+
+  private void track(long seq, long now) {
+    if (seq <= lastSeq) {
+      gaps.remove(seq);
+      return;
+    }
+    // Numbers skipped by more than a batch were burnt by the database, not held by open inserts
+    if (seq - lastSeq - 1 <= batchSize) {
+      for (long missing = lastSeq + 1; missing < seq; missing++) {
+        gaps.put(missing, now);
+      }
+    }
+    lastSeq = seq;
+  }
+
+  private record Entry(long seq, String code, String origin, long changedAt) {
+    static final RowMapper<Entry> MAPPER =
+        (rs, rowNum) ->
+            new Entry(
+                rs.getLong(1), rs.getString(2), rs.getString(3), rs.getTimestamp(4).getTime());
+  }
+}
@@ -0,0 +1,167 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.dto.ClickBucket;
+import com.example.urlshortener.dto.LinkStats;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Counts redirects per short code and minute without touching the database on the redirect path.
+ * Clicks are queued in a bounded {@link ClickEventBuffer}; a scheduled writer drains it, aggregates
+ * the events per code and minute, and adds the counts to {@code link_clicks} with batched {@code
+ * MERGE} statements. Clicks arriving while the buffer is full are dropped and counted in {@code
+ * urlshortener.clicks.dropped}.
+ */
+@Service
+public class ClickAnalyticsService {
+  private static final Logger log = LoggerFactory.getLogger(ClickAnalyticsService.class);
+  private static final long MILLIS_PER_MINUTE = TimeUnit.MINUTES.toMillis(1);
+  private static final String MERGE_CLICKS =
+      "MERGE INTO link_clicks t USING (SELECT CAST(? AS VARCHAR(255)) AS code,"
+          + " CAST(? AS TIMESTAMP) AS bucket_start, CAST(? AS BIGINT) AS clicks) s"
+          + " ON t.code = s.code AND t.bucket_start = s.bucket_start"
+          + " WHEN MATCHED THEN UPDATE SET clicks = t.clicks + s.clicks"
+          + " WHEN NOT MATCHED THEN INSERT (code, bucket_start, clicks)"
+          + " VALUES (s.code, s.bucket_start, s.clicks)";
+
+  private final boolean enabled;
+  private final ClickEventBuffer buffer;
+  private final int flushBatchSize;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate writeTransaction;
+  private final TransactionTemplate readTransaction;
+  private final Counter flushedCounter;
+
+  // Serializes consumers of the buffer: the scheduler, shutdown and explicit flushes
+  private final ReentrantLock flushLock = new ReentrantLock();
+
+  public ClickAnalyticsService(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${analytics.enabled:true}") boolean enabled,
+      @Value("${analytics.buffer-capacity:65536}") int bufferCapacity,
+      @Value("${analytics.flush-batch-size:1000}") int flushBatchSize) {
+    if (flushBatchSize < 1) {
+      throw new IllegalArgumentException("Analytics flush batch size must be positive");
+    }
+    this.enabled = enabled;
+    this.buffer = new ClickEventBuffer(bufferCapacity);
+    this.flushBatchSize = flushBatchSize;
+    this.jdbcTemplate = jdbcTemplate;
+    this.writeTransaction = new TransactionTemplate(transactionManager);
+    this.readTransaction = new TransactionTemplate(transactionManager);
+    this.readTransaction.setReadOnly(true);
+
+    FunctionCounter.builder("urlshortener.clicks.dropped", buffer, ClickEventBuffer::dropped)
+        .description("Clicks discarded because the analytics buffer was full")
+        .register(meterRegistry);
+    Gauge.builder("urlshortener.clicks.pending", buffer, ClickEventBuffer::size)
+        .description("Clicks waiting in the analytics buffer")
+        .register(meterRegistry);
+    this.flushedCounter =
+        Counter.builder("urlshortener.clicks.flushed")
+            .description("Clicks written to link_clicks")
+            .register(meterRegistry);
+  }
+
+  /** Queues a click on {@code code}. Never blocks; the click is dropped if the buffer is full. */
+  public void recordClick(String code) {
+    if (enabled) {
+      buffer.offer(code, System.currentTimeMillis() / MILLIS_PER_MINUTE);
+    }
+  }
+
+  /** Writes queued clicks to the database and returns how many were drained from the buffer. */
+  @Scheduled(fixedDelayString = "${analytics.flush-interval:PT1S}")
+  public int flush() {
+    flushLock.lock();
+    try {
+      // At most one buffer's worth per run so a steady stream of clicks cannot starve the writer
+      Map<ClickKey, Long> counts = new HashMap<>();
+      int drained =
+          buffer.drain(
+              (code, minute) -> counts.merge(new ClickKey(code, minute), 1L, Long::sum),
+              buffer.capacity());
+
+      if (!counts.isEmpty()) {
+        write(counts);
+        flushedCounter.increment(drained);
+        log.debug("Flushed {} clicks as {} per-minute counts", drained, counts.size());
+      }
+      return drained;
+    } finally {
+      flushLock.unlock();
+    }
+  }
+
+  @PreDestroy
+  void flushOnShutdown() {
+    while (flush() > 0) {
+      // Keep going until the buffer is empty
+    }
+  }
+
+  /**
+   * Returns the all-time click total for {@code code} and its per-minute counts from {@code since}
+   * onwards. Clicks still queued in the buffer are not included.
+   */
+  public LinkStats getStats(String code, Instant since) {
+    return readTransaction.execute(
+        status -> {
+          Long total =
+              jdbcTemplate.queryForObject(
+                  "SELECT COALESCE(SUM(clicks), 0) FROM link_clicks WHERE code = ?",
+                  Long.class,
+                  code);
+          List<ClickBucket> buckets =
+              jdbcTemplate.query(
+                  "SELECT bucket_start, clicks FROM link_clicks"
+                      + " WHERE code = ? AND bucket_start >= ? ORDER BY bucket_start",
+                  (rs, rowNum) ->
+                      new ClickBucket(
+                          rs.getTimestamp("bucket_start").toInstant(), rs.getLong("clicks")),
+                  code,
+                  Timestamp.from(since));
+          return new LinkStats(code, total, since, buckets);
+        });
+  }
+
+  private void write(Map<ClickKey, Long> counts) {
+    List<Object[]> rows = new ArrayList<>(counts.size());
+    counts.forEach(
+        (key, clicks) ->
+            rows.add(
+                new Object[] {
+                  key.code(), new Timestamp(key.minute() * MILLIS_PER_MINUTE), clicks
+                }));
+    writeTransaction.executeWithoutResult(
+        status -> {
+          for (int from = 0; from < rows.size(); from += flushBatchSize) {
+            jdbcTemplate.batchUpdate(
+                MERGE_CLICKS, rows.subList(from, Math.min(from + flushBatchSize, rows.size())));
+          }
+        });
+  }
+
+  private record ClickKey(String code, long minute) {}
+}
@@ -0,0 +1,99 @@
+package com.example.urlshortener.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, lock-free multi-producer single-consumer ring buffer of click events. Each slot carries
+ * a sequence number that tells producers whether it is free and the consumer whether it has been
+ * published, so offering an event is a CAS on the tail plus two array stores and never allocates.
+ * When the buffer is full the event is dropped and counted instead of blocking the redirect.
+ */
+class ClickEventBuffer {
+  private final int capacity;
+  private final int mask;
+  private final String[] codes;
+  private final long[] minutes;
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();
+  private final LongAdder dropped = new LongAdder();
+
+  // Only touched by the single consumer
+  private long head;
+
+  ClickEventBuffer(int requestedCapacity) {
+    if (requestedCapacity < 2) {
+      throw new IllegalArgumentException("Buffer capacity must be at least 2");
+    }
+    this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+    this.mask = capacity - 1;
+    this.codes = new String[capacity];
+    this.minutes = new long[capacity];
+    this.sequences = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  /** Records a click, returning {@code false} if the buffer is full and the click was dropped. */
+  boolean offer(String code, long minute) {
+    long position = tail.get();
+    while (true) {
+      int index = (int) (position & mask);
+      long sequence = sequences.get(index);
+      if (sequence == position) {
+        if (tail.compareAndSet(position, position + 1)) {
+          codes[index] = code;
+          minutes[index] = minute;
+          // Publishes the plain stores above to the consumer
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (sequence < position) {
+        // The slot still holds an event from the previous lap
+        dropped.increment();
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /** Hands up to {@code max} published events to {@code sink}. Must be called by one thread. */
+  int drain(ClickSink sink, int max) {
+    int drained = 0;
+    while (drained < max) {
+      int index = (int) (head & mask);
+      if (sequences.get(index) != head + 1) {
+        break;
+      }
+      String code = codes[index];
+      long minute = minutes[index];
+      codes[index] = null;
+      sequences.set(index, head + capacity);
+      head++;
+      sink.accept(code, minute);
+      drained++;
+    }
+    return drained;
+  }
+
+  int capacity() {
+    return capacity;
+  }
+
+  long size() {
+    return Math.max(0, tail.get() - head);
+  }
+
+  long dropped() {
+    return dropped.sum();
+  }
+
+  @FunctionalInterface
+  interface ClickSink {
+    void accept(String code, long minute);
+  }
+}
@@ -1,88 +1,388 @@
 package com.example.urlshortener.service;
 
-import java.nio.ByteBuffer;
+import com.example.urlshortener.model.EncryptedUrl;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 import javax.crypto.Cipher;
 import javax.crypto.SecretKey;
 import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+/**
+ * AES-256-GCM encryption of target URLs with a keyring for online key rotation. Ciphertext written
+ * with a keyring key is stored as {@code <keyId>$<base64(iv + ciphertext)>}; unprefixed ciphertext
+ * was written with the legacy {@code encryption.key}, which is also used for new ciphertext while
+ * no {@code encryption.active-key-id} is set. Any key in the ring can decrypt, only the active one
+ * encrypts, and {@link ReencryptionService} moves existing rows to the active key.
+ *
+ * <p>With {@code encryption.storage=binary} new ciphertext is written as a raw envelope for the
+ * {@code target_bin} column instead: {@code flags, keyIdLength, keyId, iv, ciphertext + tag}, with
+ * the header authenticated as additional data. It skips the Base64 step and is a quarter smaller,
+ * and URLs of at least {@code encryption.compression-threshold} bytes are deflated before
+ * encryption when that makes them shorter. Both forms can always be decrypted.
+ */
 @Service
 public class EncryptionService {
   private static final String ALGORITHM = "AES/GCM/NoPadding";
   private static final int GCM_IV_LENGTH = 12;
   private static final int GCM_TAG_LENGTH = 128;
+  private static final int GCM_TAG_BYTES = GCM_TAG_LENGTH / 8;
+  private static final char KEY_ID_SEPARATOR = '$';
+  private static final Pattern KEY_ID = Pattern.compile("[A-Za-z0-9._-]{1,32}");
+  private static final int FLAG_DEFLATED = 1;
+  // Authenticated ciphertext can only have been written by us, but still bound what it inflates to
+  private static final int MAX_INFLATED_LENGTH = 64 * 1024;
 
-  private final SecretKey secretKey;
+  private final SecretKey legacyKey;
+  private final Map<String, SecretKey> keyring;
+  private final SecretKey activeKey;
+  private final String activePrefix;
+  private final byte[] activeKeyId;
+  private final boolean binaryStorage;
+  private final int compressionThreshold;
   private final SecureRandom secureRandom;
+  private final Timer encryptTimer;
+  private final Timer decryptTimer;
 
-  public EncryptionService(@Value("${encryption.key:}") String encryptionKey) {
+  // Cipher.getInstance performs a provider lookup on every call; instances are re-initialised with
+  // a fresh IV before each use, so they can be safely shared between requests.
+  private final InstancePool<Cipher> ciphers =
+      new InstancePool<>(
+          EncryptionService::newCipher, Runtime.getRuntime().availableProcessors() * 2);
+  private final InstancePool<Deflater> deflaters =
+      new InstancePool<>(Deflater::new, Runtime.getRuntime().availableProcessors());
+  private final InstancePool<Inflater> inflaters =
+      new InstancePool<>(Inflater::new, Runtime.getRuntime().availableProcessors());
+
+  public EncryptionService(String encryptionKey, MeterRegistry meterRegistry) {
+    this(encryptionKey, "", "", "text", 0, meterRegistry);
+  }
+
+  @Autowired
+  public EncryptionService(
+      @Value("${encryption.key:}") String encryptionKey,
+      @Value("${encryption.keys:}") String keys,
+      @Value("${encryption.active-key-id:}") String activeKeyId,
+      @Value("${encryption.storage:text}") String storage,
+      @Value("${encryption.compression-threshold:256}") int compressionThreshold,
+      MeterRegistry meterRegistry) {
     this.secureRandom = new SecureRandom();
+    this.encryptTimer = UrlShortenerMetrics.stageTimer(meterRegistry, "encrypt");
+    this.decryptTimer = UrlShortenerMetrics.stageTimer(meterRegistry, "decrypt");
 
     if (encryptionKey == null || encryptionKey.isEmpty()) {
       // Generate a random key for development/testing
       byte[] keyBytes = new byte[32]; // 256-bit key
       secureRandom.nextBytes(keyBytes);
-      this.secretKey = new SecretKeySpec(keyBytes, "AES");
+      this.legacyKey = new SecretKeySpec(keyBytes, "AES");
+    } else {
+      this.legacyKey = toKey(encryptionKey);
+    }
+
+    this.keyring = parseKeyring(keys);
+    if (activeKeyId == null || activeKeyId.isEmpty()) {
+      this.activeKey = legacyKey;
+      this.activePrefix = "";
     } else {
-      // Use provided key (must be base64-encoded 32 bytes)
-      byte[] keyBytes = Base64.getDecoder().decode(encryptionKey);
-      if (keyBytes.length != 32) {
-        throw new IllegalArgumentException("Encryption key must be 32 bytes (256 bits)");
+      this.activeKey = keyring.get(activeKeyId);
+      if (activeKey == null) {
+        throw new IllegalArgumentException(
+            "Active encryption key '" + activeKeyId + "' is not in encryption.keys");
       }
-      this.secretKey = new SecretKeySpec(keyBytes, "AES");
+      this.activePrefix = activeKeyId + KEY_ID_SEPARATOR;
+    }
+    this.activeKeyId =
+        activePrefix.isEmpty() ? new byte[0] : activeKeyId.getBytes(StandardCharsets.US_ASCII);
+
+    if (!"text".equals(storage) && !"binary".equals(storage)) {
+      throw new IllegalArgumentException("encryption.storage must be 'text' or 'binary'");
     }
+    this.binaryStorage = "binary".equals(storage);
+    this.compressionThreshold = compressionThreshold;
   }
 
-  public String encrypt(String plaintext) {
-    try {
-      byte[] iv = new byte[GCM_IV_LENGTH];
-      secureRandom.nextBytes(iv);
+  /** Encrypts {@code plaintext} in the form selected by {@code encryption.storage}. */
+  public EncryptedUrl encryptForStorage(String plaintext) {
+    return binaryStorage
+        ? EncryptedUrl.ofBinary(encryptToBytes(plaintext))
+        : EncryptedUrl.ofText(encrypt(plaintext));
+  }
+
+  public String decrypt(EncryptedUrl encryptedUrl) {
+    return encryptedUrl.isBinary()
+        ? decryptBytes(encryptedUrl.binary())
+        : decrypt(encryptedUrl.text());
+  }
 
-      Cipher cipher = Cipher.getInstance(ALGORITHM);
-      GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-      cipher.init(Cipher.ENCRYPT_MODE, secretKey, parameterSpec);
+  /**
+   * Returns whether {@code encryptedUrl} is already in the configured storage form and written with
+   * the active key, so re-encryption would not change it.
+   */
+  public boolean isInStorageForm(EncryptedUrl encryptedUrl) {
+    if (encryptedUrl.isBinary() != binaryStorage) {
+      return false;
+    }
+    return encryptedUrl.isBinary()
+        ? isEncryptedWithActiveKey(encryptedUrl.binary())
+        : isEncryptedWithActiveKey(encryptedUrl.text());
+  }
 
-      byte[] ciphertext = cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8));
+  /** Decrypts {@code encryptedUrl} and encrypts it again with the active key and storage form. */
+  public EncryptedUrl reencrypt(EncryptedUrl encryptedUrl) {
+    return encryptForStorage(decrypt(encryptedUrl));
+  }
+
+  /** Encrypts {@code plaintext} into the binary envelope stored in {@code target_bin}. */
+  public byte[] encryptToBytes(String plaintext) {
+    long start = System.nanoTime();
+    Cipher cipher = ciphers.borrow();
+    try {
+      byte[] input = plaintext.getBytes(StandardCharsets.UTF_8);
+      int flags = 0;
+      if (compressionThreshold > 0 && input.length >= compressionThreshold) {
+        byte[] deflated = deflate(input);
+        if (deflated != null) {
+          input = deflated;
+          flags |= FLAG_DEFLATED;
+        }
+      }
 
-      // Combine IV and ciphertext
-      ByteBuffer byteBuffer = ByteBuffer.allocate(iv.length + ciphertext.length);
-      byteBuffer.put(iv);
-      byteBuffer.put(ciphertext);
+      int header = 2 + activeKeyId.length;
+      byte[] iv = new byte[GCM_IV_LENGTH];
+      secureRandom.nextBytes(iv);
+      cipher.init(Cipher.ENCRYPT_MODE, activeKey, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
 
-      return Base64.getEncoder().encodeToString(byteBuffer.array());
+      byte[] output = new byte[header + GCM_IV_LENGTH + cipher.getOutputSize(input.length)];
+      output[0] = (byte) flags;
+      output[1] = (byte) activeKeyId.length;
+      System.arraycopy(activeKeyId, 0, output, 2, activeKeyId.length);
+      System.arraycopy(iv, 0, output, header, GCM_IV_LENGTH);
+      cipher.updateAAD(output, 0, header);
+      cipher.doFinal(input, 0, input.length, output, header + GCM_IV_LENGTH);
+      return output;
     } catch (Exception e) {
       throw new RuntimeException(
           "Encryption failed: " + e.getClass().getSimpleName() + " - " + e.getMessage(), e);
+    } finally {
+      ciphers.release(cipher);
+      encryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
   }
 
-  public String decrypt(String encryptedText) {
+  public String decryptBytes(byte[] envelope) {
+    long start = System.nanoTime();
+    Cipher cipher = ciphers.borrow();
     try {
-      byte[] decodedBytes = Base64.getDecoder().decode(encryptedText);
+      if (envelope.length < 2 || (envelope[0] & ~FLAG_DEFLATED) != 0) {
+        throw new IllegalArgumentException("Unsupported ciphertext envelope");
+      }
+      int keyIdLength = envelope[1] & 0xFF;
+      int header = 2 + keyIdLength;
+      if (envelope.length < header + GCM_IV_LENGTH + GCM_TAG_BYTES) {
+        throw new IllegalArgumentException("Ciphertext is too short");
+      }
+      SecretKey key =
+          keyIdLength == 0
+              ? legacyKey
+              : keyring.get(new String(envelope, 2, keyIdLength, StandardCharsets.US_ASCII));
+      if (key == null) {
+        throw new IllegalArgumentException("Unknown encryption key id");
+      }
 
-      ByteBuffer byteBuffer = ByteBuffer.wrap(decodedBytes);
+      // The envelope may belong to an entity, so decrypt into a new buffer rather than in place
+      cipher.init(
+          Cipher.DECRYPT_MODE,
+          key,
+          new GCMParameterSpec(GCM_TAG_LENGTH, envelope, header, GCM_IV_LENGTH));
+      cipher.updateAAD(envelope, 0, header);
+      int offset = header + GCM_IV_LENGTH;
+      byte[] plaintext = cipher.doFinal(envelope, offset, envelope.length - offset);
+      if ((envelope[0] & FLAG_DEFLATED) != 0) {
+        plaintext = inflate(plaintext);
+      }
+      return new String(plaintext, StandardCharsets.UTF_8);
+    } catch (Exception e) {
+      throw new RuntimeException(
+          "Decryption failed: " + e.getClass().getSimpleName() + " - " + e.getMessage(), e);
+    } finally {
+      ciphers.release(cipher);
+      decryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
 
+  public String encrypt(String plaintext) {
+    long start = System.nanoTime();
+    Cipher cipher = ciphers.borrow();
+    try {
+      byte[] input = plaintext.getBytes(StandardCharsets.UTF_8);
       byte[] iv = new byte[GCM_IV_LENGTH];
-      byteBuffer.get(iv);
+      secureRandom.nextBytes(iv);
+
+      cipher.init(Cipher.ENCRYPT_MODE, activeKey, new GCMParameterSpec(GCM_TAG_LENGTH, iv));
 
-      byte[] ciphertext = new byte[byteBuffer.remaining()];
-      byteBuffer.get(ciphertext);
+      // Write IV and ciphertext into a single buffer
+      byte[] output = new byte[GCM_IV_LENGTH + cipher.getOutputSize(input.length)];
+      System.arraycopy(iv, 0, output, 0, GCM_IV_LENGTH);
+      cipher.doFinal(input, 0, input.length, output, GCM_IV_LENGTH);
+
+      return activePrefix + Base64.getEncoder().encodeToString(output);
+    } catch (Exception e) {
+      throw new RuntimeException(
+          "Encryption failed: " + e.getClass().getSimpleName() + " - " + e.getMessage(), e);
+    } finally {
+      ciphers.release(cipher);
+      encryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
 
-      Cipher cipher = Cipher.getInstance(ALGORITHM);
-      GCMParameterSpec parameterSpec = new GCMParameterSpec(GCM_TAG_LENGTH, iv);
-      cipher.init(Cipher.DECRYPT_MODE, secretKey, parameterSpec);
+  public String decrypt(String encryptedText) {
+    long start = System.nanoTime();
+    Cipher cipher = ciphers.borrow();
+    try {
+      int separator = encryptedText.indexOf(KEY_ID_SEPARATOR);
+      SecretKey key =
+          separator < 0 ? legacyKey : keyring.get(encryptedText.substring(0, separator));
+      if (key == null) {
+        throw new IllegalArgumentException("Unknown encryption key id");
+      }
+      byte[] buffer = Base64.getDecoder().decode(encryptedText.substring(separator + 1));
+      if (buffer.length < GCM_IV_LENGTH + GCM_TAG_BYTES) {
+        throw new IllegalArgumentException("Ciphertext is too short");
+      }
 
-      byte[] plaintext = cipher.doFinal(ciphertext);
+      // Read the IV and ciphertext straight from the decoded buffer and decrypt in place
+      cipher.init(
+          Cipher.DECRYPT_MODE,
+          key,
+          new GCMParameterSpec(GCM_TAG_LENGTH, buffer, 0, GCM_IV_LENGTH));
+      int length = cipher.doFinal(buffer, GCM_IV_LENGTH, buffer.length - GCM_IV_LENGTH, buffer, 0);
 
-      return new String(plaintext, StandardCharsets.UTF_8);
+      return new String(buffer, 0, length, StandardCharsets.UTF_8);
     } catch (Exception e) {
       throw new RuntimeException(
           "Decryption failed: " + e.getClass().getSimpleName() + " - " + e.getMessage(), e);
+    } finally {
+      ciphers.release(cipher);
+      decryptTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** Returns whether {@code encryptedText} was written with the active key. */
+  public boolean isEncryptedWithActiveKey(String encryptedText) {
+    if (activePrefix.isEmpty()) {
+      return encryptedText.indexOf(KEY_ID_SEPARATOR) < 0;
+    }
+    return encryptedText.startsWith(activePrefix);
+  }
+
+  /** Returns whether the binary {@code envelope} was written with the active key. */
+  public boolean isEncryptedWithActiveKey(byte[] envelope) {
+    if (envelope.length < 2 + activeKeyId.length || envelope[1] != activeKeyId.length) {
+      return false;
+    }
+    for (int i = 0; i < activeKeyId.length; i++) {
+      if (envelope[2 + i] != activeKeyId[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Decrypts {@code encryptedText} with whichever key wrote it and encrypts it with the active key.
+   */
+  public String reencrypt(String encryptedText) {
+    return encrypt(decrypt(encryptedText));
+  }
+
+  /** Returns the deflated form of {@code input}, or {@code null} if it would not be shorter. */
+  private byte[] deflate(byte[] input) {
+    Deflater deflater = deflaters.borrow();
+    try {
+      deflater.reset();
+      deflater.setInput(input);
+      deflater.finish();
+      byte[] buffer = new byte[input.length - 1];
+      int length = deflater.deflate(buffer);
+      return deflater.finished() ? Arrays.copyOf(buffer, length) : null;
+    } finally {
+      deflaters.release(deflater);
+    }
+  }
+
+  private byte[] inflate(byte[] input) throws DataFormatException {
+    Inflater inflater = inflaters.borrow();
+    try {
+      inflater.reset();
+      inflater.setInput(input);
+      byte[] buffer = new byte[input.length * 4];
+      int length = 0;
+      while (!inflater.finished()) {
+        if (length == buffer.length) {
+          if (buffer.length >= MAX_INFLATED_LENGTH) {
+            throw new DataFormatException("Inflated URL is too long");
+          }
+          buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int inflated = inflater.inflate(buffer, length, buffer.length - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new DataFormatException("Truncated compressed URL");
+        }
+        length += inflated;
+      }
+      return Arrays.copyOf(buffer, length);
+    } finally {
+      inflaters.release(inflater);
+    }
+  }
+
+  private static Map<String, SecretKey> parseKeyring(String keys) {
+    Map<String, SecretKey> keyring = new HashMap<>();
+    if (keys == null || keys.isBlank()) {
+      return keyring;
+    }
+    for (String entry : keys.split(",")) {
+      int separator = entry.indexOf(':');
+      String id = separator > 0 ? entry.substring(0, separator).trim() : "";
+      if (!KEY_ID.matcher(id).matches()) {
+        throw new IllegalArgumentException(
+            "Encryption keys must be listed as id:base64key with ids of up to 32 letters, digits,"
+                + " '.', '_' or '-'");
+      }
+      keyring.put(id, toKey(entry.substring(separator + 1).trim()));
+    }
+    return keyring;
+  }
+
+  private static SecretKey toKey(String base64Key) {
+    // Keys must be base64-encoded 32 bytes
+    byte[] keyBytes = Base64.getDecoder().decode(base64Key);
+    if (keyBytes.length != 32) {
+      throw new IllegalArgumentException("Encryption key must be 32 bytes (256 bits)");
+    }
+    return new SecretKeySpec(keyBytes, "AES");
+  }
+
+  private static Cipher newCipher() {
+    try {
+      return Cipher.getInstance(ALGORITHM);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(ALGORITHM + " is not available", e);
     }
   }
 }
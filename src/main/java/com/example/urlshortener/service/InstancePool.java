@@ -0,0 +1,40 @@
+package com.example.urlshortener.service;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Small lock-free pool for expensive, non-thread-safe JCA objects such as {@code Cipher} and {@code
+ * Mac}. Unlike a {@code ThreadLocal} it does not grow with the number of threads, so it stays
+ * bounded when requests run on virtual threads, and it never blocks: an empty pool creates a new
+ * instance and a full pool drops the returned one.
+ */
+class InstancePool<T> {
+  private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger idleCount = new AtomicInteger();
+  private final Supplier<T> factory;
+  private final int maxIdle;
+
+  InstancePool(Supplier<T> factory, int maxIdle) {
+    this.factory = factory;
+    this.maxIdle = maxIdle;
+  }
+
+  T borrow() {
+    T instance = idle.poll();
+    if (instance == null) {
+      return factory.get();
+    }
+    idleCount.decrementAndGet();
+    return instance;
+  }
+
+  void release(T instance) {
+    if (idleCount.incrementAndGet() <= maxIdle) {
+      idle.offer(instance);
+    } else {
+      idleCount.decrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,28 @@
+package com.example.urlshortener.service;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts the short codes of changed links to the other instances of the application so they can
+ * drop cached state for them. Implementations batch and coalesce published codes; delivery is
+ * asynchronous and at least once.
+ */
+public interface InvalidationBus {
+
+  /** Used when no bus is configured, for single-instance deployments. */
+  InvalidationBus NONE =
+      new InvalidationBus() {
+        @Override
+        public void publish(String code) {}
+
+        @Override
+        public void subscribe(Consumer<Set<String>> listener) {}
+      };
+
+  /** Queues {@code code} for broadcast. Never blocks on I/O. */
+  void publish(String code);
+
+  /** Registers {@code listener} to receive each batch of codes changed on other instances. */
+  void subscribe(Consumer<Set<String>> listener);
+}
@@ -0,0 +1,56 @@
+package com.example.urlshortener.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Propagates link changes to the per-instance caches of every node. A change made here drops the
+ * local {@link RedirectCache} entry and is published on the {@link InvalidationBus}; a change
+ * received from another node drops the entry too and adds the code to the {@link ShortCodeFilter},
+ * since the other node may have just created it. Components keeping other per-instance copies of
+ * link state can {@link #subscribe} to both kinds of change.
+ */
+@Component
+public class LinkChangeNotifier {
+  private final RedirectCache redirectCache;
+  private final ShortCodeFilter shortCodeFilter;
+  private final InvalidationBus invalidationBus;
+  private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+  public LinkChangeNotifier(
+      RedirectCache redirectCache,
+      ShortCodeFilter shortCodeFilter,
+      ObjectProvider<InvalidationBus> invalidationBus) {
+    this.redirectCache = redirectCache;
+    this.shortCodeFilter = shortCodeFilter;
+    this.invalidationBus = invalidationBus.getIfAvailable(() -> InvalidationBus.NONE);
+    this.invalidationBus.subscribe(this::onRemoteChange);
+  }
+
+  /** Records that the link {@code code} was created, changed or removed on this instance. */
+  public void linkChanged(String code) {
+    listeners.forEach(listener -> listener.accept(code));
+    redirectCache.invalidate(code);
+    invalidationBus.publish(code);
+  }
+
+  /**
+   * Calls {@code listener} with the code of every link changed on this or another instance, before
+   * the cached redirect state is dropped, so a reload never sees the listener's stale copy.
+   */
+  public void subscribe(Consumer<String> listener) {
+    listeners.add(listener);
+  }
+
+  private void onRemoteChange(Set<String> codes) {
+    for (String code : codes) {
+      shortCodeFilter.add(code);
+      listeners.forEach(listener -> listener.accept(code));
+      redirectCache.invalidate(code);
+    }
+  }
+}
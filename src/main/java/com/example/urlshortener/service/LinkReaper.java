@@ -0,0 +1,281 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.repository.LinkShards;
+import com.example.urlshortener.repository.LinkShards.Shard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves links that expired more than {@code reaper.grace-period} ago, and links disabled for longer
+ * than {@code reaper.disabled-retention}, from {@code links_core} to {@code links_archive}. Each
+ * run walks the {@code expiry_ts} and {@code disabled_at} indexes in keyset order and moves one
+ * batch per transaction, pausing between batches and stopping after {@code
+ * reaper.max-batches-per-run} batches of each kind so it never holds locks or connections for long.
+ * With sharding, every shard is reaped in turn into its own {@code links_archive}. Runs are
+ * scheduled on a thread of their own, so a long run never delays the jobs on Spring's scheduler.
+ *
+ * <p>Reaped codes answer 404 instead of 410. They stay reserved: a link that was already shared
+ * must not start redirecting somewhere else, so the archived code can not be claimed as a custom
+ * alias.
+ */
+@Component
+public class LinkReaper implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(LinkReaper.class);
+  private static final String COLUMNS =
+      "code, target_url, target_bin, expiry_ts, is_disabled, disabled_at, created_at";
+
+  private final LinkShards linkShards;
+  private final LinkChangeNotifier linkChangeNotifier;
+  private final boolean enabled;
+  private final Duration gracePeriod;
+  private final Duration disabledRetention;
+  private final int batchSize;
+  private final int maxBatchesPerRun;
+  private final Duration pauseBetweenBatches;
+  private final Counter expiredCounter;
+  private final Counter disabledCounter;
+  private final DistributionSummary rowsPerRun;
+  private final Timer runTimer;
+  private final Duration interval;
+  private final Duration initialDelay;
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          runnable -> {
+            Thread thread = new Thread(runnable, "reaper");
+            thread.setDaemon(true);
+            return thread;
+          });
+
+  public LinkReaper(
+      LinkShards linkShards,
+      LinkChangeNotifier linkChangeNotifier,
+      MeterRegistry meterRegistry,
+      @Value("${reaper.enabled:true}") boolean enabled,
+      @Value("${reaper.interval:PT5M}") Duration interval,
+      @Value("${reaper.initial-delay:PT1M}") Duration initialDelay,
+      @Value("${reaper.grace-period:PT1H}") Duration gracePeriod,
+      @Value("${reaper.disabled-retention:P30D}") Duration disabledRetention,
+      @Value("${reaper.batch-size:500}") int batchSize,
+      @Value("${reaper.max-batches-per-run:100}") int maxBatchesPerRun,
+      @Value("${reaper.pause-between-batches:PT0.1S}") Duration pauseBetweenBatches) {
+    if (batchSize < 1 || maxBatchesPerRun < 1) {
+      throw new IllegalArgumentException("Reaper batch size and batches per run must be positive");
+    }
+    this.linkShards = linkShards;
+    this.linkChangeNotifier = linkChangeNotifier;
+    this.enabled = enabled;
+    this.interval = interval;
+    this.initialDelay = initialDelay;
+    this.gracePeriod = gracePeriod;
+    this.disabledRetention = disabledRetention;
+    this.batchSize = batchSize;
+    this.maxBatchesPerRun = maxBatchesPerRun;
+    this.pauseBetweenBatches = pauseBetweenBatches;
+    this.expiredCounter =
+        Counter.builder("urlshortener.reaper.reaped")
+            .description("Links moved to the archive")
+            .tag("reason", Reason.EXPIRED.tag)
+            .register(meterRegistry);
+    this.disabledCounter =
+        Counter.builder("urlshortener.reaper.reaped")
+            .description("Links moved to the archive")
+            .tag("reason", Reason.DISABLED.tag)
+            .register(meterRegistry);
+    this.rowsPerRun =
+        DistributionSummary.builder("urlshortener.reaper.run.rows")
+            .description("Links moved to the archive per reaper run")
+            .register(meterRegistry);
+    this.runTimer =
+        Timer.builder("urlshortener.reaper.run")
+            .description("Duration of a reaper run")
+            .register(meterRegistry);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (enabled) {
+      scheduler.scheduleWithFixedDelay(
+          this::runSafely, initialDelay.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    // Interrupts the pause between batches; the current batch's transaction still completes
+    scheduler.shutdownNow();
+  }
+
+  private void runSafely() {
+    try {
+      reap(Instant.now());
+    } catch (RuntimeException e) {
+      // An exception would cancel all later runs
+      log.error("Reaper run failed", e);
+    }
+  }
+
+  /** Archives links that are reapable as of {@code now} and returns how many were moved. */
+  public int reap(Instant now) {
+    long start = System.nanoTime();
+    int expired = 0;
+    int disabled = 0;
+    for (Shard shard : linkShards.all()) {
+      expired += reap(shard, Reason.EXPIRED, now.minus(gracePeriod), now);
+      disabled += reap(shard, Reason.DISABLED, now.minus(disabledRetention), now);
+    }
+    long elapsed = System.nanoTime() - start;
+
+    int total = expired + disabled;
+    runTimer.record(Duration.ofNanos(elapsed));
+    rowsPerRun.record(total);
+    if (total > 0) {
+      log.info(
+          "Reaped {} expired and {} disabled links in {} ms",
+          expired,
+          disabled,
+          elapsed / 1_000_000);
+    }
+    return total;
+  }
+
+  private int reap(Shard shard, Reason reason, Instant cutoff, Instant now) {
+    Timestamp cutoffTs = Timestamp.from(cutoff);
+    Timestamp lastTs = null;
+    String lastCode = "";
+    int reaped = 0;
+    for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+      List<Candidate> candidates = findCandidates(shard, reason, cutoffTs, lastTs, lastCode);
+      if (candidates.isEmpty()) {
+        break;
+      }
+      Candidate last = candidates.get(candidates.size() - 1);
+      lastTs = last.position();
+      lastCode = last.code();
+
+      List<String> moved =
+          moveToArchive(shard, reason, cutoffTs, Timestamp.from(now), candidates);
+      moved.forEach(linkChangeNotifier::linkChanged);
+      reaped += moved.size();
+      (reason == Reason.EXPIRED ? expiredCounter : disabledCounter).increment(moved.size());
+
+      if (candidates.size() < batchSize || !pause()) {
+        break;
+      }
+    }
+    return reaped;
+  }
+
+  private List<Candidate> findCandidates(
+      Shard shard, Reason reason, Timestamp cutoff, Timestamp lastTs, String lastCode) {
+    List<Object> args = new ArrayList<>(List.of(cutoff));
+    String after = "";
+    if (lastTs != null) {
+      // Resume after the last row of the previous batch rather than rescanning skipped rows
+      after = String.format(" AND (%1$s > ? OR (%1$s = ? AND code > ?))", reason.column);
+      args.addAll(List.of(lastTs, lastTs, lastCode));
+    }
+    args.add(batchSize);
+    String sql =
+        String.format(
+            "SELECT code, %1$s FROM links_core WHERE %1$s < ?%2$s ORDER BY %1$s, code LIMIT ?",
+            reason.column, after);
+    return shard
+        .jdbcTemplate()
+        .query(
+            sql,
+            (rs, rowNum) -> new Candidate(rs.getString(1), rs.getTimestamp(2)),
+            args.toArray());
+  }
+
+  private List<String> moveToArchive(
+      Shard shard, Reason reason, Timestamp cutoff, Timestamp now, List<Candidate> candidates) {
+    JdbcTemplate jdbcTemplate = shard.jdbcTemplate();
+    TransactionTemplate transactionTemplate = shard.transactions();
+    List<String> moved =
+        transactionTemplate.execute(
+            status -> {
+              // Lock the rows and recheck the condition, since a link may have been re-enabled
+              // or had its expiry extended since it was selected
+              String placeholders = String.join(",", Collections.nCopies(candidates.size(), "?"));
+              List<Object> args = new ArrayList<>(candidates.size() + 1);
+              candidates.forEach(candidate -> args.add(candidate.code()));
+              args.add(cutoff);
+              List<String> codes =
+                  jdbcTemplate.queryForList(
+                      "SELECT code FROM links_core WHERE code IN ("
+                          + placeholders
+                          + ") AND "
+                          + reason.column
+                          + " < ? FOR UPDATE",
+                      String.class,
+                      args.toArray());
+              if (codes.isEmpty()) {
+                return codes;
+              }
+
+              String locked = String.join(",", Collections.nCopies(codes.size(), "?"));
+              List<Object> insertArgs = new ArrayList<>(codes.size() + 2);
+              insertArgs.add(now);
+              insertArgs.add(reason.tag);
+              insertArgs.addAll(codes);
+              jdbcTemplate.update(
+                  "INSERT INTO links_archive ("
+                      + COLUMNS
+                      + ", archived_at, archive_reason) SELECT "
+                      + COLUMNS
+                      + ", ?, ? FROM links_core WHERE code IN ("
+                      + locked
+                      + ")",
+                  insertArgs.toArray());
+              jdbcTemplate.update(
+                  "DELETE FROM links_core WHERE code IN (" + locked + ")", codes.toArray());
+              return codes;
+            });
+    return moved != null ? moved : List.of();
+  }
+
+  private boolean pause() {
+    try {
+      Thread.sleep(pauseBetweenBatches);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private enum Reason {
+    EXPIRED("expiry_ts", "expired"),
+    DISABLED("disabled_at", "disabled");
+
+    private final String column;
+    private final String tag;
+
+    Reason(String column, String tag) {
+      this.column = column;
+      this.tag = tag;
+    }
+  }
+
+  private record Candidate(String code, Timestamp position) {}
+}
@@ -0,0 +1,188 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.model.LinkView;
+import com.example.urlshortener.repository.LinkShards;
+import com.example.urlshortener.repository.LinkShards.Shard;
+import com.example.urlshortener.repository.LinkSnapshot;
+import com.example.urlshortener.repository.SnapshotUrlMappingReadRepository;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Compiles {@code links_core} into the {@link LinkSnapshot} at {@code snapshot.path} and swaps it
+ * into the {@link SnapshotUrlMappingReadRepository}. At startup the file left by an earlier run is
+ * mapped instead of scanning the table, so a restarted instance serves from a snapshot right away;
+ * codes created, disabled, archived or logged in {@code link_invalidations} since that file was
+ * taken are sent to the database.
+ *
+ * <p>Every {@code snapshot.check-interval}, a snapshot older than {@code snapshot.rebuild-interval}
+ * is replaced: every shard is streamed into a temporary file next to {@code snapshot.path}, which
+ * is then renamed over it. Lookups keep reading the previous mapping until the new one is swapped
+ * in.
+ */
+@Component
+@ConditionalOnProperty(name = "snapshot.enabled", havingValue = "true")
+public class LinkSnapshotCompiler implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(LinkSnapshotCompiler.class);
+
+  private final SnapshotUrlMappingReadRepository repository;
+  private final List<JdbcTemplate> streamingJdbcTemplates;
+  private final LinkShards linkShards;
+  private final Path path;
+  private final Duration rebuildInterval;
+
+  public LinkSnapshotCompiler(
+      SnapshotUrlMappingReadRepository repository,
+      LinkShards linkShards,
+      @Value("${snapshot.path:./data/links.snapshot}") Path path,
+      @Value("${snapshot.rebuild-interval:PT15M}") Duration rebuildInterval) {
+    this.repository = repository;
+    this.linkShards = linkShards;
+    this.streamingJdbcTemplates =
+        linkShards.all().stream()
+            .map(
+                shard -> {
+                  JdbcTemplate template = new JdbcTemplate(shard.jdbcTemplate().getDataSource());
+                  template.setFetchSize(10_000);
+                  return template;
+                })
+            .toList();
+    this.path = path;
+    this.rebuildInterval = rebuildInterval;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    load();
+  }
+
+  /**
+   * Maps the snapshot file left by an earlier run, if there is a readable one, and returns whether
+   * it was swapped in.
+   */
+  public boolean load() {
+    if (!Files.exists(path)) {
+      return false;
+    }
+    LinkSnapshot snapshot;
+    try {
+      snapshot = LinkSnapshot.open(path);
+    } catch (IOException e) {
+      log.warn("Ignoring unreadable link snapshot {}", path, e);
+      return false;
+    }
+    // Changes made while this instance was down were not reported to it. Rows written since,
+    // including codes created again, disabled rows and reaped rows, are found by their timestamps.
+    // Other updates, such as imports overwriting a row, are only found in the change log, which is
+    // written when invalidation.bus=changelog.
+    Timestamp takenAt = Timestamp.from(snapshot.takenAt());
+    for (Shard shard : linkShards.all()) {
+      shard
+          .jdbcTemplate()
+          .queryForList(
+              "SELECT code FROM links_core WHERE created_at >= ? OR disabled_at >= ?"
+                  + " UNION SELECT code FROM links_archive WHERE archived_at >= ?"
+                  + " UNION SELECT code FROM link_invalidations WHERE changed_at >= ?",
+              String.class,
+              takenAt,
+              takenAt,
+              takenAt,
+              takenAt)
+          .forEach(repository::linkChanged);
+    }
+    repository.swap(snapshot, 0);
+    log.info(
+        "Loaded link snapshot of {} links taken at {} from {}",
+        snapshot.size(),
+        snapshot.takenAt(),
+        path);
+    return true;
+  }
+
+  /** Compiles a new snapshot if there is none yet or the current one is due for a rebuild. */
+  @Scheduled(
+      fixedDelayString = "${snapshot.check-interval:PT10S}",
+      initialDelayString = "${snapshot.check-interval:PT10S}")
+  public void refresh() {
+    LinkSnapshot current = repository.snapshot();
+    if (current == null || current.takenAt().plus(rebuildInterval).isBefore(Instant.now())) {
+      compile();
+    }
+  }
+
+  /** Compiles a snapshot of {@code links_core}, replaces the file with it and swaps it in. */
+  public synchronized LinkSnapshot compile() {
+    long start = System.nanoTime();
+    long generation = repository.nextGeneration();
+    Instant takenAt = Instant.now();
+    Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+    try {
+      if (path.getParent() != null) {
+        Files.createDirectories(path.getParent());
+      }
+      try (LinkSnapshot.Writer writer = LinkSnapshot.writer(temporary, takenAt)) {
+        for (JdbcTemplate template : streamingJdbcTemplates) {
+          template.query(
+              "SELECT code, target_url, target_bin, created_at, expiry_ts, is_disabled"
+                  + " FROM links_core",
+              (RowCallbackHandler) rs -> add(writer, rs));
+        }
+        writer.finish();
+      }
+      // A reader that mapped the old file keeps it until the mapping is collected
+      Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+      LinkSnapshot snapshot = LinkSnapshot.open(path);
+      repository.swap(snapshot, generation);
+      log.info(
+          "Compiled link snapshot of {} links ({} KiB) in {} ms",
+          snapshot.size(),
+          snapshot.sizeInBytes() / 1024,
+          (System.nanoTime() - start) / 1_000_000);
+      return snapshot;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not write link snapshot " + path, e);
+    } finally {
+      try {
+        Files.deleteIfExists(temporary);
+      } catch (IOException e) {
+        log.warn("Could not delete {}", temporary, e);
+      }
+    }
+  }
+
+  private static void add(LinkSnapshot.Writer writer, ResultSet rs) throws SQLException {
+    Timestamp expiry = rs.getTimestamp(5);
+    LinkView view =
+        new LinkView(
+            rs.getString(1),
+            rs.getString(2),
+            rs.getBytes(3),
+            rs.getTimestamp(4).toInstant(),
+            expiry != null ? expiry.toInstant() : null,
+            rs.getBoolean(6));
+    try {
+      writer.add(view);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
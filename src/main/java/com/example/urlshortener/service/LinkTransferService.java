@@ -0,0 +1,400 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.dto.ImportResult;
+import com.example.urlshortener.dto.LinkRecord;
+import com.example.urlshortener.repository.LinkShards;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+/**
+ * Bulk export and import of {@code links_core} and {@code links_archive} as NDJSON. Export streams
+ * rows from a JDBC cursor straight into a {@link JsonGenerator}, and import reads records one at a
+ * time with a {@link MappingIterator} and writes them in batched statements, so neither side holds
+ * more than one batch in memory. Target URLs are copied as stored, still encrypted. With sharding,
+ * export reads every shard in turn and import writes each record to the shard that owns its code.
+ *
+ * <p>By default import only adds codes that are neither live nor archived here, and reports the
+ * others as skipped, so loading links from another instance can not redirect a code that was
+ * already shared. {@link ImportMode#UPSERT} is for restoring a backup: the imported records replace
+ * whatever this instance has under the same codes, in either table.
+ *
+ * <p>The first exported line carries the {@code code_ranges} positions. Import only ever moves them
+ * forward, so codes allocated after a restore do not collide with imported ones.
+ */
+@Service
+public class LinkTransferService {
+  private static final Logger log = LoggerFactory.getLogger(LinkTransferService.class);
+  private static final String SELECT_LINKS =
+      "SELECT code, target_url, target_bin, created_at, expiry_ts, is_disabled, disabled_at,"
+          + " url_hmac FROM links_core";
+  private static final String SELECT_ARCHIVED =
+      "SELECT code, target_url, target_bin, created_at, expiry_ts, is_disabled, disabled_at,"
+          + " archived_at, archive_reason FROM links_archive";
+  private static final String INSERT_LINK =
+      "INSERT INTO links_core (code, target_url, target_bin, created_at, expiry_ts, is_disabled,"
+          + " disabled_at, url_hmac) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String MERGE_LINK =
+      "MERGE INTO links_core (code, target_url, target_bin, created_at, expiry_ts, is_disabled,"
+          + " disabled_at, url_hmac) KEY (code) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_ARCHIVED =
+      "INSERT INTO links_archive (code, target_url, target_bin, created_at, expiry_ts, is_disabled,"
+          + " disabled_at, archived_at, archive_reason) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final int MAX_REPORTED_SKIPS = 100;
+
+  /** What import does with a record whose code is already live or archived. */
+  public enum ImportMode {
+    /** Skip the record and report its code. */
+    INSERT,
+    /** Replace the existing link or archive entry with the record. */
+    UPSERT
+  }
+
+  private final LinkShards linkShards;
+  private final List<JdbcTemplate> streamingJdbcTemplates;
+  private final JdbcTemplate jdbcTemplate;
+  private final ObjectMapper objectMapper;
+  private final ShortCodeFilter shortCodeFilter;
+  private final LinkChangeNotifier linkChangeNotifier;
+  private final int batchSize;
+
+  public LinkTransferService(
+      LinkShards linkShards,
+      ObjectMapper objectMapper,
+      ShortCodeFilter shortCodeFilter,
+      LinkChangeNotifier linkChangeNotifier,
+      @Value("${admin.import.batch-size:1000}") int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Import batch size must be positive");
+    }
+    this.linkShards = linkShards;
+    this.streamingJdbcTemplates =
+        linkShards.all().stream()
+            .map(
+                shard -> {
+                  JdbcTemplate template = new JdbcTemplate(shard.jdbcTemplate().getDataSource());
+                  template.setFetchSize(1_000);
+                  return template;
+                })
+            .toList();
+    // code_ranges only exists on the primary database
+    this.jdbcTemplate = linkShards.primary().jdbcTemplate();
+    this.objectMapper = objectMapper;
+    this.shortCodeFilter = shortCodeFilter;
+    this.linkChangeNotifier = linkChangeNotifier;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Writes every mapping, live or archived, to {@code out} as NDJSON and returns the number of
+   * mappings written.
+   */
+  public long exportTo(OutputStream out) throws IOException {
+    long start = System.nanoTime();
+    AtomicLong rows = new AtomicLong();
+    try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+      // One object per line instead of Jackson's default space between root values
+      generator.setRootValueSeparator(null);
+      generator.writeStartObject();
+      generator.writeObjectFieldStart("codeRanges");
+      jdbcTemplate.query(
+          "SELECT name, next_id FROM code_ranges",
+          (RowCallbackHandler) rs -> writeField(generator, rs.getString(1), rs.getLong(2)));
+      generator.writeEndObject();
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+
+      for (JdbcTemplate template : streamingJdbcTemplates) {
+        template.query(
+            SELECT_LINKS,
+            (RowCallbackHandler)
+                rs -> {
+                  writeLink(generator, rs, false);
+                  rows.incrementAndGet();
+                });
+        template.query(
+            SELECT_ARCHIVED,
+            (RowCallbackHandler)
+                rs -> {
+                  writeLink(generator, rs, true);
+                  rows.incrementAndGet();
+                });
+      }
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+
+    long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    log.info(
+        "Exported {} links in {} ms ({} rows/s)", rows.get(), millis, rows.get() * 1000 / millis);
+    return rows.get();
+  }
+
+  /**
+   * Writes every mapping read from {@code in}, handling existing codes according to {@code mode}.
+   * Records are read only as fast as batches are written, so a slow database pushes back on the
+   * client through the request stream.
+   *
+   * @throws IllegalArgumentException if a record is malformed; earlier batches stay imported
+   */
+  public ImportResult importFrom(InputStream in, ImportMode mode) throws IOException {
+    long start = System.nanoTime();
+    long rows = 0;
+    long skipped = 0;
+    List<String> skippedCodes = new ArrayList<>();
+    ObjectReader reader = objectMapper.readerFor(LinkRecord.class);
+    List<LinkRecord> batch = new ArrayList<>(batchSize);
+    try (MappingIterator<LinkRecord> records = reader.readValues(in)) {
+      while (records.hasNextValue()) {
+        LinkRecord record = records.nextValue();
+        if (record.getCodeRanges() != null) {
+          advanceCodeRanges(record.getCodeRanges());
+          continue;
+        }
+        if (record.getCode() == null
+            || (record.getTargetUrl() == null && record.getTargetBin() == null)) {
+          throw new IllegalArgumentException(
+              "Record at line "
+                  + records.getCurrentLocation().getLineNr()
+                  + " has no code or target URL");
+        }
+        batch.add(record);
+        if (batch.size() == batchSize) {
+          List<String> conflicts = writeBatch(batch, mode);
+          rows += batchSize - conflicts.size();
+          skipped += conflicts.size();
+          report(conflicts, skippedCodes);
+        }
+      }
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Malformed import record: " + e.getOriginalMessage());
+    }
+    if (!batch.isEmpty()) {
+      int size = batch.size();
+      List<String> conflicts = writeBatch(batch, mode);
+      rows += size - conflicts.size();
+      skipped += conflicts.size();
+      report(conflicts, skippedCodes);
+    }
+
+    long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+    long rowsPerSecond = rows * 1000 / millis;
+    log.info(
+        "Imported {} links in {} ms ({} rows/s), skipped {} existing codes",
+        rows,
+        millis,
+        rowsPerSecond,
+        skipped);
+    return new ImportResult(rows, millis, rowsPerSecond, skipped, skippedCodes);
+  }
+
+  /** Writes and clears {@code batch}, returning the codes that were skipped as already in use. */
+  private List<String> writeBatch(List<LinkRecord> batch, ImportMode mode) {
+    List<LinkRecord> written = new ArrayList<>(batch.size());
+    List<String> conflicts = new ArrayList<>();
+    linkShards
+        .byOwner(batch, LinkRecord::getCode)
+        .forEach(
+            (shard, records) ->
+                shard
+                    .transactions()
+                    .executeWithoutResult(
+                        status ->
+                            written.addAll(
+                                writeRecords(shard.jdbcTemplate(), records, mode, conflicts))));
+
+    // Plain SQL bypasses the entity listener
+    for (LinkRecord record : written) {
+      shortCodeFilter.add(record.getCode());
+      linkChangeNotifier.linkChanged(record.getCode());
+    }
+    batch.clear();
+    return conflicts;
+  }
+
+  /** Writes {@code records} to one shard and returns the ones that were written. */
+  private static List<LinkRecord> writeRecords(
+      JdbcTemplate template, List<LinkRecord> records, ImportMode mode, List<String> conflicts) {
+    List<LinkRecord> accepted =
+        mode == ImportMode.INSERT ? withoutExistingCodes(template, records, conflicts) : records;
+    List<Object[]> links = new ArrayList<>();
+    List<Object[]> archived = new ArrayList<>();
+    List<Object[]> codes = new ArrayList<>();
+    List<Object[]> archivedCodes = new ArrayList<>();
+    for (LinkRecord record : accepted) {
+      if (record.getArchivedAt() == null) {
+        links.add(linkArgs(record));
+      } else {
+        archived.add(archivedArgs(record));
+        archivedCodes.add(new Object[] {record.getCode()});
+      }
+      codes.add(new Object[] {record.getCode()});
+    }
+    if (mode == ImportMode.UPSERT) {
+      // Each code ends up only where the imported record puts it
+      template.batchUpdate("DELETE FROM links_archive WHERE code = ?", codes);
+      template.batchUpdate("DELETE FROM links_core WHERE code = ?", archivedCodes);
+      template.batchUpdate(MERGE_LINK, links);
+    } else {
+      template.batchUpdate(INSERT_LINK, links);
+    }
+    template.batchUpdate(INSERT_ARCHIVED, archived);
+    return accepted;
+  }
+
+  /**
+   * Returns the records whose codes are neither live nor archived on {@code template}'s database,
+   * nor repeated earlier in {@code records}, and adds the codes of the others to {@code conflicts}.
+   */
+  private static List<LinkRecord> withoutExistingCodes(
+      JdbcTemplate template, List<LinkRecord> records, List<String> conflicts) {
+    String placeholders = String.join(", ", Collections.nCopies(records.size(), "?"));
+    List<Object> args = new ArrayList<>(records.size() * 2);
+    for (int i = 0; i < 2; i++) {
+      for (LinkRecord record : records) {
+        args.add(record.getCode());
+      }
+    }
+    Set<String> taken =
+        new HashSet<>(
+            template.queryForList(
+                "SELECT code FROM links_core WHERE code IN ("
+                    + placeholders
+                    + ") UNION SELECT code FROM links_archive WHERE code IN ("
+                    + placeholders
+                    + ")",
+                String.class,
+                args.toArray()));
+    List<LinkRecord> accepted = new ArrayList<>(records.size());
+    for (LinkRecord record : records) {
+      if (taken.add(record.getCode())) {
+        accepted.add(record);
+      } else {
+        conflicts.add(record.getCode());
+      }
+    }
+    return accepted;
+  }
+
+  private static void report(List<String> conflicts, List<String> skippedCodes) {
+    for (String code : conflicts) {
+      if (skippedCodes.size() == MAX_REPORTED_SKIPS) {
+        return;
+      }
+      skippedCodes.add(code);
+    }
+  }
+
+  private static Object[] linkArgs(LinkRecord record) {
+    return new Object[] {
+      record.getCode(),
+      record.getTargetUrl(),
+      record.getTargetBin(),
+      Timestamp.from(record.getCreatedAt() != null ? record.getCreatedAt() : Instant.now()),
+      toTimestamp(record.getExpiry()),
+      record.isDisabled(),
+      toTimestamp(record.getDisabledAt()),
+      record.getUrlHmac()
+    };
+  }
+
+  private static Object[] archivedArgs(LinkRecord record) {
+    return new Object[] {
+      record.getCode(),
+      record.getTargetUrl(),
+      record.getTargetBin(),
+      Timestamp.from(record.getCreatedAt() != null ? record.getCreatedAt() : Instant.now()),
+      toTimestamp(record.getExpiry()),
+      record.isDisabled(),
+      toTimestamp(record.getDisabledAt()),
+      Timestamp.from(record.getArchivedAt()),
+      record.getArchiveReason() != null ? record.getArchiveReason() : "imported"
+    };
+  }
+
+  private void advanceCodeRanges(Map<String, Long> codeRanges) {
+    codeRanges.forEach(
+        (name, nextId) ->
+            jdbcTemplate.update(
+                "UPDATE code_ranges SET next_id = GREATEST(next_id, ?) WHERE name = ?",
+                nextId,
+                name));
+  }
+
+  /**
+   * Writes the current row of {@link #SELECT_LINKS}, or of {@link #SELECT_ARCHIVED} if {@code
+   * archived} is set.
+   */
+  private static void writeLink(JsonGenerator generator, ResultSet rs, boolean archived)
+      throws SQLException {
+    try {
+      generator.writeStartObject();
+      generator.writeStringField("code", rs.getString(1));
+      String targetUrl = rs.getString(2);
+      if (targetUrl != null) {
+        generator.writeStringField("targetUrl", targetUrl);
+      } else {
+        generator.writeBinaryField("targetBin", rs.getBytes(3));
+      }
+      writeInstant(generator, "createdAt", rs.getTimestamp(4));
+      writeInstant(generator, "expiry", rs.getTimestamp(5));
+      generator.writeBooleanField("disabled", rs.getBoolean(6));
+      writeInstant(generator, "disabledAt", rs.getTimestamp(7));
+      if (archived) {
+        writeInstant(generator, "archivedAt", rs.getTimestamp(8));
+        generator.writeStringField("archiveReason", rs.getString(9));
+      } else {
+        byte[] urlHmac = rs.getBytes(8);
+        if (urlHmac != null) {
+          generator.writeBinaryField("urlHmac", urlHmac);
+        }
+      }
+      generator.writeEndObject();
+      generator.writeRaw('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void writeInstant(JsonGenerator generator, String name, Timestamp value)
+      throws IOException {
+    if (value != null) {
+      generator.writeStringField(name, value.toInstant().toString());
+    }
+  }
+
+  private static void writeField(JsonGenerator generator, String name, long value) {
+    try {
+      generator.writeNumberField(name, value);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static Timestamp toTimestamp(Instant instant) {
+    return instant != null ? Timestamp.from(instant) : null;
+  }
+}
@@ -0,0 +1,164 @@
+package com.example.urlshortener.service;
+
+import java.util.Objects;
+
+/**
+ * Open-addressing hash map from primitive {@code long} keys to non-null values, without the boxed
+ * key and entry object {@link java.util.HashMap} allocates per mapping. Keys and values sit in two
+ * parallel arrays probed linearly from a mixed hash of the key; the table doubles once it is three
+ * quarters full, and removal shifts later entries back instead of leaving tombstones. Key 0 marks
+ * free slots, so its value is kept in a field of its own. Not thread-safe.
+ */
+final class LongObjectHashMap<V> {
+  private long[] keys;
+  private Object[] values;
+  private int mask;
+  private int resizeAt;
+  private int size;
+  private V zeroKeyValue;
+
+  LongObjectHashMap() {
+    this(16);
+  }
+
+  LongObjectHashMap(int expectedSize) {
+    int capacity = Integer.highestOneBit(Math.max(4, expectedSize + expectedSize / 3)) << 1;
+    allocate(capacity);
+  }
+
+  int size() {
+    return size;
+  }
+
+  V get(long key) {
+    if (key == 0) {
+      return zeroKeyValue;
+    }
+    int index = find(key);
+    return index >= 0 ? value(index) : null;
+  }
+
+  /** Maps {@code key} to {@code value} and returns the previous value, or {@code null}. */
+  V put(long key, V value) {
+    return put(key, value, true);
+  }
+
+  /**
+   * Maps {@code key} to {@code value} unless it is mapped already, and returns the current value.
+   */
+  V putIfAbsent(long key, V value) {
+    return put(key, value, false);
+  }
+
+  V remove(long key) {
+    if (key == 0) {
+      V previous = zeroKeyValue;
+      if (previous != null) {
+        zeroKeyValue = null;
+        size--;
+      }
+      return previous;
+    }
+    int index = find(key);
+    if (index < 0) {
+      return null;
+    }
+    V previous = value(index);
+    removeAt(index);
+    return previous;
+  }
+
+  private V put(long key, V value, boolean replace) {
+    Objects.requireNonNull(value, "value");
+    if (key == 0) {
+      V previous = zeroKeyValue;
+      if (previous == null) {
+        size++;
+      }
+      if (previous == null || replace) {
+        zeroKeyValue = value;
+      }
+      return previous;
+    }
+    int index = slot(key);
+    while (keys[index] != 0) {
+      if (keys[index] == key) {
+        V previous = value(index);
+        if (replace) {
+          values[index] = value;
+        }
+        return previous;
+      }
+      index = (index + 1) & mask;
+    }
+    keys[index] = key;
+    values[index] = value;
+    if (++size > resizeAt) {
+      resize();
+    }
+    return null;
+  }
+
+  private int find(long key) {
+    for (int index = slot(key); keys[index] != 0; index = (index + 1) & mask) {
+      if (keys[index] == key) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  private void removeAt(int index) {
+    // Move back each following entry of the run whose home slot is not between the gap and itself
+    int gap = index;
+    for (int next = (index + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+      int home = slot(keys[next]);
+      if (((next - home) & mask) >= ((next - gap) & mask)) {
+        keys[gap] = keys[next];
+        values[gap] = values[next];
+        gap = next;
+      }
+    }
+    keys[gap] = 0;
+    values[gap] = null;
+    size--;
+  }
+
+  private void resize() {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(oldKeys.length * 2);
+    for (int i = 0; i < oldKeys.length; i++) {
+      long key = oldKeys[i];
+      if (key != 0) {
+        int index = slot(key);
+        while (keys[index] != 0) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = oldValues[i];
+      }
+    }
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    mask = capacity - 1;
+    resizeAt = capacity / 4 * 3;
+  }
+
+  private int slot(long key) {
+    key ^= key >>> 33;
+    key *= 0xff51afd7ed558ccdL;
+    key ^= key >>> 33;
+    key *= 0xc4ceb9fe1a85ec53L;
+    key ^= key >>> 33;
+    return (int) key & mask;
+  }
+
+  @SuppressWarnings("unchecked")
+  private V value(int index) {
+    return (V) values[index];
+  }
+}
@@ -0,0 +1,83 @@
+package com.example.urlshortener.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token buckets, implemented as the generic cell rate algorithm: instead of a token
+ * count and a refill timestamp, each client has a single "theoretical arrival time" that advances
+ * by one emission interval per admitted request. That state fits in one {@link AtomicLong}, so
+ * admission is a read and a compare-and-set with no locks and no allocation for known clients.
+ *
+ * <p>Clients are kept in a bounded Caffeine map. An entry idle for longer than it takes the bucket
+ * to refill is indistinguishable from a new one, so it expires after that time; under pressure the
+ * least recently used clients are evicted and simply start again with a full bucket.
+ */
+public class RateLimiter {
+  private final long emissionIntervalNanos;
+  private final long burstToleranceNanos;
+  private final Cache<String, AtomicLong> clients;
+  private final LongSupplier clock;
+
+  public RateLimiter(double requestsPerSecond, int burst, long maxClients) {
+    this(requestsPerSecond, burst, maxClients, System::nanoTime);
+  }
+
+  RateLimiter(double requestsPerSecond, int burst, long maxClients, LongSupplier clock) {
+    if (requestsPerSecond <= 0 || burst < 1) {
+      throw new IllegalArgumentException("Rate limit and burst must be positive");
+    }
+    this.emissionIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+    this.burstToleranceNanos = emissionIntervalNanos * (burst - 1);
+    this.clients =
+        Caffeine.newBuilder()
+            .maximumSize(maxClients)
+            .expireAfterAccess(Duration.ofNanos(burstToleranceNanos + emissionIntervalNanos))
+            .build();
+    this.clock = clock;
+  }
+
+  /**
+   * Takes a token from {@code client}'s bucket. Returns {@code 0} if the request is admitted, or
+   * otherwise how many nanoseconds to wait before the next request would be.
+   */
+  public long tryAcquire(String client) {
+    return tryAcquire(client, 1);
+  }
+
+  /**
+   * Takes {@code permits} tokens from {@code client}'s bucket at once, for requests that do the
+   * work of several. Either all of them are taken or none are; the return value is as for {@link
+   * #tryAcquire(String)}. More permits than the burst are never admitted.
+   */
+  public long tryAcquire(String client, int permits) {
+    if (permits < 1) {
+      throw new IllegalArgumentException("Permits must be positive");
+    }
+    long increment = emissionIntervalNanos * permits;
+    long now = clock.getAsLong();
+    AtomicLong arrival = clients.getIfPresent(client);
+    if (arrival == null) {
+      arrival = clients.get(client, key -> new AtomicLong(now));
+    }
+    while (true) {
+      long theoretical = arrival.get();
+      long base = theoretical - now > 0 ? theoretical : now;
+      long wait = base + increment - emissionIntervalNanos - now - burstToleranceNanos;
+      if (wait > 0) {
+        return wait;
+      }
+      if (arrival.compareAndSet(theoretical, base + increment)) {
+        return 0;
+      }
+    }
+  }
+
+  public long trackedClients() {
+    return clients.estimatedSize();
+  }
+}
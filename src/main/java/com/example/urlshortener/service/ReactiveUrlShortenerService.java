@@ -0,0 +1,251 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.model.EncryptedUrl;
+import com.example.urlshortener.model.LinkView;
+import com.example.urlshortener.model.ResolvedLink;
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.repository.ReactiveUrlMappingRepository;
+import com.example.urlshortener.service.UrlShortenerMetrics.Stage;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Non-blocking variant of {@link UrlShortenerService} for the reactive runtime. Lookups and inserts
+ * go through the {@link ReactiveUrlMappingRepository}; encryption and decryption run on a bounded
+ * scheduler of {@code reactive.crypto.threads} threads so they never occupy an event loop. When its
+ * {@code reactive.crypto.queue-size} queue is full, further tasks are rejected instead of queued
+ * without limit.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUrlShortenerService {
+  private static final int MAX_INSERT_ATTEMPTS = 10;
+
+  private final ReactiveUrlMappingRepository repository;
+  private final EncryptionService encryptionService;
+  private final RedirectCache redirectCache;
+  private final ShortCodeAllocator shortCodeAllocator;
+  private final ShortCodeFilter shortCodeFilter;
+  private final UrlFingerprinter urlFingerprinter;
+  private final LinkChangeNotifier linkChangeNotifier;
+  private final UrlShortenerMetrics metrics;
+  private final Scheduler cryptoScheduler;
+
+  public ReactiveUrlShortenerService(
+      ReactiveUrlMappingRepository repository,
+      EncryptionService encryptionService,
+      RedirectCache redirectCache,
+      ShortCodeAllocator shortCodeAllocator,
+      ShortCodeFilter shortCodeFilter,
+      UrlFingerprinter urlFingerprinter,
+      LinkChangeNotifier linkChangeNotifier,
+      UrlShortenerMetrics metrics,
+      @Value("${reactive.crypto.threads:0}") int cryptoThreads,
+      @Value("${reactive.crypto.queue-size:10000}") int cryptoQueueSize) {
+    this.repository = repository;
+    this.encryptionService = encryptionService;
+    this.redirectCache = redirectCache;
+    this.shortCodeAllocator = shortCodeAllocator;
+    this.shortCodeFilter = shortCodeFilter;
+    this.urlFingerprinter = urlFingerprinter;
+    this.linkChangeNotifier = linkChangeNotifier;
+    this.metrics = metrics;
+    this.cryptoScheduler =
+        Schedulers.newBoundedElastic(
+            cryptoThreads > 0 ? cryptoThreads : Runtime.getRuntime().availableProcessors(),
+            cryptoQueueSize,
+            "crypto");
+  }
+
+  /**
+   * Stores a new mapping for {@code longUrl} and emits its short code. Deduplication and alias
+   * handling follow {@link UrlShortenerService#shorten}; invalid input is signalled as an {@link
+   * IllegalArgumentException}.
+   */
+  public Mono<String> shorten(String longUrl, String customAlias, Instant expiry) {
+    return Mono.defer(
+        () -> {
+          long start = System.nanoTime();
+          UrlShortenerService.validateUrl(longUrl);
+          metrics.record(Stage.VALIDATE, start);
+
+          boolean hasAlias = customAlias != null && !customAlias.isEmpty();
+          byte[] urlHmac = urlFingerprinter.fingerprint(longUrl);
+          Mono<String> duplicate =
+              urlHmac != null && !hasAlias ? findDuplicate(urlHmac, expiry) : Mono.empty();
+          return duplicate.switchIfEmpty(
+              Mono.fromCallable(() -> encryptionService.encryptForStorage(longUrl))
+                  .subscribeOn(cryptoScheduler)
+                  .flatMap(
+                      encryptedUrl ->
+                          hasAlias
+                              ? persistWithAlias(customAlias, encryptedUrl, urlHmac, expiry)
+                              : persistWithGeneratedCode(encryptedUrl, urlHmac, expiry, 1)));
+        });
+  }
+
+  /**
+   * Resolves a short code to its redirect state through the shared {@link RedirectCache}. On a miss
+   * the row is read and decrypted without blocking; concurrent misses for the same code, on either
+   * runtime, share that load and fail with a {@link org.springframework.dao.QueryTimeoutException}
+   * if it takes longer than the cache's load timeout.
+   */
+  public Mono<ResolvedLink> resolve(String code) {
+    if (!shortCodeFilter.mightContain(code)) {
+      return Mono.empty();
+    }
+    // The load is shared with other callers, so cancelling this one must not cancel it
+    return Mono.fromFuture(() -> redirectCache.getAsync(code, this::loadResolvedLink), true)
+        .timeout(redirectCache.loadTimeout(), Mono.error(() -> RedirectCache.loadTimedOut(code)))
+        .flatMap(Mono::justOrEmpty);
+  }
+
+  /** Reads the current state of {@code code} from the database, bypassing the redirect cache. */
+  public Mono<LinkView> findView(String code) {
+    if (!shortCodeFilter.mightContain(code)) {
+      return Mono.empty();
+    }
+    return Mono.defer(
+        () -> {
+          long start = System.nanoTime();
+          return repository
+              .findViewByShortCode(code)
+              .doFinally(signal -> metrics.record(Stage.FIND_BY_SHORT_CODE, start));
+        });
+  }
+
+  public Mono<String> decryptUrl(EncryptedUrl encryptedUrl) {
+    return Mono.fromCallable(() -> encryptionService.decrypt(encryptedUrl))
+        .subscribeOn(cryptoScheduler);
+  }
+
+  @PreDestroy
+  void stop() {
+    cryptoScheduler.dispose();
+  }
+
+  private CompletableFuture<Optional<ResolvedLink>> loadResolvedLink(String code) {
+    return findView(code)
+        .flatMap(
+            view ->
+                view.disabled()
+                    ? Mono.just(toResolvedLink(view, null))
+                    : decryptUrl(view.encryptedUrl()).map(url -> toResolvedLink(view, url)))
+        .map(Optional::of)
+        .defaultIfEmpty(Optional.empty())
+        .toFuture();
+  }
+
+  private Mono<String> findDuplicate(byte[] urlHmac, Instant expiry) {
+    return Mono.defer(
+        () -> {
+          long start = System.nanoTime();
+          return repository
+              .findByUrlHmac(urlHmac)
+              .filter(view -> Objects.equals(view.expiry(), expiry) && !isExpired(view))
+              .next()
+              .map(LinkView::shortCode)
+              .doOnNext(code -> metrics.dedupHit())
+              .doFinally(signal -> metrics.record(Stage.FIND_BY_URL_HMAC, start));
+        });
+  }
+
+  private Mono<String> persistWithAlias(
+      String alias, EncryptedUrl encryptedUrl, byte[] urlHmac, Instant expiry) {
+    Mono<Boolean> taken =
+        shortCodeFilter.mightContain(alias) ? existsByShortCode(alias) : Mono.just(false);
+    return taken
+        .flatMap(
+            exists -> {
+              if (exists) {
+                return Mono.<String>error(aliasExists());
+              }
+              return persist(new UrlMapping(alias, encryptedUrl, urlHmac, expiry));
+            })
+        // Lost a race with a concurrent request for the same alias
+        .onErrorMap(DataIntegrityViolationException.class, e -> aliasExists());
+  }
+
+  private Mono<String> persistWithGeneratedCode(
+      EncryptedUrl encryptedUrl, byte[] urlHmac, Instant expiry, int attempt) {
+    // Reserving the next block of codes is a blocking JDBC update
+    return Mono.fromCallable(shortCodeAllocator::nextCode)
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(
+            code -> {
+              // An archived alias is not caught by the insert, so it is checked up front
+              Mono<Boolean> taken =
+                  shortCodeFilter.mightContain(code) ? existsByShortCode(code) : Mono.just(false);
+              return taken.flatMap(
+                  exists ->
+                      exists
+                          ? Mono.<String>error(
+                              new DataIntegrityViolationException(
+                                  "Short code " + code + " is already taken"))
+                          : persist(new UrlMapping(code, encryptedUrl, urlHmac, expiry)));
+            })
+        .onErrorResume(
+            DataIntegrityViolationException.class,
+            e -> {
+              if (attempt >= MAX_INSERT_ATTEMPTS) {
+                return Mono.error(
+                    new IllegalStateException(
+                        "Failed to generate unique short code after " + attempt + " attempts", e));
+              }
+              metrics.codeGenerationRetry();
+              return persistWithGeneratedCode(encryptedUrl, urlHmac, expiry, attempt + 1);
+            });
+  }
+
+  private Mono<Boolean> existsByShortCode(String code) {
+    return Mono.defer(
+        () -> {
+          long start = System.nanoTime();
+          return repository
+              .existsByShortCode(code)
+              .doFinally(signal -> metrics.record(Stage.EXISTS_BY_SHORT_CODE, start));
+        });
+  }
+
+  private Mono<String> persist(UrlMapping mapping) {
+    String code = mapping.getShortCode();
+    return Mono.defer(
+            () -> {
+              long start = System.nanoTime();
+              return repository
+                  .persist(mapping)
+                  .doFinally(signal -> metrics.record(Stage.PERSIST, start));
+            })
+        .then(
+            Mono.fromCallable(
+                () -> {
+                  // Plain SQL bypasses the entity listener
+                  shortCodeFilter.add(code);
+                  linkChangeNotifier.linkChanged(code);
+                  return code;
+                }));
+  }
+
+  private static IllegalArgumentException aliasExists() {
+    return new IllegalArgumentException("Custom alias already exists");
+  }
+
+  private static boolean isExpired(LinkView view) {
+    return view.expiry() != null && Instant.now().isAfter(view.expiry());
+  }
+
+  private static ResolvedLink toResolvedLink(LinkView view, String targetUrl) {
+    return new ResolvedLink(
+        view.shortCode(), targetUrl, view.createdAt(), view.expiry(), view.disabled());
+  }
+}
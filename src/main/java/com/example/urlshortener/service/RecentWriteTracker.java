@@ -0,0 +1,36 @@
+package com.example.urlshortener.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers short codes written by this node during the last few seconds so that reads for them can
+ * bypass a lagging read replica. Only active when a replica is configured.
+ */
+@Component
+public class RecentWriteTracker {
+  private final boolean enabled;
+  private final Cache<Object, Boolean> recentWrites;
+
+  public RecentWriteTracker(
+      @Value("${datasource.replica.url:}") String replicaUrl,
+      @Value("${datasource.read-your-writes-window:PT5S}") Duration window,
+      @Value("${datasource.read-your-writes-max-codes:100000}") long maximumSize) {
+    this.enabled = !replicaUrl.isEmpty();
+    this.recentWrites =
+        Caffeine.newBuilder().expireAfterWrite(window).maximumSize(maximumSize).build();
+  }
+
+  public void recordWrite(String code) {
+    if (enabled) {
+      recentWrites.put(ShortCodeCodec.key(code), Boolean.TRUE);
+    }
+  }
+
+  public boolean wasRecentlyWritten(String code) {
+    return enabled && recentWrites.getIfPresent(ShortCodeCodec.key(code)) != null;
+  }
+}
@@ -0,0 +1,218 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.model.ResolvedLink;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-process cache of resolved redirect state keyed by short code, packed into a {@code
+ * long} by {@link ShortCodeCodec#key} where possible. Unknown codes are cached as empty results
+ * with a shorter TTL so repeated misses do not reach the database. Hit, miss and eviction counts
+ * are published as {@code cache.*} meters under the name {@code redirects}.
+ *
+ * <p>Concurrent misses for one code share a single load, also with the cache disabled: the first
+ * caller runs it and the others wait up to {@code redirect.cache.load-timeout} for its result,
+ * counted in {@code urlshortener.redirect.loads.shared}. A failed load is not cached, and its
+ * exception is rethrown to every caller waiting on it. A load still running when its code is
+ * invalidated is not cached and not shared with later callers.
+ */
+@Component
+public class RedirectCache {
+  private final boolean enabled;
+  private final Duration loadTimeout;
+  private final Counter sharedLoads;
+  private final AsyncCache<Object, Optional<ResolvedLink>> cache;
+  private final ConcurrentMap<Object, CompletableFuture<Optional<ResolvedLink>>> uncachedLoads =
+      new ConcurrentHashMap<>();
+
+  public RedirectCache(
+      @Value("${redirect.cache.enabled:true}") boolean enabled,
+      @Value("${redirect.cache.maximum-size:100000}") long maximumSize,
+      @Value("${redirect.cache.ttl:PT10M}") Duration ttl,
+      @Value("${redirect.cache.negative-ttl:PT30S}") Duration negativeTtl,
+      @Value("${redirect.cache.load-timeout:PT5S}") Duration loadTimeout,
+      MeterRegistry meterRegistry) {
+    this.enabled = enabled;
+    this.loadTimeout = loadTimeout;
+    this.cache =
+        Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new ResultExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+            .recordStats()
+            .buildAsync();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "redirects");
+    this.sharedLoads =
+        Counter.builder("urlshortener.redirect.loads.shared")
+            .description("Redirect lookups that waited for a load started by another lookup")
+            .register(meterRegistry);
+  }
+
+  /**
+   * Returns the cached state for {@code code}, calling {@code loader} on a miss. A load already
+   * running for the same code is waited for instead; if it does not finish within the load timeout
+   * a {@link QueryTimeoutException} is thrown.
+   */
+  public Optional<ResolvedLink> get(String code, Function<String, Optional<ResolvedLink>> loader) {
+    CompletableFuture<Optional<ResolvedLink>> load = new CompletableFuture<>();
+    CompletableFuture<Optional<ResolvedLink>> shared = join(code, load);
+    if (shared != load) {
+      countShared(shared);
+      return await(code, shared);
+    }
+    try {
+      Optional<ResolvedLink> link = loader.apply(code);
+      load.complete(link);
+      return link;
+    } catch (RuntimeException | Error e) {
+      load.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Non-blocking variant of {@link #get}: {@code loader} starts the load and returns its result as
+   * a future, which callers missing on the same code meanwhile share. The returned future is
+   * shared, so callers must neither complete nor cancel it, and have to apply {@link
+   * #loadTimeout()} themselves.
+   */
+  public CompletableFuture<Optional<ResolvedLink>> getAsync(
+      String code, Function<String, CompletableFuture<Optional<ResolvedLink>>> loader) {
+    CompletableFuture<Optional<ResolvedLink>> load = new CompletableFuture<>();
+    CompletableFuture<Optional<ResolvedLink>> shared = join(code, load);
+    if (shared != load) {
+      countShared(shared);
+      return shared;
+    }
+    try {
+      loader
+          .apply(code)
+          .whenComplete(
+              (link, e) -> {
+                if (e == null) {
+                  load.complete(link);
+                } else {
+                  load.completeExceptionally(e);
+                }
+              });
+    } catch (RuntimeException | Error e) {
+      load.completeExceptionally(e);
+    }
+    return load;
+  }
+
+  /** How long a caller waits for a load started by another caller. */
+  public Duration loadTimeout() {
+    return loadTimeout;
+  }
+
+  /** Caches the resolved state of an existing link, for example when warming the cache. */
+  public void put(String code, ResolvedLink link) {
+    if (enabled) {
+      cache.put(ShortCodeCodec.key(code), CompletableFuture.completedFuture(Optional.of(link)));
+    }
+  }
+
+  public void invalidate(String code) {
+    Object key = ShortCodeCodec.key(code);
+    cache.synchronous().invalidate(key);
+    uncachedLoads.remove(key);
+  }
+
+  public void invalidateAll() {
+    cache.synchronous().invalidateAll();
+    uncachedLoads.clear();
+  }
+
+  static QueryTimeoutException loadTimedOut(String code) {
+    return new QueryTimeoutException("Timed out waiting for the lookup of short code " + code);
+  }
+
+  /**
+   * Registers {@code load} as the load of {@code code} unless a cached result or another load is
+   * present, and returns whichever is registered. Caffeine drops a failed load from the cache by
+   * itself; without the cache the load is only kept while it runs.
+   */
+  private CompletableFuture<Optional<ResolvedLink>> join(
+      String code, CompletableFuture<Optional<ResolvedLink>> load) {
+    Object key = ShortCodeCodec.key(code);
+    if (enabled) {
+      return cache.get(key, (k, executor) -> load);
+    }
+    CompletableFuture<Optional<ResolvedLink>> running = uncachedLoads.putIfAbsent(key, load);
+    if (running != null) {
+      return running;
+    }
+    load.whenComplete((link, e) -> uncachedLoads.remove(key, load));
+    return load;
+  }
+
+  private void countShared(CompletableFuture<Optional<ResolvedLink>> shared) {
+    if (!shared.isDone()) {
+      sharedLoads.increment();
+    }
+  }
+
+  private Optional<ResolvedLink> await(
+      String code, CompletableFuture<Optional<ResolvedLink>> load) {
+    try {
+      return load.get(loadTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      throw loadTimedOut(code);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      if (e.getCause() instanceof Error cause) {
+        throw cause;
+      }
+      throw new IllegalStateException("Lookup of short code " + code + " failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(
+          "Interrupted waiting for the lookup of short code " + code, e);
+    }
+  }
+
+  private static final class ResultExpiry implements Expiry<Object, Optional<ResolvedLink>> {
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    ResultExpiry(long ttlNanos, long negativeTtlNanos) {
+      this.ttlNanos = ttlNanos;
+      this.negativeTtlNanos = negativeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterCreate(Object code, Optional<ResolvedLink> value, long currentTime) {
+      return value.isPresent() ? ttlNanos : negativeTtlNanos;
+    }
+
+    @Override
+    public long expireAfterUpdate(
+        Object code, Optional<ResolvedLink> value, long currentTime, long currentDuration) {
+      return expireAfterCreate(code, value, currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(
+        Object code, Optional<ResolvedLink> value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+  }
+}
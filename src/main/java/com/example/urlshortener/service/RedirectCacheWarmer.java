@@ -0,0 +1,195 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.model.EncryptedUrl;
+import com.example.urlshortener.model.ResolvedLink;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Preloads the {@link RedirectCache} at startup with the most recently created links and the links
+ * clicked most often in the last {@code warmup.click-window}. Application runners complete before
+ * the application reports itself ready, so with {@code warmup.enabled} a new instance only takes
+ * traffic once the cache is warm or {@code warmup.time-budget} has run out, whichever comes first.
+ * Targets are decrypted in parallel on a dedicated fork-join pool.
+ */
+@Component
+public class RedirectCacheWarmer implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(RedirectCacheWarmer.class);
+  private static final String LINK_COLUMNS =
+      "l.code, l.target_url, l.target_bin, l.created_at, l.expiry_ts FROM links_core l";
+  private static final String LIVE =
+      "l.is_disabled = FALSE AND (l.expiry_ts IS NULL OR l.expiry_ts > ?)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final EncryptionService encryptionService;
+  private final RedirectCache redirectCache;
+  private final boolean enabled;
+  private final int recentLinks;
+  private final int topClickedLinks;
+  private final Duration clickWindow;
+  private final Duration timeBudget;
+  private final int parallelism;
+
+  public RedirectCacheWarmer(
+      JdbcTemplate jdbcTemplate,
+      EncryptionService encryptionService,
+      RedirectCache redirectCache,
+      @Value("${warmup.enabled:false}") boolean enabled,
+      @Value("${warmup.recent-links:10000}") int recentLinks,
+      @Value("${warmup.top-clicked-links:10000}") int topClickedLinks,
+      @Value("${warmup.click-window:P7D}") Duration clickWindow,
+      @Value("${warmup.time-budget:PT30S}") Duration timeBudget,
+      @Value("${warmup.parallelism:0}") int parallelism) {
+    this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+    this.jdbcTemplate.setFetchSize(1_000);
+    this.jdbcTemplate.setQueryTimeout((int) Math.max(1, timeBudget.toSeconds()));
+    this.encryptionService = encryptionService;
+    this.redirectCache = redirectCache;
+    this.enabled = enabled;
+    this.recentLinks = recentLinks;
+    this.topClickedLinks = topClickedLinks;
+    this.clickWindow = clickWindow;
+    this.timeBudget = timeBudget;
+    this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (enabled) {
+      warmUp();
+    }
+  }
+
+  /** Loads and caches the warm-up set, returning the number of links cached. */
+  public int warmUp() {
+    long start = System.nanoTime();
+    long deadline = start + timeBudget.toNanos();
+    Instant now = Instant.now();
+
+    // Most-clicked links first so they survive if the budget runs out
+    List<WarmupRow> rows = new ArrayList<>();
+    ShortCodeMap<WarmupRow> seen = new ShortCodeMap<>(topClickedLinks + recentLinks);
+    RowCallbackHandler collect =
+        rs -> {
+          WarmupRow row = WarmupRow.from(rs);
+          if (seen.putIfAbsent(row.code(), row) == null) {
+            rows.add(row);
+          }
+        };
+    if (topClickedLinks > 0) {
+      jdbcTemplate.query(
+          "SELECT "
+              + LINK_COLUMNS
+              + " JOIN (SELECT code, SUM(clicks) AS total FROM link_clicks"
+              + " WHERE bucket_start >= ? GROUP BY code ORDER BY total DESC LIMIT ?) c"
+              + " ON c.code = l.code WHERE "
+              + LIVE
+              + " ORDER BY c.total DESC",
+          collect,
+          Timestamp.from(now.minus(clickWindow)),
+          topClickedLinks,
+          Timestamp.from(now));
+    }
+    if (recentLinks > 0) {
+      jdbcTemplate.query(
+          "SELECT " + LINK_COLUMNS + " WHERE " + LIVE + " ORDER BY l.created_at DESC LIMIT ?",
+          collect,
+          Timestamp.from(now),
+          recentLinks);
+    }
+    log.info(
+        "Warming redirect cache with {} links ({} ms to load)",
+        rows.size(),
+        (System.nanoTime() - start) / 1_000_000);
+
+    int warmed = decryptAndCache(rows, deadline);
+    log.info(
+        "Warmed redirect cache with {} of {} links in {} ms",
+        warmed,
+        rows.size(),
+        (System.nanoTime() - start) / 1_000_000);
+    return warmed;
+  }
+
+  private int decryptAndCache(List<WarmupRow> rows, long deadline) {
+    AtomicInteger warmed = new AtomicInteger();
+    int progressStep = Math.max(1, rows.size() / 10);
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      // A parallel stream started from a pool task runs on that pool's workers
+      Future<?> task =
+          pool.submit(
+              () ->
+                  rows.parallelStream()
+                      .forEach(row -> warm(row, deadline, warmed, rows.size(), progressStep)));
+      task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      log.warn("Redirect cache warm-up ran out of its {} budget", timeBudget);
+    } catch (ExecutionException e) {
+      log.warn("Redirect cache warm-up failed", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      pool.shutdownNow();
+    }
+    return warmed.get();
+  }
+
+  private void warm(
+      WarmupRow row, long deadline, AtomicInteger warmed, int total, int progressStep) {
+    if (System.nanoTime() - deadline > 0) {
+      return;
+    }
+    try {
+      redirectCache.put(row.code(), resolve(row));
+    } catch (RuntimeException e) {
+      // Left to be loaded, and to fail, on first use
+      log.debug("Skipping {} during warm-up: {}", row.code(), e.getMessage());
+      return;
+    }
+    int count = warmed.incrementAndGet();
+    if (count % progressStep == 0) {
+      log.info("Warmed {} of {} links", count, total);
+    }
+  }
+
+  private ResolvedLink resolve(WarmupRow row) {
+    return new ResolvedLink(
+        row.code(),
+        encryptionService.decrypt(row.encryptedUrl()),
+        row.createdAt(),
+        row.expiry(),
+        false);
+  }
+
+  private record WarmupRow(
+      String code, EncryptedUrl encryptedUrl, Instant createdAt, Instant expiry) {
+    static WarmupRow from(ResultSet rs) throws SQLException {
+      Timestamp expiry = rs.getTimestamp("expiry_ts");
+      return new WarmupRow(
+          rs.getString("code"),
+          new EncryptedUrl(rs.getString("target_url"), rs.getBytes("target_bin")),
+          rs.getTimestamp("created_at").toInstant(),
+          expiry != null ? expiry.toInstant() : null);
+    }
+  }
+}
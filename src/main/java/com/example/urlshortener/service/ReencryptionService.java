@@ -0,0 +1,274 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.dto.ReencryptionStatus;
+import com.example.urlshortener.model.EncryptedUrl;
+import com.example.urlshortener.repository.LinkShards;
+import com.example.urlshortener.repository.LinkShards.Shard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Background job that rewrites every target URL not yet encrypted with the active key, or not yet
+ * in the {@code encryption.storage} form, which also makes it the online migration between the
+ * {@code target_url} and {@code target_bin} columns. It walks {@code links_core} on each shard in
+ * primary-key order one batch at a time, re-encrypts each batch on a pool of {@code
+ * reencryption.parallelism} workers, and writes it back with one batched UPDATE per batch that only
+ * applies if the stored ciphertext is still the one that was read. The job sleeps as needed to stay
+ * under {@code reencryption.max-rows-per-second} so live traffic keeps its share of the database.
+ *
+ * <p>Progress is published as {@code urlshortener.reencryption.rows} (tagged by outcome) and {@code
+ * urlshortener.reencryption.progress}, and is returned by {@link #status()}.
+ */
+@Service
+public class ReencryptionService {
+  private static final Logger log = LoggerFactory.getLogger(ReencryptionService.class);
+
+  private final LinkShards linkShards;
+  private final EncryptionService encryptionService;
+  private final int batchSize;
+  private final int parallelism;
+  private final int maxRowsPerSecond;
+  private final Counter rewrittenCounter;
+  private final Counter skippedCounter;
+  private final Counter failedCounter;
+
+  private final AtomicBoolean running = new AtomicBoolean();
+  private final AtomicLong scanned = new AtomicLong();
+  private final AtomicLong rewritten = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private volatile long totalRows;
+  private volatile Instant startedAt;
+  private volatile Instant finishedAt;
+  private volatile Thread worker;
+
+  public ReencryptionService(
+      LinkShards linkShards,
+      EncryptionService encryptionService,
+      MeterRegistry meterRegistry,
+      @Value("${reencryption.batch-size:500}") int batchSize,
+      @Value("${reencryption.parallelism:2}") int parallelism,
+      @Value("${reencryption.max-rows-per-second:2000}") int maxRowsPerSecond) {
+    if (batchSize < 1 || parallelism < 1 || maxRowsPerSecond < 1) {
+      throw new IllegalArgumentException(
+          "Re-encryption batch size, parallelism and rate must be positive");
+    }
+    this.linkShards = linkShards;
+    this.encryptionService = encryptionService;
+    this.batchSize = batchSize;
+    this.parallelism = parallelism;
+    this.maxRowsPerSecond = maxRowsPerSecond;
+    this.rewrittenCounter = rowCounter(meterRegistry, "rewritten");
+    this.skippedCounter = rowCounter(meterRegistry, "skipped");
+    this.failedCounter = rowCounter(meterRegistry, "failed");
+    Gauge.builder("urlshortener.reencryption.progress", this, ReencryptionService::progress)
+        .description("Fraction of links scanned by the running or last re-encryption job")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Starts a re-encryption run in the background unless one is already running, and returns the
+   * current status either way.
+   */
+  public ReencryptionStatus start() {
+    if (running.compareAndSet(false, true)) {
+      scanned.set(0);
+      rewritten.set(0);
+      failed.set(0);
+      startedAt = Instant.now();
+      finishedAt = null;
+      worker = new Thread(this::runSafely, "reencryption");
+      worker.setDaemon(true);
+      worker.start();
+    }
+    return status();
+  }
+
+  public ReencryptionStatus status() {
+    return new ReencryptionStatus(
+        running.get(),
+        totalRows,
+        scanned.get(),
+        rewritten.get(),
+        failed.get(),
+        startedAt,
+        finishedAt);
+  }
+
+  /** Runs re-encryption on the calling thread and returns the number of rows rewritten. */
+  long run() {
+    long rows = 0;
+    for (Shard shard : linkShards.all()) {
+      Long count =
+          shard.jdbcTemplate().queryForObject("SELECT COUNT(*) FROM links_core", Long.class);
+      rows += count != null ? count : 0;
+    }
+    totalRows = rows;
+    log.info("Re-encrypting up to {} links", totalRows);
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      long start = System.nanoTime();
+      for (Shard shard : linkShards.all()) {
+        reencryptShard(shard, pool, start);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Re-encryption failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    log.info(
+        "Re-encryption scanned {} links, rewrote {}, failed {}",
+        scanned.get(),
+        rewritten.get(),
+        failed.get());
+    return rewritten.get();
+  }
+
+  private void reencryptShard(Shard shard, ForkJoinPool pool, long start)
+      throws InterruptedException, ExecutionException {
+    JdbcTemplate jdbcTemplate = shard.jdbcTemplate();
+    String lastCode = "";
+    while (!Thread.currentThread().isInterrupted()) {
+      List<Row> batch =
+          jdbcTemplate.query(
+              "SELECT code, target_url, target_bin FROM links_core"
+                  + " WHERE code > ? ORDER BY code LIMIT ?",
+              (rs, rowNum) ->
+                  new Row(rs.getString(1), new EncryptedUrl(rs.getString(2), rs.getBytes(3))),
+              lastCode,
+              batchSize);
+      if (batch.isEmpty()) {
+        break;
+      }
+      lastCode = batch.get(batch.size() - 1).code();
+      scanned.addAndGet(batch.size());
+
+      List<Object[]> updates = pool.submit(() -> reencrypt(batch)).get();
+      skippedCounter.increment(batch.size() - updates.size());
+      updates.removeIf(Objects::isNull);
+      write(shard, updates);
+
+      throttle(start);
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    Thread thread = worker;
+    if (thread != null) {
+      thread.interrupt();
+    }
+  }
+
+  private void runSafely() {
+    try {
+      run();
+    } catch (RuntimeException e) {
+      log.error("Re-encryption stopped", e);
+    } finally {
+      finishedAt = Instant.now();
+      running.set(false);
+    }
+  }
+
+  /** Returns the UPDATE arguments for each row to rewrite, or null for each row that failed. */
+  private List<Object[]> reencrypt(List<Row> batch) {
+    return batch.parallelStream()
+        .filter(row -> !encryptionService.isInStorageForm(row.ciphertext()))
+        .map(this::reencryptRow)
+        .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+  }
+
+  private Object[] reencryptRow(Row row) {
+    try {
+      EncryptedUrl reencrypted = encryptionService.reencrypt(row.ciphertext());
+      return new Object[] {
+        reencrypted.text(),
+        reencrypted.binary(),
+        row.code(),
+        row.ciphertext().text(),
+        row.ciphertext().binary()
+      };
+    } catch (RuntimeException e) {
+      log.warn("Cannot re-encrypt {}: {}", row.code(), e.getMessage());
+      failed.incrementAndGet();
+      failedCounter.increment();
+      return null;
+    }
+  }
+
+  private void write(Shard shard, List<Object[]> updates) {
+    if (updates.isEmpty()) {
+      return;
+    }
+    JdbcTemplate jdbcTemplate = shard.jdbcTemplate();
+    TransactionTemplate transactionTemplate = shard.transactions();
+    int[][] counts =
+        transactionTemplate.execute(
+            status ->
+                jdbcTemplate.batchUpdate(
+                    // Rows changed since they were read are left for the next run
+                    "UPDATE links_core SET target_url = ?, target_bin = ? WHERE code = ?"
+                        + " AND target_url IS NOT DISTINCT FROM ?"
+                        + " AND target_bin IS NOT DISTINCT FROM ?",
+                    updates,
+                    updates.size(),
+                    (ps, update) -> {
+                      ps.setString(1, (String) update[0]);
+                      ps.setBytes(2, (byte[]) update[1]);
+                      ps.setString(3, (String) update[2]);
+                      ps.setString(4, (String) update[3]);
+                      ps.setBytes(5, (byte[]) update[4]);
+                    }));
+    int updated = 0;
+    for (int[] chunk : counts) {
+      for (int count : chunk) {
+        updated += count > 0 ? 1 : 0;
+      }
+    }
+    rewritten.addAndGet(updated);
+    rewrittenCounter.increment(updated);
+    skippedCounter.increment(updates.size() - updated);
+  }
+
+  private void throttle(long startNanos) throws InterruptedException {
+    long targetNanos = scanned.get() * TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond;
+    long aheadNanos = targetNanos - (System.nanoTime() - startNanos);
+    if (aheadNanos > 0) {
+      TimeUnit.NANOSECONDS.sleep(aheadNanos);
+    }
+  }
+
+  private double progress() {
+    long total = totalRows;
+    return total == 0 ? 0 : Math.min(1.0, (double) scanned.get() / total);
+  }
+
+  private static Counter rowCounter(MeterRegistry meterRegistry, String outcome) {
+    return Counter.builder("urlshortener.reencryption.rows")
+        .description("Links processed by the re-encryption job")
+        .tag("outcome", outcome)
+        .register(meterRegistry);
+  }
+
+  private record Row(String code, EncryptedUrl ciphertext) {}
+}
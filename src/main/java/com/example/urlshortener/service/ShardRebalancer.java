@@ -0,0 +1,223 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.repository.LinkShards;
+import com.example.urlshortener.repository.LinkShards.Shard;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Moves rows to the shard that owns them after shards were added, while the application keeps
+ * serving. Each run walks {@code links_core} on every shard in code order, {@code
+ * sharding.rebalance.batch-size} codes at a time, pausing between batches. Rows another shard now
+ * owns are locked on the source shard, copied to their owner and deleted before the lock is
+ * released, so concurrent changes to a row wait for its move. Until a row has moved, lookups find
+ * it through {@link LinkShards#previousOwner}.
+ *
+ * <p>A copy only inserts rows the target does not have yet: a row already there is either left by a
+ * move that failed after copying, or a newer row written to the new owner, and wins in both cases.
+ * Once a run finds nothing left to move it logs that {@code sharding.previous-shards} can be
+ * removed and stops scanning.
+ */
+@Component
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardRebalancer {
+  private static final Logger log = LoggerFactory.getLogger(ShardRebalancer.class);
+  private static final String COLUMNS =
+      "code, target_url, target_bin, url_hmac, created_at, expiry_ts, is_disabled, disabled_at";
+
+  private final LinkShards linkShards;
+  private final ShortCodeFilter shortCodeFilter;
+  private final int batchSize;
+  private final Duration pauseBetweenBatches;
+  private final Counter movedCounter;
+
+  private volatile boolean complete;
+
+  public ShardRebalancer(
+      LinkShards linkShards,
+      ShortCodeFilter shortCodeFilter,
+      MeterRegistry meterRegistry,
+      @Value("${sharding.rebalance.batch-size:500}") int batchSize,
+      @Value("${sharding.rebalance.pause-between-batches:PT0.1S}") Duration pauseBetweenBatches) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Rebalance batch size must be positive");
+    }
+    this.linkShards = linkShards;
+    this.shortCodeFilter = shortCodeFilter;
+    this.batchSize = batchSize;
+    this.pauseBetweenBatches = pauseBetweenBatches;
+    this.movedCounter =
+        Counter.builder("urlshortener.sharding.rebalance.moved")
+            .description("Links moved to the shard that owns them")
+            .register(meterRegistry);
+  }
+
+  @Scheduled(
+      fixedDelayString = "${sharding.rebalance.interval:PT1M}",
+      initialDelayString = "${sharding.rebalance.interval:PT1M}")
+  public void run() {
+    if (linkShards.isRebalancing() && !complete) {
+      rebalance();
+    }
+  }
+
+  /** Moves every misplaced row to its owner and returns how many were moved. */
+  public long rebalance() {
+    long start = System.nanoTime();
+    long moved = 0;
+    boolean interrupted = false;
+    for (Shard shard : linkShards.all()) {
+      moved += rebalance(shard);
+      if (Thread.currentThread().isInterrupted()) {
+        interrupted = true;
+        break;
+      }
+    }
+    if (moved > 0) {
+      log.info(
+          "Moved {} links between shards in {} ms", moved, (System.nanoTime() - start) / 1_000_000);
+    } else if (!interrupted) {
+      complete = true;
+      log.info("Shard rebalancing is complete; sharding.previous-shards can be removed");
+    }
+    return moved;
+  }
+
+  private long rebalance(Shard source) {
+    String lastCode = "";
+    long moved = 0;
+    while (true) {
+      List<String> codes =
+          source
+              .jdbcTemplate()
+              .queryForList(
+                  "SELECT code FROM links_core WHERE code > ? ORDER BY code LIMIT ?",
+                  String.class,
+                  lastCode,
+                  batchSize);
+      if (codes.isEmpty()) {
+        break;
+      }
+      lastCode = codes.get(codes.size() - 1);
+
+      List<String> misplaced =
+          codes.stream().filter(code -> linkShards.owner(code) != source).toList();
+      if (!misplaced.isEmpty()) {
+        int count = move(source, misplaced);
+        moved += count;
+        movedCounter.increment(count);
+      }
+      if (codes.size() < batchSize || !pause()) {
+        break;
+      }
+    }
+    return moved;
+  }
+
+  private int move(Shard source, List<String> codes) {
+    JdbcTemplate jdbcTemplate = source.jdbcTemplate();
+    TransactionTemplate transactionTemplate = source.transactions();
+    List<String> moved =
+        transactionTemplate.execute(
+            status -> {
+              List<Row> rows =
+                  jdbcTemplate.query(
+                      "SELECT "
+                          + COLUMNS
+                          + " FROM links_core WHERE code IN ("
+                          + placeholders(codes.size())
+                          + ") FOR UPDATE",
+                      (rs, rowNum) ->
+                          new Row(
+                              rs.getString(1),
+                              rs.getString(2),
+                              rs.getBytes(3),
+                              rs.getBytes(4),
+                              rs.getTimestamp(5),
+                              rs.getTimestamp(6),
+                              rs.getBoolean(7),
+                              rs.getTimestamp(8)),
+                      codes.toArray());
+              if (rows.isEmpty()) {
+                return List.<String>of();
+              }
+
+              linkShards.byOwner(rows, Row::code).forEach(ShardRebalancer::copy);
+              List<String> locked = rows.stream().map(Row::code).toList();
+              jdbcTemplate.update(
+                  "DELETE FROM links_core WHERE code IN (" + placeholders(locked.size()) + ")",
+                  locked.toArray());
+              return locked;
+            });
+    if (moved == null) {
+      return 0;
+    }
+    // A filter rebuild may have read the source before and the target after the move
+    moved.forEach(shortCodeFilter::add);
+    return moved.size();
+  }
+
+  private static void copy(Shard target, List<Row> rows) {
+    JdbcTemplate jdbcTemplate = target.jdbcTemplate();
+    List<String> codes = rows.stream().map(Row::code).toList();
+    Set<String> present =
+        new HashSet<>(
+            jdbcTemplate.queryForList(
+                "SELECT code FROM links_core WHERE code IN (" + placeholders(codes.size()) + ")",
+                String.class,
+                codes.toArray()));
+    List<Object[]> args =
+        rows.stream().filter(row -> !present.contains(row.code())).map(Row::args).toList();
+    if (args.isEmpty()) {
+      return;
+    }
+    // A row inserted on the target meanwhile fails the batch; the move is retried next run
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO links_core (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)", args);
+  }
+
+  private boolean pause() {
+    try {
+      Thread.sleep(pauseBetweenBatches);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private static String placeholders(int count) {
+    return String.join(",", Collections.nCopies(count, "?"));
+  }
+
+  private record Row(
+      String code,
+      String targetUrl,
+      byte[] targetBin,
+      byte[] urlHmac,
+      Timestamp createdAt,
+      Timestamp expiry,
+      boolean disabled,
+      Timestamp disabledAt) {
+
+    Object[] args() {
+      return new Object[] {
+        code, targetUrl, targetBin, urlHmac, createdAt, expiry, disabled, disabledAt
+      };
+    }
+  }
+}
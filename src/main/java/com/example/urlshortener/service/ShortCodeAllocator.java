@@ -0,0 +1,111 @@
+package com.example.urlshortener.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Hands out unique short codes without probing the database. Each node reserves a block of IDs from
+ * the {@code code_ranges} table in a short transaction of its own and serves codes from that block
+ * in memory; IDs are mapped to fixed-length Base62 codes, optionally scrambled by a keyed {@link
+ * ShortCodePermutation} so consecutive codes are not guessable.
+ *
+ * <p>IDs left in a block when a node stops are never reused, which only wastes keyspace.
+ */
+@Component
+public class ShortCodeAllocator {
+  static final String BASE62_CHARS =
+      "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+  private static final String RANGE_NAME = "links_core";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int blockSize;
+  private final int codeLength;
+  private final long capacity;
+  private final ShortCodePermutation permutation;
+
+  // A lock rather than synchronized so waiting virtual threads do not pin their carrier
+  private final ReentrantLock lock = new ReentrantLock();
+  private long nextId;
+  private long blockEnd;
+
+  public ShortCodeAllocator(
+      JdbcTemplate jdbcTemplate,
+      PlatformTransactionManager transactionManager,
+      @Value("${shortcode.block-size:1000}") int blockSize,
+      @Value("${shortcode.length:6}") int codeLength,
+      @Value("${shortcode.scramble:true}") boolean scramble,
+      @Value("${shortcode.scramble-key:url-shortener}") String scrambleKey) {
+    if (blockSize < 1) {
+      throw new IllegalArgumentException("Short code block size must be positive");
+    }
+    if (codeLength < 1 || codeLength > 10) {
+      throw new IllegalArgumentException("Short code length must be between 1 and 10");
+    }
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.blockSize = blockSize;
+    this.codeLength = codeLength;
+    long space = 1;
+    for (int i = 0; i < codeLength; i++) {
+      space *= BASE62_CHARS.length();
+    }
+    this.capacity = space;
+    this.permutation = scramble ? new ShortCodePermutation(capacity, scrambleKey) : null;
+  }
+
+  public String nextCode() {
+    return encode(nextId());
+  }
+
+  long nextId() {
+    lock.lock();
+    try {
+      if (nextId >= blockEnd) {
+        reserveBlock();
+      }
+      return nextId++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  String encode(long id) {
+    long value = permutation != null ? permutation.apply(id) : id;
+    char[] chars = new char[codeLength];
+    for (int i = codeLength - 1; i >= 0; i--) {
+      chars[i] = BASE62_CHARS.charAt((int) (value % BASE62_CHARS.length()));
+      value /= BASE62_CHARS.length();
+    }
+    return new String(chars);
+  }
+
+  private void reserveBlock() {
+    Long end =
+        transactionTemplate.execute(
+            status -> {
+              int updated =
+                  jdbcTemplate.update(
+                      "UPDATE code_ranges SET next_id = next_id + ? WHERE name = ?",
+                      blockSize,
+                      RANGE_NAME);
+              if (updated != 1) {
+                throw new IllegalStateException("Code range '" + RANGE_NAME + "' is missing");
+              }
+              return jdbcTemplate.queryForObject(
+                  "SELECT next_id FROM code_ranges WHERE name = ?", Long.class, RANGE_NAME);
+            });
+    long start = end - blockSize;
+    if (start >= capacity) {
+      throw new IllegalStateException("Short code space of length " + codeLength + " is exhausted");
+    }
+    nextId = start;
+    blockEnd = Math.min(end, capacity);
+  }
+}
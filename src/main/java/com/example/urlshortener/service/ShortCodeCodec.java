@@ -0,0 +1,70 @@
+package com.example.urlshortener.service;
+
+import java.util.Arrays;
+
+/**
+ * Packs short codes into a {@code long} so in-process indexes can be keyed by primitives instead of
+ * strings. A code of at most {@link #MAX_LENGTH} characters from the Base62 alphabet plus {@code -}
+ * and {@code _}, which covers every generated code and most custom aliases, is stored as 6 bits per
+ * character with its length in the top 4 bits. Distinct codes pack to distinct values, and {@link
+ * #unpack} restores the code. Any other code packs to {@link #NOT_PACKED} and has to be kept as a
+ * string.
+ */
+final class ShortCodeCodec {
+  static final long NOT_PACKED = -1;
+  static final int MAX_LENGTH = 10;
+
+  private static final String ALPHABET = ShortCodeAllocator.BASE62_CHARS + "-_";
+  private static final byte[] DIGITS = new byte[128];
+
+  static {
+    Arrays.fill(DIGITS, (byte) -1);
+    for (int i = 0; i < ALPHABET.length(); i++) {
+      DIGITS[ALPHABET.charAt(i)] = (byte) i;
+    }
+  }
+
+  private ShortCodeCodec() {}
+
+  /** Returns {@code code} packed into a {@code long}, or {@link #NOT_PACKED} if it does not fit. */
+  static long pack(String code) {
+    int length = code.length();
+    if (length > MAX_LENGTH) {
+      return NOT_PACKED;
+    }
+    long bits = 0;
+    for (int i = 0; i < length; i++) {
+      char c = code.charAt(i);
+      int digit = c < DIGITS.length ? DIGITS[c] : -1;
+      if (digit < 0) {
+        return NOT_PACKED;
+      }
+      bits = bits << 6 | digit;
+    }
+    return (long) length << 60 | bits;
+  }
+
+  static String unpack(long packed) {
+    int length = (int) (packed >>> 60);
+    if (length > MAX_LENGTH) {
+      throw new IllegalArgumentException("Not a packed short code: " + packed);
+    }
+    char[] chars = new char[length];
+    long bits = packed;
+    for (int i = length - 1; i >= 0; i--) {
+      chars[i] = ALPHABET.charAt((int) (bits & 0x3F));
+      bits >>>= 6;
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Returns a key for {@code code} in an object-keyed cache: the packed code, whose boxed {@link
+   * Long} is smaller and cheaper to hash and compare than the string, or the code itself if it does
+   * not pack. The two kinds never equal each other.
+   */
+  static Object key(String code) {
+    long packed = pack(code);
+    return packed != NOT_PACKED ? (Object) packed : code;
+  }
+}
@@ -0,0 +1,136 @@
+package com.example.urlshortener.service;
+
+import com.example.urlshortener.repository.LinkShards;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory Bloom filter over every short code in {@code links_core} and {@code links_archive},
+ * used to answer "definitely not present" for unknown codes without a database round trip. Reaped
+ * codes stay in it because they stay reserved as aliases. The filter is built at startup by
+ * streaming the {@code code} columns of every shard and rebuilt periodically, sized for the current
+ * number of codes. Until the first build completes every code is reported as possibly present.
+ *
+ * <p>New codes are added when they are persisted, through {@code UrlMappingChangeListener}, and
+ * again after the transaction commits. A code added while a rebuild is running goes into both the
+ * current and the new filter, so the swap never loses it. Codes written directly with SQL bypass
+ * the listener and must be passed to {@link #add}.
+ */
+@Component
+public class ShortCodeFilter implements ApplicationRunner {
+  private static final Logger log = LoggerFactory.getLogger(ShortCodeFilter.class);
+  private static final List<String> TABLES = List.of("links_core", "links_archive");
+
+  private final List<JdbcTemplate> streamingJdbcTemplates;
+  private final boolean enabled;
+  private final double falsePositiveRate;
+  private final long minimumCapacity;
+
+  private volatile BloomFilter current;
+  private volatile BloomFilter building;
+
+  public ShortCodeFilter(
+      LinkShards linkShards,
+      MeterRegistry meterRegistry,
+      @Value("${shortcode.filter.enabled:true}") boolean enabled,
+      @Value("${shortcode.filter.false-positive-rate:0.01}") double falsePositiveRate,
+      @Value("${shortcode.filter.minimum-capacity:1000000}") long minimumCapacity) {
+    this.streamingJdbcTemplates =
+        linkShards.all().stream()
+            .map(
+                shard -> {
+                  JdbcTemplate template = new JdbcTemplate(shard.jdbcTemplate().getDataSource());
+                  template.setFetchSize(10_000);
+                  return template;
+                })
+            .toList();
+    this.enabled = enabled;
+    this.falsePositiveRate = falsePositiveRate;
+    this.minimumCapacity = minimumCapacity;
+    Gauge.builder("urlshortener.shortcode.filter.size", this, ShortCodeFilter::sizeInBytes)
+        .description("Memory used by the short code Bloom filter")
+        .baseUnit("bytes")
+        .register(meterRegistry);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    rebuild();
+  }
+
+  /** Returns {@code false} only if no mapping with {@code code} exists or was archived. */
+  public boolean mightContain(String code) {
+    BloomFilter filter = current;
+    return filter == null || filter.mightContain(code);
+  }
+
+  public void add(String code) {
+    // Read the filter under construction first. Committed codes are added again after the commit,
+    // so if it is null here either the rebuild has not started and will read the code from the
+    // table, or it has finished and current is already the new filter.
+    BloomFilter next = building;
+    BloomFilter filter = current;
+    if (filter != null) {
+      filter.put(code);
+    }
+    if (next != null) {
+      next.put(code);
+    }
+  }
+
+  /** Builds a new filter from {@code links_core} and {@code links_archive} and swaps it in. */
+  @Scheduled(
+      fixedDelayString = "${shortcode.filter.rebuild-interval:PT1H}",
+      initialDelayString = "${shortcode.filter.rebuild-interval:PT1H}")
+  public void rebuild() {
+    if (!enabled) {
+      return;
+    }
+    long start = System.nanoTime();
+    long rows = 0;
+    for (JdbcTemplate template : streamingJdbcTemplates) {
+      for (String table : TABLES) {
+        Long count = template.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+        rows += count != null ? count : 0;
+      }
+    }
+    // Leave room for the codes created before the next rebuild
+    long capacity = Math.max(minimumCapacity, 2 * rows);
+    BloomFilter next = new BloomFilter(capacity, falsePositiveRate);
+
+    building = next;
+    try {
+      for (JdbcTemplate template : streamingJdbcTemplates) {
+        for (String table : TABLES) {
+          template.query(
+              "SELECT code FROM " + table, (RowCallbackHandler) rs -> next.put(rs.getString(1)));
+        }
+      }
+      current = next;
+    } finally {
+      building = null;
+    }
+
+    log.info(
+        "Built short code filter over {} codes ({} KiB, {} hashes) in {} ms",
+        rows,
+        next.sizeInBytes() / 1024,
+        next.hashCount(),
+        (System.nanoTime() - start) / 1_000_000);
+  }
+
+  private double sizeInBytes() {
+    BloomFilter filter = current;
+    return filter != null ? filter.sizeInBytes() : 0;
+  }
+}
@@ -0,0 +1,48 @@
+package com.example.urlshortener.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Map keyed by short code for in-process indexes. Codes {@link ShortCodeCodec} can pack, which is
+ * every generated code, are kept as primitive keys in a {@link LongObjectHashMap}; only the other
+ * custom aliases are kept as strings. Values must not be {@code null}. Not thread-safe.
+ */
+final class ShortCodeMap<V> {
+  private final LongObjectHashMap<V> packed;
+  private final Map<String, V> unpacked = new HashMap<>();
+
+  ShortCodeMap() {
+    this(16);
+  }
+
+  ShortCodeMap(int expectedSize) {
+    this.packed = new LongObjectHashMap<>(expectedSize);
+  }
+
+  int size() {
+    return packed.size() + unpacked.size();
+  }
+
+  V get(String code) {
+    long key = ShortCodeCodec.pack(code);
+    return key != ShortCodeCodec.NOT_PACKED ? packed.get(key) : unpacked.get(code);
+  }
+
+  V put(String code, V value) {
+    long key = ShortCodeCodec.pack(code);
+    return key != ShortCodeCodec.NOT_PACKED ? packed.put(key, value) : unpacked.put(code, value);
+  }
+
+  V putIfAbsent(String code, V value) {
+    long key = ShortCodeCodec.pack(code);
+    return key != ShortCodeCodec.NOT_PACKED
+        ? packed.putIfAbsent(key, value)
+        : unpacked.putIfAbsent(code, value);
+  }
+
+  V remove(String code) {
+    long key = ShortCodeCodec.pack(code);
+    return key != ShortCodeCodec.NOT_PACKED ? packed.remove(key) : unpacked.remove(code);
+  }
+}
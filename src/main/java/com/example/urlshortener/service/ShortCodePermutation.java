@@ -0,0 +1,79 @@
+package com.example.urlshortener.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keyed bijection on {@code [0, domain)} used to turn sequential IDs into non-sequential short
+ * codes. A four-round balanced Feistel network permutes the smallest even-width bit space that
+ * covers the domain, and cycle-walking maps values that land outside the domain back into it.
+ *
+ * <p>The permutation only depends on the domain and the key, so every node sharing the same key
+ * maps an ID to the same code. Changing the key after codes have been issued makes new codes
+ * collide with old ones.
+ */
+class ShortCodePermutation {
+  private static final int ROUNDS = 4;
+
+  private final long domain;
+  private final int halfBits;
+  private final long halfMask;
+  private final long[] roundKeys = new long[ROUNDS];
+
+  ShortCodePermutation(long domain, String key) {
+    if (domain < 2) {
+      throw new IllegalArgumentException("Permutation domain must contain at least two values");
+    }
+    this.domain = domain;
+    int bits = 64 - Long.numberOfLeadingZeros(domain - 1);
+    this.halfBits = (bits + 1) / 2;
+    this.halfMask = (1L << halfBits) - 1;
+
+    ByteBuffer digest = ByteBuffer.wrap(sha256(key));
+    for (int i = 0; i < ROUNDS; i++) {
+      roundKeys[i] = digest.getLong();
+    }
+  }
+
+  long apply(long value) {
+    if (value < 0 || value >= domain) {
+      throw new IllegalArgumentException("Value " + value + " is outside [0, " + domain + ")");
+    }
+    long result = value;
+    do {
+      result = encrypt(result);
+    } while (result >= domain);
+    return result;
+  }
+
+  private long encrypt(long value) {
+    long left = value >>> halfBits;
+    long right = value & halfMask;
+    for (long roundKey : roundKeys) {
+      long next = left ^ (mix(right ^ roundKey) & halfMask);
+      left = right;
+      right = next;
+    }
+    return (left << halfBits) | right;
+  }
+
+  // MurmurHash3 64-bit finalizer
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xff51afd7ed558ccdL;
+    value ^= value >>> 33;
+    value *= 0xc4ceb9fe1a85ec53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  private static byte[] sha256(String key) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,118 @@
+package com.example.urlshortener.service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Locale;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keyed HMAC-SHA256 of a normalised long URL, stored in {@code links_core.url_hmac} so identical
+ * URLs can be found with one indexed lookup even though their ciphertexts differ. The key keeps the
+ * column from being usable as a dictionary of known URLs. Only active with {@code dedup.enabled}.
+ */
+@Component
+public class UrlFingerprinter {
+  private static final Logger log = LoggerFactory.getLogger(UrlFingerprinter.class);
+  private static final String ALGORITHM = "HmacSHA256";
+
+  private final boolean enabled;
+  private final SecretKeySpec key;
+
+  // Mac.getInstance performs a provider lookup on every call; doFinal resets the instance
+  private final InstancePool<Mac> macs;
+
+  public UrlFingerprinter(
+      @Value("${dedup.enabled:false}") boolean enabled,
+      @Value("${dedup.hmac-key:}") String hmacKey) {
+    this.enabled = enabled;
+    byte[] keyBytes;
+    if (hmacKey == null || hmacKey.isEmpty()) {
+      keyBytes = new byte[32];
+      new SecureRandom().nextBytes(keyBytes);
+      if (enabled) {
+        log.warn("No dedup.hmac-key configured; URLs will only be deduplicated until restart");
+      }
+    } else {
+      keyBytes = Base64.getDecoder().decode(hmacKey);
+      if (keyBytes.length < 32) {
+        throw new IllegalArgumentException("Dedup HMAC key must be at least 32 bytes");
+      }
+    }
+    this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+    this.macs = new InstancePool<>(this::newMac, Runtime.getRuntime().availableProcessors() * 2);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Returns the fingerprint of {@code url}, or {@code null} when deduplication is disabled. */
+  public byte[] fingerprint(String url) {
+    if (!enabled) {
+      return null;
+    }
+    Mac mac = macs.borrow();
+    try {
+      return mac.doFinal(normalize(url).getBytes(StandardCharsets.UTF_8));
+    } finally {
+      macs.release(mac);
+    }
+  }
+
+  /**
+   * Normalises the parts of a URL that do not change what it points to: the case of the scheme and
+   * host, a default port and an empty path. The path, query and fragment are kept as given.
+   */
+  static String normalize(String url) {
+    URI uri;
+    try {
+      uri = new URI(url);
+    } catch (URISyntaxException e) {
+      return url;
+    }
+    if (uri.getScheme() == null || uri.getRawAuthority() == null || uri.getHost() == null) {
+      return url;
+    }
+    String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+    int port = uri.getPort();
+    boolean defaultPort =
+        ("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443);
+
+    StringBuilder normalized = new StringBuilder(url.length()).append(scheme).append("://");
+    if (uri.getRawUserInfo() != null) {
+      normalized.append(uri.getRawUserInfo()).append('@');
+    }
+    normalized.append(uri.getHost().toLowerCase(Locale.ROOT));
+    if (port != -1 && !defaultPort) {
+      normalized.append(':').append(port);
+    }
+    String path = uri.getRawPath();
+    normalized.append(path == null || path.isEmpty() ? "/" : path);
+    if (uri.getRawQuery() != null) {
+      normalized.append('?').append(uri.getRawQuery());
+    }
+    if (uri.getRawFragment() != null) {
+      normalized.append('#').append(uri.getRawFragment());
+    }
+    return normalized.toString();
+  }
+
+  private Mac newMac() {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(ALGORITHM + " is not available", e);
+    }
+  }
+}
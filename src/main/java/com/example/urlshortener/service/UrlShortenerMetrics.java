@@ -0,0 +1,74 @@
+package com.example.urlshortener.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per-stage latency timers for the redirect and shorten paths, published as {@code
+ * urlshortener.stage} with a {@code stage} tag. Timers are registered once up front and recorded
+ * with {@link System#nanoTime()} deltas, so the hot path does no meter lookups and no allocation.
+ * Histogram buckets and percentiles are enabled per profile through {@code
+ * management.metrics.distribution.*}.
+ */
+@Component
+public class UrlShortenerMetrics {
+  static final String STAGE_TIMER = "urlshortener.stage";
+
+  public enum Stage {
+    REDIRECT("redirect"),
+    SHORTEN("shorten"),
+    METADATA("metadata"),
+    VALIDATE("validate"),
+    FIND_BY_SHORT_CODE("findByShortCode"),
+    EXISTS_BY_SHORT_CODE("existsByShortCode"),
+    FIND_BY_URL_HMAC("findByUrlHmac"),
+    PERSIST("persist");
+
+    private final String tag;
+
+    Stage(String tag) {
+      this.tag = tag;
+    }
+  }
+
+  private final Timer[] timers = new Timer[Stage.values().length];
+  private final Counter codeGenerationRetries;
+  private final Counter dedupHits;
+
+  public UrlShortenerMetrics(MeterRegistry meterRegistry) {
+    for (Stage stage : Stage.values()) {
+      timers[stage.ordinal()] = stageTimer(meterRegistry, stage.tag);
+    }
+    this.codeGenerationRetries =
+        Counter.builder("urlshortener.shortcode.retries")
+            .description("Inserts retried because an allocated short code was already taken")
+            .register(meterRegistry);
+    this.dedupHits =
+        Counter.builder("urlshortener.dedup.hits")
+            .description("Shorten requests answered with the existing code for the same URL")
+            .register(meterRegistry);
+  }
+
+  /** Records the time elapsed since {@code startNanos}, a value from {@link System#nanoTime()}. */
+  public void record(Stage stage, long startNanos) {
+    timers[stage.ordinal()].record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+  }
+
+  public void codeGenerationRetry() {
+    codeGenerationRetries.increment();
+  }
+
+  public void dedupHit() {
+    dedupHits.increment();
+  }
+
+  static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+    return Timer.builder(STAGE_TIMER)
+        .description("Time spent in one stage of handling a request")
+        .tag("stage", stage)
+        .register(meterRegistry);
+  }
+}
@@ -1,80 +1,225 @@
 package com.example.urlshortener.service;
 
+import com.example.urlshortener.model.EncryptedUrl;
+import com.example.urlshortener.model.LinkView;
+import com.example.urlshortener.model.ResolvedLink;
 import com.example.urlshortener.model.UrlMapping;
-import com.example.urlshortener.repository.UrlMappingRepository;
+import com.example.urlshortener.repository.UrlMappingReadRepository;
+import com.example.urlshortener.repository.UrlMappingWriteRepository;
+import com.example.urlshortener.service.UrlShortenerMetrics.Stage;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class UrlShortenerService {
-  private static final String BASE62_CHARS =
-      "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
-  private static final int SHORT_CODE_LENGTH = 6;
-  private static final SecureRandom RANDOM = new SecureRandom();
+  private static final Logger log = LoggerFactory.getLogger(UrlShortenerService.class);
+  private static final int MAX_INSERT_ATTEMPTS = 10;
 
-  private final UrlMappingRepository urlMappingRepository;
+  private final UrlMappingReadRepository urlMappingReadRepository;
+  private final UrlMappingWriteRepository urlMappingWriteRepository;
   private final EncryptionService encryptionService;
+  private final RedirectCache redirectCache;
+  private final ShortCodeAllocator shortCodeAllocator;
+  private final RecentWriteTracker recentWriteTracker;
+  private final ShortCodeFilter shortCodeFilter;
+  private final UrlFingerprinter urlFingerprinter;
+  private final UrlShortenerMetrics metrics;
+  private final TransactionTemplate primaryReadTransaction;
 
   public UrlShortenerService(
-      UrlMappingRepository urlMappingRepository, EncryptionService encryptionService) {
-    this.urlMappingRepository = urlMappingRepository;
+      UrlMappingReadRepository urlMappingReadRepository,
+      UrlMappingWriteRepository urlMappingWriteRepository,
+      EncryptionService encryptionService,
+      RedirectCache redirectCache,
+      ShortCodeAllocator shortCodeAllocator,
+      RecentWriteTracker recentWriteTracker,
+      ShortCodeFilter shortCodeFilter,
+      UrlFingerprinter urlFingerprinter,
+      UrlShortenerMetrics metrics,
+      PlatformTransactionManager transactionManager) {
+    this.urlMappingReadRepository = urlMappingReadRepository;
+    this.urlMappingWriteRepository = urlMappingWriteRepository;
     this.encryptionService = encryptionService;
+    this.redirectCache = redirectCache;
+    this.shortCodeAllocator = shortCodeAllocator;
+    this.recentWriteTracker = recentWriteTracker;
+    this.shortCodeFilter = shortCodeFilter;
+    this.urlFingerprinter = urlFingerprinter;
+    this.metrics = metrics;
+    this.primaryReadTransaction = new TransactionTemplate(transactionManager);
   }
 
+  /**
+   * Stores a new mapping for {@code longUrl}. With {@code dedup.enabled}, a request without a
+   * custom alias returns the existing mapping for the same URL instead, provided it has the same
+   * expiry and is still live.
+   */
   public UrlMapping shorten(String longUrl, String customAlias, Instant expiry) {
+    long start = System.nanoTime();
     validateUrl(longUrl);
+    metrics.record(Stage.VALIDATE, start);
+
+    boolean hasAlias = customAlias != null && !customAlias.isEmpty();
+    byte[] urlHmac = urlFingerprinter.fingerprint(longUrl);
+    if (urlHmac != null && !hasAlias) {
+      Optional<UrlMapping> existing = findDuplicate(urlHmac, expiry);
+      if (existing.isPresent()) {
+        metrics.dedupHit();
+        return existing.get();
+      }
+    }
 
     // Encrypt the URL before storing
-    String encryptedUrl = encryptionService.encrypt(longUrl);
+    EncryptedUrl encryptedUrl = encryptionService.encryptForStorage(longUrl);
 
-    String shortCode;
-    if (customAlias != null && !customAlias.isEmpty()) {
-      if (urlMappingRepository.existsByShortCode(customAlias)) {
+    if (hasAlias) {
+      if (shortCodeFilter.mightContain(customAlias) && existsByShortCode(customAlias)) {
+        throw new IllegalArgumentException("Custom alias already exists");
+      }
+      try {
+        return persist(new UrlMapping(customAlias, encryptedUrl, urlHmac, expiry));
+      } catch (DataIntegrityViolationException e) {
+        // Lost a race with a concurrent request for the same alias
         throw new IllegalArgumentException("Custom alias already exists");
       }
-      shortCode = customAlias;
-    } else {
-      shortCode = generateShortCode();
     }
 
-    UrlMapping mapping = new UrlMapping(shortCode, encryptedUrl, expiry);
-    return urlMappingRepository.persist(mapping);
+    return persistWithGeneratedCode(encryptedUrl, urlHmac, expiry);
   }
 
   public Optional<UrlMapping> findByCode(String code) {
-    return urlMappingRepository.findByShortCode(code);
+    if (!shortCodeFilter.mightContain(code)) {
+      return Optional.empty();
+    }
+    long start = System.nanoTime();
+    try {
+      return readYourWrites(code, () -> urlMappingReadRepository.findByShortCode(code));
+    } finally {
+      metrics.record(Stage.FIND_BY_SHORT_CODE, start);
+    }
+  }
+
+  /**
+   * Resolves a short code to its redirect state, serving repeat lookups from the {@link
+   * RedirectCache}. Codes the {@link ShortCodeFilter} rules out are rejected before the cache so
+   * random probes neither reach the database nor evict cached links.
+   */
+  public Optional<ResolvedLink> resolve(String code) {
+    if (!shortCodeFilter.mightContain(code)) {
+      return Optional.empty();
+    }
+    return redirectCache.get(code, this::loadResolvedLink);
   }
 
   public String decryptUrl(String encryptedUrl) {
     return encryptionService.decrypt(encryptedUrl);
   }
 
-  private String generateShortCode() {
-    int maxAttempts = 10;
-    for (int i = 0; i < maxAttempts; i++) {
-      String code = generateRandomCode();
-      if (!urlMappingRepository.existsByShortCode(code)) {
-        return code;
+  public String decryptUrl(EncryptedUrl encryptedUrl) {
+    return encryptionService.decrypt(encryptedUrl);
+  }
+
+  private Optional<ResolvedLink> loadResolvedLink(String code) {
+    return findView(code)
+        .map(
+            view ->
+                new ResolvedLink(
+                    view.shortCode(),
+                    view.disabled() ? null : decryptUrl(view.encryptedUrl()),
+                    view.createdAt(),
+                    view.expiry(),
+                    view.disabled()));
+  }
+
+  private Optional<LinkView> findView(String code) {
+    long start = System.nanoTime();
+    try {
+      return readYourWrites(code, () -> urlMappingReadRepository.findViewByShortCode(code));
+    } finally {
+      metrics.record(Stage.FIND_BY_SHORT_CODE, start);
+    }
+  }
+
+  /**
+   * Inserts the mapping under a freshly allocated code. Allocated codes are unique, so a code is
+   * only taken when a custom alias has already claimed it, either live or since archived; in that
+   * case the next code is tried. Archived codes have to be checked up front since the insert itself
+   * only collides with live ones.
+   */
+  UrlMapping persistWithGeneratedCode(EncryptedUrl encryptedUrl, byte[] urlHmac, Instant expiry) {
+    for (int attempt = 1; ; attempt++) {
+      String shortCode = shortCodeAllocator.nextCode();
+      DataIntegrityViolationException failure = null;
+      if (!shortCodeFilter.mightContain(shortCode) || !existsByShortCode(shortCode)) {
+        try {
+          return persist(new UrlMapping(shortCode, encryptedUrl, urlHmac, expiry));
+        } catch (DataIntegrityViolationException e) {
+          failure = e;
+        }
+      }
+      if (attempt >= MAX_INSERT_ATTEMPTS) {
+        throw new IllegalStateException(
+            "Failed to generate unique short code after " + attempt + " attempts", failure);
       }
+      metrics.codeGenerationRetry();
+      log.warn("Allocated short code {} is already taken, retrying", shortCode);
+    }
+  }
+
+  private Optional<UrlMapping> findDuplicate(byte[] urlHmac, Instant expiry) {
+    long start = System.nanoTime();
+    try {
+      // Concurrent requests for the same URL can still both insert; duplicates are harmless
+      return urlMappingReadRepository.findByUrlHmac(urlHmac).stream()
+          .filter(mapping -> Objects.equals(mapping.getExpiry(), expiry) && !mapping.isExpired())
+          .findFirst();
+    } finally {
+      metrics.record(Stage.FIND_BY_URL_HMAC, start);
+    }
+  }
+
+  private boolean existsByShortCode(String code) {
+    long start = System.nanoTime();
+    try {
+      return urlMappingReadRepository.existsByShortCode(code);
+    } finally {
+      metrics.record(Stage.EXISTS_BY_SHORT_CODE, start);
+    }
+  }
+
+  private UrlMapping persist(UrlMapping mapping) {
+    long start = System.nanoTime();
+    try {
+      return urlMappingWriteRepository.persist(mapping);
+    } finally {
+      metrics.record(Stage.PERSIST, start);
     }
-    throw new IllegalStateException(
-        "Failed to generate unique short code after " + maxAttempts + " attempts");
   }
 
-  private String generateRandomCode() {
-    StringBuilder sb = new StringBuilder(SHORT_CODE_LENGTH);
-    for (int i = 0; i < SHORT_CODE_LENGTH; i++) {
-      sb.append(BASE62_CHARS.charAt(RANDOM.nextInt(BASE62_CHARS.length())));
+  /**
+   * Runs a read for {@code code}, forcing it onto the primary database when this node wrote the
+   * code moments ago and a read replica may not have caught up yet.
+   */
+  private <T> T readYourWrites(String code, Supplier<T> read) {
+    if (!recentWriteTracker.wasRecentlyWritten(code)) {
+      return read.get();
     }
-    return sb.toString();
+    // Read-only repository calls join this read-write transaction and so use a primary connection
+    return primaryReadTransaction.execute(status -> read.get());
   }
 
-  private void validateUrl(String url) {
+  static void validateUrl(String url) {
     if (url == null || url.trim().isEmpty()) {
       throw new IllegalArgumentException("URL cannot be empty");
     }
@@ -0,0 +1,6 @@
+CREATE TABLE code_ranges (
+    name VARCHAR(64) PRIMARY KEY,
+    next_id BIGINT NOT NULL
+);
+
+INSERT INTO code_ranges (name, next_id) VALUES ('links_core', 0);
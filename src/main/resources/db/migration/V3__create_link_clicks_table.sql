@@ -0,0 +1,6 @@
+CREATE TABLE link_clicks (
+    code VARCHAR(255) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    clicks BIGINT NOT NULL,
+    PRIMARY KEY (code, bucket_start)
+);
@@ -0,0 +1,19 @@
+ALTER TABLE links_core ADD COLUMN disabled_at TIMESTAMP;
+
+UPDATE links_core SET disabled_at = CURRENT_TIMESTAMP WHERE is_disabled = TRUE;
+
+CREATE INDEX idx_links_core_disabled_at ON links_core(disabled_at);
+
+CREATE TABLE links_archive (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    code VARCHAR(255) NOT NULL,
+    target_url TEXT NOT NULL,
+    expiry_ts TIMESTAMP,
+    is_disabled BOOLEAN NOT NULL,
+    disabled_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL,
+    archived_at TIMESTAMP NOT NULL,
+    archive_reason VARCHAR(16) NOT NULL
+);
+
+CREATE INDEX idx_links_archive_code ON links_archive(code);
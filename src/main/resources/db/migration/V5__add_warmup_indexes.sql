@@ -0,0 +1,3 @@
+CREATE INDEX idx_links_core_created_at ON links_core(created_at);
+
+CREATE INDEX idx_link_clicks_bucket_start ON link_clicks(bucket_start);
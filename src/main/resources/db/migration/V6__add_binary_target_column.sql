@@ -0,0 +1,9 @@
+-- Binary ciphertext envelope, written instead of target_url when encryption.storage=binary.
+-- Existing rows are moved over online by the re-encryption job.
+ALTER TABLE links_core ADD COLUMN target_bin VARBINARY(8192);
+ALTER TABLE links_core ALTER COLUMN target_url DROP NOT NULL;
+ALTER TABLE links_core ADD CONSTRAINT chk_links_core_target
+    CHECK (target_url IS NOT NULL OR target_bin IS NOT NULL);
+
+ALTER TABLE links_archive ADD COLUMN target_bin VARBINARY(8192);
+ALTER TABLE links_archive ALTER COLUMN target_url DROP NOT NULL;
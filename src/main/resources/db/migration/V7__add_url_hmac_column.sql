@@ -0,0 +1,4 @@
+-- Keyed HMAC of the normalised target URL, written when dedup.enabled is set
+ALTER TABLE links_core ADD COLUMN url_hmac VARBINARY(32);
+
+CREATE INDEX idx_links_core_url_hmac ON links_core(url_hmac);
@@ -0,0 +1,9 @@
+-- Change log of short codes whose cached state is stale, tailed by every instance in seq order
+CREATE TABLE link_invalidations (
+    seq BIGINT AUTO_INCREMENT PRIMARY KEY,
+    code VARCHAR(255) NOT NULL,
+    origin VARCHAR(36) NOT NULL,
+    changed_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_link_invalidations_changed_at ON link_invalidations(changed_at);
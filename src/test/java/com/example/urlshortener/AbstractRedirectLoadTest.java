@@ -0,0 +1,99 @@
+package com.example.urlshortener;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.service.UrlShortenerService;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+/**
+ * Drives {@code GET /{code}} on a running server with many concurrent clients and logs throughput
+ * and latency percentiles. Subclasses select the server runtime and disable the redirect cache so
+ * every request does a database read and a decrypt. Run with {@code ./gradlew loadTest}.
+ */
+@Tag("load")
+abstract class AbstractRedirectLoadTest {
+  private static final Logger log = LoggerFactory.getLogger(AbstractRedirectLoadTest.class);
+  private static final int LINK_COUNT = 1_000;
+
+  @LocalServerPort private int port;
+
+  @Autowired private UrlShortenerService service;
+
+  /** Label used in the log output. */
+  abstract String runtime();
+
+  @Test
+  void testRedirectThroughput() throws Exception {
+    int concurrency = Integer.getInteger("loadTest.concurrency", 1_000);
+    int requestsPerClient = Integer.getInteger("loadTest.requestsPerClient", 50);
+
+    String[] codes = new String[LINK_COUNT];
+    for (int i = 0; i < LINK_COUNT; i++) {
+      codes[i] = service.shorten("https://example.com/load/" + i, null, null).getShortCode();
+    }
+
+    HttpClient client =
+        HttpClient.newBuilder()
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    long[][] latencies = new long[concurrency][requestsPerClient];
+    AtomicLong failures = new AtomicLong();
+
+    long start = System.nanoTime();
+    try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int c = 0; c < concurrency; c++) {
+        long[] clientLatencies = latencies[c];
+        clients.submit(
+            () -> {
+              for (int r = 0; r < requestsPerClient; r++) {
+                String code = codes[ThreadLocalRandom.current().nextInt(codes.length)];
+                HttpRequest request =
+                    HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/" + code))
+                        .GET()
+                        .build();
+                long requestStart = System.nanoTime();
+                try {
+                  HttpResponse<Void> response =
+                      client.send(request, HttpResponse.BodyHandlers.discarding());
+                  if (response.statusCode() != 302) {
+                    failures.incrementAndGet();
+                  }
+                } catch (Exception e) {
+                  failures.incrementAndGet();
+                }
+                clientLatencies[r] = System.nanoTime() - requestStart;
+              }
+            });
+      }
+    }
+    long elapsedNanos = System.nanoTime() - start;
+
+    long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+    log.info(
+        "{}: {} clients x {} redirects in {} ms, {} req/s, p50 {} us, p99 {} us, {} failures",
+        runtime(),
+        concurrency,
+        requestsPerClient,
+        elapsedNanos / 1_000_000,
+        all.length * 1_000_000_000L / elapsedNanos,
+        all[all.length / 2] / 1_000,
+        all[(int) (all.length * 0.99)] / 1_000,
+        failures.get());
+    assertEquals(0, failures.get());
+  }
+}
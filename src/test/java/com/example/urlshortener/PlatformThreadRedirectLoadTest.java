@@ -0,0 +1,14 @@
+package com.example.urlshortener;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {"spring.threads.virtual.enabled=false", "redirect.cache.enabled=false"})
+class PlatformThreadRedirectLoadTest extends AbstractRedirectLoadTest {
+
+  @Override
+  String runtime() {
+    return "Servlet on platform threads";
+  }
+}
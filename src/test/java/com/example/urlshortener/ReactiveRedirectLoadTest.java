@@ -0,0 +1,18 @@
+package com.example.urlshortener;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+      "spring.main.web-application-type=reactive",
+      "reactive.r2dbc.url=r2dbc:h2:mem:///testdb",
+      "redirect.cache.enabled=false"
+    })
+class ReactiveRedirectLoadTest extends AbstractRedirectLoadTest {
+
+  @Override
+  String runtime() {
+    return "WebFlux on Netty with R2DBC";
+  }
+}
@@ -0,0 +1,87 @@
+package com.example.urlshortener.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.service.EncryptionService;
+import com.example.urlshortener.service.ShortCodeFilter;
+import com.example.urlshortener.service.UrlShortenerService;
+import javax.sql.DataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+/** Uses a second in-memory H2 database as a read replica that never receives replicated writes. */
+@SpringBootTest(
+    properties = {
+      "datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+      "datasource.read-your-writes-window=PT0.5S"
+    })
+class ReadWriteDataSourceConfigTest {
+
+  @Autowired private UrlShortenerService service;
+
+  @Autowired private EncryptionService encryptionService;
+
+  @Autowired private ShortCodeFilter shortCodeFilter;
+
+  @Autowired
+  @Qualifier("primaryDataSource")
+  private DataSource primaryDataSource;
+
+  private JdbcTemplate primary;
+  private JdbcTemplate replica;
+
+  @BeforeEach
+  void setUp() {
+    // The replica pool is read-only, so create its schema through a separate connection
+    DataSource replicaAdmin =
+        new DriverManagerDataSource("jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1", "sa", "");
+    Flyway.configure().dataSource(replicaAdmin).load().migrate();
+    primary = new JdbcTemplate(primaryDataSource);
+    replica = new JdbcTemplate(replicaAdmin);
+  }
+
+  private int count(JdbcTemplate jdbcTemplate, String code) {
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM links_core WHERE code = ?", Integer.class, code);
+  }
+
+  @Test
+  void testFindByCode_ReadsFromReplica() {
+    replica.update(
+        "INSERT INTO links_core (code, target_url) VALUES (?, ?)",
+        "replica-only",
+        encryptionService.encrypt("https://example.com/replica"));
+    // Rows inserted with plain SQL bypass the entity listener that feeds the filter
+    shortCodeFilter.add("replica-only");
+
+    assertTrue(service.findByCode("replica-only").isPresent());
+    assertEquals(0, count(primary, "replica-only"));
+  }
+
+  @Test
+  void testShorten_WritesToPrimaryAndReadsItBackImmediately() {
+    UrlMapping mapping = service.shorten("https://example.com/fresh", null, null);
+    String code = mapping.getShortCode();
+
+    assertEquals(1, count(primary, code));
+    assertEquals(0, count(replica, code));
+    assertTrue(service.findByCode(code).isPresent());
+  }
+
+  @Test
+  void testFindByCode_AfterReadYourWritesWindow_ReadsFromReplicaAgain() throws Exception {
+    UrlMapping mapping = service.shorten("https://example.com/lagging", null, null);
+
+    Thread.sleep(700);
+
+    // The replica never received the write, so the link is not visible there
+    assertFalse(service.findByCode(mapping.getShortCode()).isPresent());
+  }
+}
@@ -0,0 +1,198 @@
+package com.example.urlshortener.controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.example.urlshortener.service.UrlShortenerService;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+@SpringBootTest(properties = "admin.enabled=true")
+@AutoConfigureMockMvc
+class AdminControllerTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private String exportAll() throws Exception {
+    MvcResult started =
+        mockMvc.perform(get("/admin/export")).andExpect(request().asyncStarted()).andReturn();
+    return mockMvc
+        .perform(asyncDispatch(started))
+        .andExpect(status().isOk())
+        .andReturn()
+        .getResponse()
+        .getContentAsString();
+  }
+
+  private String storedCiphertext(String code) {
+    return jdbcTemplate.queryForObject(
+        "SELECT target_url FROM links_core WHERE code = ?", String.class, code);
+  }
+
+  private String lineFor(String export, String code) {
+    return Arrays.stream(export.split("\n"))
+        .filter(line -> line.contains("\"code\":\"" + code + "\""))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  private void archive(String code, String ciphertext) {
+    Timestamp now = Timestamp.from(Instant.now());
+    jdbcTemplate.update(
+        "INSERT INTO links_archive (code, target_url, is_disabled, created_at, archived_at,"
+            + " archive_reason) VALUES (?, ?, FALSE, ?, ?, 'expired')",
+        code,
+        ciphertext,
+        now,
+        now);
+  }
+
+  private int archivedRows(String code) {
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM links_archive WHERE code = ?", Integer.class, code);
+  }
+
+  private boolean isDisabled(String code) {
+    return jdbcTemplate.queryForObject(
+        "SELECT is_disabled FROM links_core WHERE code = ?", Boolean.class, code);
+  }
+
+  @Test
+  void testExportThenImport_RestoresDeletedLinks() throws Exception {
+    urlShortenerService.shorten("https://example.com/export-one", "export1", null);
+    urlShortenerService.shorten("https://example.com/export-two", "export2", null);
+    String ciphertext = storedCiphertext("export1");
+
+    String export = exportAll();
+    String[] lines = export.split("\n");
+    assertTrue(lines[0].contains("\"codeRanges\""));
+    assertTrue(export.contains(ciphertext), "ciphertext is exported unchanged");
+
+    jdbcTemplate.update("DELETE FROM links_core WHERE code IN ('export1', 'export2')");
+
+    mockMvc
+        .perform(
+            post("/admin/import").contentType(MediaType.APPLICATION_NDJSON).content(export))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.rows").value(2))
+        .andExpect(jsonPath("$.skipped").value(lines.length - 3));
+
+    assertEquals(ciphertext, storedCiphertext("export1"));
+    mockMvc
+        .perform(get("/export2"))
+        .andExpect(status().isFound())
+        .andExpect(header().string("Location", "https://example.com/export-two"));
+  }
+
+  @Test
+  void testImport_SkipsLiveAndArchivedCodesByDefault() throws Exception {
+    urlShortenerService.shorten("https://example.com/import-live", "importlive", null);
+    archive("importgone", storedCiphertext("importlive"));
+    String export = exportAll();
+    String live = lineFor(export, "importlive");
+    String archived = lineFor(export, "importgone");
+    assertTrue(archived.contains("\"archivedAt\""), "archived links are exported");
+    String fresh = live.replace("\"importlive\"", "\"importnew\"");
+    jdbcTemplate.update("UPDATE links_core SET is_disabled = TRUE WHERE code = 'importlive'");
+
+    mockMvc
+        .perform(
+            post("/admin/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(live + "\n" + archived + "\n" + fresh + "\n"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.rows").value(1))
+        .andExpect(jsonPath("$.skipped").value(2))
+        .andExpect(jsonPath("$.skippedCodes[0]").value("importlive"))
+        .andExpect(jsonPath("$.skippedCodes[1]").value("importgone"));
+
+    assertTrue(isDisabled("importlive"), "the live link is left alone");
+    assertEquals(
+        0,
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM links_core WHERE code = 'importgone'", Integer.class));
+    mockMvc
+        .perform(get("/importnew"))
+        .andExpect(status().isFound())
+        .andExpect(header().string("Location", "https://example.com/import-live"));
+  }
+
+  @Test
+  void testImport_UpsertReplacesLiveAndArchivedCodes() throws Exception {
+    urlShortenerService.shorten("https://example.com/restore-live", "restorelive", null);
+    archive("restoregone", storedCiphertext("restorelive"));
+    String export = exportAll();
+    String content = lineFor(export, "restorelive") + "\n" + lineFor(export, "restoregone") + "\n";
+    jdbcTemplate.update("UPDATE links_core SET is_disabled = TRUE WHERE code = 'restorelive'");
+    jdbcTemplate.update("DELETE FROM links_archive WHERE code = 'restoregone'");
+
+    mockMvc
+        .perform(
+            post("/admin/import")
+                .param("mode", "upsert")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(content))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.rows").value(2))
+        .andExpect(jsonPath("$.skipped").value(0));
+
+    assertFalse(isDisabled("restorelive"));
+    assertEquals(1, archivedRows("restoregone"));
+    mockMvc.perform(get("/restoregone")).andExpect(status().isNotFound());
+  }
+
+  @Test
+  void testImport_UnknownMode_ReturnsBadRequest() throws Exception {
+    mockMvc
+        .perform(
+            post("/admin/import")
+                .param("mode", "replace")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(""))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void testImport_AdvancesCodeRanges() throws Exception {
+    Long before =
+        jdbcTemplate.queryForObject(
+            "SELECT next_id FROM code_ranges WHERE name = 'links_core'", Long.class);
+
+    mockMvc
+        .perform(
+            post("/admin/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"codeRanges\":{\"links_core\":" + (before + 5000) + "}}\n"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.rows").value(0));
+
+    assertEquals(
+        before + 5000,
+        jdbcTemplate.queryForObject(
+            "SELECT next_id FROM code_ranges WHERE name = 'links_core'", Long.class));
+  }
+
+  @Test
+  void testImport_MalformedRecord_ReturnsBadRequest() throws Exception {
+    mockMvc
+        .perform(
+            post("/admin/import")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content("{\"code\":\"importbad\"}\n"))
+        .andExpect(status().isBadRequest());
+  }
+}
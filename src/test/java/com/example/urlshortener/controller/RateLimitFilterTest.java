@@ -0,0 +1,159 @@
+package com.example.urlshortener.controller;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.example.urlshortener.service.UrlShortenerService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+@SpringBootTest(
+    properties = {
+      "ratelimit.enabled=true",
+      "ratelimit.shorten.requests-per-second=0.01",
+      "ratelimit.shorten.burst=2",
+      "ratelimit.batch.links-per-second=0.01",
+      "ratelimit.batch.burst=3",
+      "ratelimit.redirect.requests-per-second=0.01",
+      "ratelimit.redirect.burst=3",
+      "ratelimit.api-keys=partner"
+    })
+@AutoConfigureMockMvc
+class RateLimitFilterTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Test
+  void testShorten_ThrottledAfterBurst() throws Exception {
+    String body = "{\"longUrl\":\"https://example.com/limited\"}";
+    for (int i = 0; i < 2; i++) {
+      mockMvc
+          .perform(
+              post("/shorten")
+                  .with(remoteAddr("10.0.0.1"))
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content(body))
+          .andExpect(status().isOk());
+    }
+
+    mockMvc
+        .perform(
+            post("/shorten")
+                .with(remoteAddr("10.0.0.1"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().exists("Retry-After"));
+
+    // Another client still has its own bucket
+    mockMvc
+        .perform(
+            post("/shorten")
+                .with(remoteAddr("10.0.0.2"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void testShortenBatch_ChargedPerLink() throws Exception {
+    mockMvc
+        .perform(
+            post("/shorten/batch")
+                .with(remoteAddr("10.0.0.6"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch(3)))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(3));
+
+    // The batch spent the whole batch bucket, but not the one for single links
+    mockMvc
+        .perform(
+            post("/shorten/batch")
+                .with(remoteAddr("10.0.0.6"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch(1)))
+        .andExpect(status().isTooManyRequests());
+    mockMvc
+        .perform(
+            post("/shorten")
+                .with(remoteAddr("10.0.0.6"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"longUrl\":\"https://example.com/single\"}"))
+        .andExpect(status().isOk());
+
+    // A batch larger than the burst is refused outright
+    mockMvc
+        .perform(
+            post("/shorten/batch")
+                .with(remoteAddr("10.0.0.7"))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch(4)))
+        .andExpect(status().isTooManyRequests())
+        .andExpect(header().exists("Retry-After"));
+  }
+
+  @Test
+  void testRedirect_LimitedSeparatelyAndByApiKey() throws Exception {
+    urlShortenerService.shorten("https://example.com/limited-redirect", "limited", null);
+    for (int i = 0; i < 3; i++) {
+      mockMvc.perform(get("/limited").with(remoteAddr("10.0.0.3"))).andExpect(status().isFound());
+    }
+    mockMvc
+        .perform(get("/limited").with(remoteAddr("10.0.0.3")))
+        .andExpect(status().isTooManyRequests());
+
+    // Requests carrying a known API key are limited per key rather than per address
+    mockMvc
+        .perform(get("/limited").with(remoteAddr("10.0.0.3")).header("X-API-Key", "partner"))
+        .andExpect(status().isFound());
+  }
+
+  @Test
+  void testRedirect_UnknownApiKeyIsLimitedByAddress() throws Exception {
+    urlShortenerService.shorten("https://example.com/limited-key", "limitedkey", null);
+    for (int i = 0; i < 3; i++) {
+      mockMvc
+          .perform(get("/limitedkey").with(remoteAddr("10.0.0.5")).header("X-API-Key", "k" + i))
+          .andExpect(status().isFound());
+    }
+
+    mockMvc
+        .perform(get("/limitedkey").with(remoteAddr("10.0.0.5")).header("X-API-Key", "k3"))
+        .andExpect(status().isTooManyRequests());
+  }
+
+  @Test
+  void testOtherEndpoints_NotLimited() throws Exception {
+    for (int i = 0; i < 5; i++) {
+      mockMvc
+          .perform(get("/unlimited/stats").with(remoteAddr("10.0.0.4")))
+          .andExpect(status().isNotFound());
+    }
+  }
+
+  private static String batch(int links) {
+    StringBuilder body = new StringBuilder("[");
+    for (int i = 0; i < links; i++) {
+      body.append(i == 0 ? "" : ",")
+          .append("{\"longUrl\":\"https://example.com/batch-limited/")
+          .append(i)
+          .append("\"}");
+    }
+    return body.append(']').toString();
+  }
+
+  private static RequestPostProcessor remoteAddr(String address) {
+    return request -> {
+      request.setRemoteAddr(address);
+      return request;
+    };
+  }
+}
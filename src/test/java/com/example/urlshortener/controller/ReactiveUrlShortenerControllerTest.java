@@ -0,0 +1,128 @@
+package com.example.urlshortener.controller;
+
+import static org.hamcrest.Matchers.startsWith;
+
+import com.example.urlshortener.dto.ShortenRequest;
+import com.example.urlshortener.dto.ShortenResponse;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+@SpringBootTest(
+    properties = {
+      "spring.main.web-application-type=reactive",
+      "reactive.r2dbc.url=r2dbc:h2:mem:///testdb"
+    })
+@AutoConfigureWebTestClient
+class ReactiveUrlShortenerControllerTest {
+
+  @Autowired private WebTestClient webTestClient;
+
+  private static ShortenRequest request(String longUrl, String customAlias) {
+    ShortenRequest request = new ShortenRequest();
+    request.setLongUrl(longUrl);
+    request.setCustomAlias(customAlias);
+    return request;
+  }
+
+  private String shorten(ShortenRequest request) {
+    return webTestClient
+        .post()
+        .uri("/shorten")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(request)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(ShortenResponse.class)
+        .returnResult()
+        .getResponseBody()
+        .getShortUrl();
+  }
+
+  @Test
+  void testShortenAndRedirect() {
+    String shortUrl = shorten(request("https://example.com/reactive", null));
+    String code = shortUrl.substring(shortUrl.lastIndexOf('/') + 1);
+
+    webTestClient
+        .get()
+        .uri("/" + code)
+        .exchange()
+        .expectStatus()
+        .isFound()
+        .expectHeader()
+        .valueEquals("Location", "https://example.com/reactive");
+  }
+
+  @Test
+  void testShorten_InvalidUrl_ReturnsBadRequest() {
+    webTestClient
+        .post()
+        .uri("/shorten")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(request("javascript:alert(1)", null))
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void testShorten_DuplicateAlias_ReturnsBadRequest() {
+    shorten(request("https://example.com/first", "reactive-alias"));
+
+    webTestClient
+        .post()
+        .uri("/shorten")
+        .contentType(MediaType.APPLICATION_JSON)
+        .bodyValue(request("https://example.com/second", "reactive-alias"))
+        .exchange()
+        .expectStatus()
+        .isBadRequest();
+  }
+
+  @Test
+  void testRedirect_UnknownCode_ReturnsNotFound() {
+    webTestClient.get().uri("/reactive-missing").exchange().expectStatus().isNotFound();
+  }
+
+  @Test
+  void testRedirect_Expired_ReturnsGone() {
+    ShortenRequest request = request("https://example.com/reactive-expired", "reactive-expired");
+    request.setExpiry(Instant.now().minus(1, ChronoUnit.HOURS));
+    shorten(request);
+
+    webTestClient.get().uri("/reactive-expired").exchange().expectStatus().isEqualTo(410);
+  }
+
+  @Test
+  void testHeadMetadata_MatchingETag_ReturnsNotModified() {
+    shorten(request("https://example.com/reactive-etag", "reactive-etag"));
+
+    String etag =
+        webTestClient
+            .head()
+            .uri("/reactive-etag")
+            .exchange()
+            .expectStatus()
+            .isOk()
+            .expectHeader()
+            .value("ETag", startsWith("\"reactive-etag-"))
+            .returnResult(Void.class)
+            .getResponseHeaders()
+            .getETag();
+
+    webTestClient
+        .head()
+        .uri("/reactive-etag")
+        .header("If-None-Match", etag)
+        .exchange()
+        .expectStatus()
+        .isNotModified();
+  }
+}
@@ -0,0 +1,46 @@
+package com.example.urlshortener.controller;
+
+import static org.hamcrest.Matchers.matchesRegex;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.example.urlshortener.service.UrlShortenerService;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = {"redirect.http.max-age=PT1H", "redirect.http.permanent-status=308"})
+@AutoConfigureMockMvc
+class RedirectCachingTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Test
+  void testRedirect_LinkWithoutExpiry_IsPermanentAndCached() throws Exception {
+    urlShortenerService.shorten("https://example.com/permanent", "permanent", null);
+
+    mockMvc
+        .perform(get("/permanent"))
+        .andExpect(status().isPermanentRedirect())
+        .andExpect(header().string("Location", "https://example.com/permanent"))
+        .andExpect(header().string("Cache-Control", "max-age=3600, public"));
+  }
+
+  @Test
+  void testRedirect_MaxAgeCappedAtExpiry() throws Exception {
+    urlShortenerService.shorten(
+        "https://example.com/expiring", "expiring", Instant.now().plus(10, ChronoUnit.MINUTES));
+
+    mockMvc
+        .perform(get("/expiring"))
+        .andExpect(status().isFound())
+        // Whole seconds left until the expiry, minus however long the request took
+        .andExpect(header().string("Cache-Control", matchesRegex("max-age=59[0-9], public")));
+  }
+}
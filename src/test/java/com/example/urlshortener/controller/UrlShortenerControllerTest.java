@@ -5,9 +5,13 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import com.example.urlshortener.dto.ShortenRequest;
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.repository.UrlMappingRepository;
+import com.example.urlshortener.service.ClickAnalyticsService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
@@ -24,6 +28,10 @@ class UrlShortenerControllerTest {
 
   @Autowired private ObjectMapper objectMapper;
 
+  @Autowired private UrlMappingRepository repository;
+
+  @Autowired private ClickAnalyticsService clickAnalyticsService;
+
   @Test
   void testShortenUrl_Success() throws Exception {
     ShortenRequest request = new ShortenRequest();
@@ -106,6 +114,32 @@ class UrlShortenerControllerTest {
         .andExpect(status().isBadRequest());
   }
 
+  @Test
+  void testShortenBatch_ReturnsPerItemResults() throws Exception {
+    ShortenRequest valid = new ShortenRequest();
+    valid.setLongUrl("https://example.com/batch-test");
+    ShortenRequest invalid = new ShortenRequest();
+    invalid.setLongUrl("ftp://example.com/batch-test");
+
+    mockMvc
+        .perform(
+            post("/shorten/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of(valid, invalid))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].index").value(0))
+        .andExpect(jsonPath("$[0].shortUrl").value(startsWith("http://")))
+        .andExpect(jsonPath("$[1].index").value(1))
+        .andExpect(jsonPath("$[1].error").exists());
+  }
+
+  @Test
+  void testShortenBatch_Empty_ReturnsBadRequest() throws Exception {
+    mockMvc
+        .perform(post("/shorten/batch").contentType(MediaType.APPLICATION_JSON).content("[]"))
+        .andExpect(status().isBadRequest());
+  }
+
   @Test
   void testRedirect_Success() throws Exception {
     // First, create a short URL
@@ -151,6 +185,82 @@ class UrlShortenerControllerTest {
     mockMvc.perform(get("/expired123")).andExpect(status().isGone());
   }
 
+  @Test
+  void testRedirect_DisabledAfterCaching_ReturnsGone() throws Exception {
+    ShortenRequest request = new ShortenRequest();
+    request.setLongUrl("https://example.com/disable-test");
+    request.setCustomAlias("disable123");
+
+    mockMvc
+        .perform(
+            post("/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk());
+
+    // Populate the redirect cache
+    mockMvc.perform(get("/disable123")).andExpect(status().isFound());
+
+    // Disabling the link must invalidate the cached redirect
+    UrlMapping mapping = repository.findById("disable123").orElseThrow();
+    mapping.setDisabled(true);
+    repository.save(mapping);
+
+    mockMvc.perform(get("/disable123")).andExpect(status().isGone());
+  }
+
+  @Test
+  void testRedirect_CreatedAfterMiss_Redirects() throws Exception {
+    // Populate the negative cache entry
+    mockMvc.perform(get("/later123")).andExpect(status().isNotFound());
+
+    ShortenRequest request = new ShortenRequest();
+    request.setLongUrl("https://example.com/later-test");
+    request.setCustomAlias("later123");
+
+    mockMvc
+        .perform(
+            post("/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(get("/later123"))
+        .andExpect(status().isFound())
+        .andExpect(header().string("Location", "https://example.com/later-test"));
+  }
+
+  @Test
+  void testStats_CountsRedirects() throws Exception {
+    ShortenRequest request = new ShortenRequest();
+    request.setLongUrl("https://example.com/stats-test");
+    request.setCustomAlias("stats123");
+
+    mockMvc
+        .perform(
+            post("/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk());
+
+    mockMvc.perform(get("/stats123")).andExpect(status().isFound());
+    mockMvc.perform(get("/stats123")).andExpect(status().isFound());
+    clickAnalyticsService.flush();
+
+    mockMvc
+        .perform(get("/stats123/stats"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.shortCode").value("stats123"))
+        .andExpect(jsonPath("$.totalClicks").value(2))
+        .andExpect(jsonPath("$.clicksPerMinute").isNotEmpty());
+  }
+
+  @Test
+  void testStats_NotFound() throws Exception {
+    mockMvc.perform(get("/nonexistent/stats")).andExpect(status().isNotFound());
+  }
+
   @Test
   void testHeadMetadata_Success() throws Exception {
     // Create a short URL
@@ -169,6 +279,56 @@ class UrlShortenerControllerTest {
     mockMvc.perform(head("/metadata123")).andExpect(status().isOk());
   }
 
+  @Test
+  void testHeadMetadata_MatchingETag_ReturnsNotModified() throws Exception {
+    ShortenRequest request = new ShortenRequest();
+    request.setLongUrl("https://example.com/etag-test");
+    request.setCustomAlias("etag123");
+
+    mockMvc
+        .perform(
+            post("/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk());
+
+    MvcResult first =
+        mockMvc
+            .perform(head("/etag123"))
+            .andExpect(status().isOk())
+            .andExpect(header().exists("ETag"))
+            .andExpect(header().exists("Last-Modified"))
+            .andReturn();
+    String etag = first.getResponse().getHeader("ETag");
+
+    mockMvc
+        .perform(head("/etag123").header("If-None-Match", etag))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string("ETag", etag));
+    mockMvc
+        .perform(head("/etag123").header("If-None-Match", "\"other\""))
+        .andExpect(status().isOk());
+  }
+
+  @Test
+  void testRedirect_NoCacheControlByDefault() throws Exception {
+    ShortenRequest request = new ShortenRequest();
+    request.setLongUrl("https://example.com/uncached");
+    request.setCustomAlias("uncached123");
+
+    mockMvc
+        .perform(
+            post("/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+        .andExpect(status().isOk());
+
+    mockMvc
+        .perform(get("/uncached123"))
+        .andExpect(status().isFound())
+        .andExpect(header().doesNotExist("Cache-Control"));
+  }
+
   @Test
   void testHeadMetadata_NotFound() throws Exception {
     mockMvc.perform(head("/nonexistent")).andExpect(status().isNotFound());
@@ -0,0 +1,84 @@
+package com.example.urlshortener.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.model.EncryptedUrl;
+import com.example.urlshortener.model.LinkView;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LinkSnapshotTest {
+  private static final Instant TAKEN_AT = Instant.parse("2026-01-01T12:00:00.123456789Z");
+
+  @TempDir Path directory;
+
+  @Test
+  void testFind_ReturnsEveryStoredLink() throws IOException {
+    Path path = directory.resolve("links.snapshot");
+    try (LinkSnapshot.Writer writer = LinkSnapshot.writer(path, TAKEN_AT)) {
+      for (int i = 0; i < 10_000; i++) {
+        writer.add(view(i));
+      }
+      writer.finish();
+    }
+
+    LinkSnapshot snapshot = LinkSnapshot.open(path);
+
+    assertEquals(10_000, snapshot.size());
+    assertEquals(TAKEN_AT, snapshot.takenAt());
+    for (int i = 0; i < 10_000; i++) {
+      LinkView expected = view(i);
+      LinkView found = snapshot.find(expected.shortCode()).orElseThrow();
+      assertEquals(expected.shortCode(), found.shortCode());
+      assertEquals(expected.encryptedUrl().text(), found.encryptedUrl().text());
+      assertArrayEquals(expected.encryptedUrl().binary(), found.encryptedUrl().binary());
+      assertEquals(expected.createdAt(), found.createdAt());
+      assertEquals(expected.expiry(), found.expiry());
+      assertEquals(expected.disabled(), found.disabled());
+    }
+    assertTrue(snapshot.find("missing").isEmpty());
+    assertFalse(snapshot.contains("code10000"));
+  }
+
+  @Test
+  void testOpen_EmptySnapshot() throws IOException {
+    Path path = directory.resolve("empty.snapshot");
+    try (LinkSnapshot.Writer writer = LinkSnapshot.writer(path, TAKEN_AT)) {
+      writer.finish();
+    }
+
+    LinkSnapshot snapshot = LinkSnapshot.open(path);
+
+    assertEquals(0, snapshot.size());
+    assertTrue(snapshot.find("code0").isEmpty());
+  }
+
+  @Test
+  void testOpen_RejectsUnfinishedFile() throws IOException {
+    Path path = directory.resolve("unfinished.snapshot");
+    try (LinkSnapshot.Writer writer = LinkSnapshot.writer(path, TAKEN_AT)) {
+      writer.add(view(0));
+    }
+    Path other = Files.writeString(directory.resolve("other.snapshot"), "not a snapshot");
+
+    assertThrows(IOException.class, () -> LinkSnapshot.open(path));
+    assertThrows(IOException.class, () -> LinkSnapshot.open(other));
+  }
+
+  private static LinkView view(int i) {
+    EncryptedUrl encryptedUrl =
+        i % 2 == 0
+            ? EncryptedUrl.ofText("ciphertext" + i)
+            : EncryptedUrl.ofBinary(new byte[] {(byte) i, (byte) (i >> 8), 42});
+    return new LinkView(
+        "code" + i,
+        encryptedUrl,
+        TAKEN_AT.minusSeconds(i),
+        i % 3 == 0 ? TAKEN_AT.plusSeconds(i) : null,
+        i % 5 == 0);
+  }
+}
@@ -0,0 +1,52 @@
+package com.example.urlshortener.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ShardRingTest {
+
+  @Test
+  void testShardFor_SpreadsCodesEvenly() {
+    ShardRing ring = new ShardRing(List.of("primary", "shard1", "shard2", "shard3"), 128);
+
+    Map<String, Integer> counts = new HashMap<>();
+    for (int i = 0; i < 100_000; i++) {
+      counts.merge(ring.shardFor("code" + i), 1, Integer::sum);
+    }
+
+    assertEquals(4, counts.size());
+    counts.forEach(
+        (shard, count) -> assertTrue(count > 20_000 && count < 30_000, shard + ": " + count));
+  }
+
+  @Test
+  void testShardFor_AddingShardOnlyMovesCodesToIt() {
+    ShardRing before = new ShardRing(List.of("primary", "shard1", "shard2"), 128);
+    ShardRing after = new ShardRing(List.of("primary", "shard1", "shard2", "shard3"), 128);
+
+    int moved = 0;
+    for (int i = 0; i < 100_000; i++) {
+      String code = "code" + i;
+      String owner = after.shardFor(code);
+      if (!owner.equals(before.shardFor(code))) {
+        assertEquals("shard3", owner, code);
+        moved++;
+      }
+    }
+    assertTrue(moved > 20_000 && moved < 30_000, "Moved: " + moved);
+  }
+
+  @Test
+  void testShardFor_IndependentOfShardOrder() {
+    ShardRing ring = new ShardRing(List.of("primary", "shard1", "shard2"), 16);
+    ShardRing reordered = new ShardRing(List.of("shard2", "primary", "shard1"), 16);
+
+    for (int i = 0; i < 10_000; i++) {
+      assertEquals(ring.shardFor("code" + i), reordered.shardFor("code" + i));
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package com.example.urlshortener.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.dto.ShortenRequest;
+import com.example.urlshortener.repository.LinkShards.Shard;
+import com.example.urlshortener.service.BatchShortenResult;
+import com.example.urlshortener.service.BatchShortenService;
+import com.example.urlshortener.service.LinkReaper;
+import com.example.urlshortener.service.ShortCodeFilter;
+import com.example.urlshortener.service.UrlShortenerService;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:sharded",
+      "sharding.enabled=true",
+      "sharding.shards.shard1.url=jdbc:h2:mem:sharded1;DB_CLOSE_DELAY=-1",
+      "sharding.shards.shard2.url=jdbc:h2:mem:sharded2;DB_CLOSE_DELAY=-1",
+      "sharding.previous-shards=primary",
+      "sharding.rebalance.interval=PT1H",
+      "sharding.rebalance.pause-between-batches=PT0S"
+    })
+class ShardedUrlMappingRepositoryTest {
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Autowired private BatchShortenService batchShortenService;
+
+  @Autowired private ShortCodeFilter shortCodeFilter;
+
+  @Autowired private LinkReaper linkReaper;
+
+  @Autowired private LinkShards linkShards;
+
+  @Test
+  void testShorten_StoresLinkOnOwningShardOnly() {
+    Set<String> used = new HashSet<>();
+    for (int i = 0; i < 30; i++) {
+      String code =
+          urlShortenerService
+              .shorten("https://example.com/sharded/" + i, null, null)
+              .getShortCode();
+      assertStoredOnOwnerOnly(code);
+      used.add(linkShards.owner(code).name());
+      assertEquals(
+          "https://example.com/sharded/" + i,
+          urlShortenerService.resolve(code).orElseThrow().targetUrl());
+    }
+    assertEquals(3, used.size());
+  }
+
+  @Test
+  void testShortenAll_StoresEachLinkOnItsOwningShard() {
+    List<ShortenRequest> requests = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      ShortenRequest request = new ShortenRequest();
+      request.setLongUrl("https://example.com/sharded-batch/" + i);
+      request.setCustomAlias(i % 2 == 0 ? "shardbatch" + i : null);
+      requests.add(request);
+    }
+
+    List<BatchShortenResult> results = batchShortenService.shortenAll(requests);
+
+    for (BatchShortenResult result : results) {
+      assertTrue(result.isSuccess(), result.error());
+      assertStoredOnOwnerOnly(result.shortCode());
+    }
+  }
+
+  @Test
+  void testShorten_DuplicateAliasIsRejected() {
+    urlShortenerService.shorten("https://example.com/sharded-alias", "shardalias", null);
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> urlShortenerService.shorten("https://example.com/other", "shardalias", null));
+  }
+
+  @Test
+  void testRebuild_FilterIncludesCodesOnEveryShard() {
+    List<String> codes = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      codes.add(
+          urlShortenerService
+              .shorten("https://example.com/sharded-filter/" + i, null, null)
+              .getShortCode());
+    }
+
+    shortCodeFilter.rebuild();
+
+    codes.forEach(code -> assertTrue(shortCodeFilter.mightContain(code), code));
+  }
+
+  @Test
+  void testReap_ArchivesExpiredLinksOnEveryShard() {
+    Instant now = Instant.now();
+    List<String> codes = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      codes.add(
+          urlShortenerService
+              .shorten(
+                  "https://example.com/sharded-expired/" + i,
+                  "shardreap" + i,
+                  now.minus(2, ChronoUnit.DAYS))
+              .getShortCode());
+    }
+
+    linkReaper.reap(now);
+
+    for (String code : codes) {
+      for (Shard shard : linkShards.all()) {
+        assertEquals(0, count(shard, "links_core", code), code);
+      }
+      assertEquals(1, count(linkShards.owner(code), "links_archive", code), code);
+    }
+  }
+
+  private void assertStoredOnOwnerOnly(String code) {
+    Shard owner = linkShards.owner(code);
+    for (Shard shard : linkShards.all()) {
+      assertEquals(shard == owner ? 1 : 0, count(shard, "links_core", code), shard.name());
+    }
+  }
+
+  private static int count(Shard shard, String table, String code) {
+    Integer count =
+        shard
+            .jdbcTemplate()
+            .queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE code = ?", Integer.class, code);
+    return count != null ? count : 0;
+  }
+}
@@ -0,0 +1,110 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.dto.ShortenRequest;
+import com.example.urlshortener.repository.UrlMappingRepository;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class BatchShortenServiceTest {
+  private static final Logger log = LoggerFactory.getLogger(BatchShortenServiceTest.class);
+
+  @Autowired private BatchShortenService batchService;
+
+  @Autowired private UrlShortenerService service;
+
+  @Autowired private UrlMappingRepository repository;
+
+  @BeforeEach
+  void setUp() {
+    repository.deleteAll();
+  }
+
+  private static ShortenRequest request(String longUrl, String customAlias) {
+    ShortenRequest request = new ShortenRequest();
+    request.setLongUrl(longUrl);
+    request.setCustomAlias(customAlias);
+    return request;
+  }
+
+  @Test
+  void testShortenAll_ReportsPerItemResults() {
+    service.shorten("https://example.com/existing", "batch-taken", null);
+
+    List<BatchShortenResult> results =
+        batchService.shortenAll(
+            List.of(
+                request("https://example.com/one", null),
+                request("javascript:alert('xss')", null),
+                request("https://example.com/two", "batch-alias"),
+                request("https://example.com/three", "batch-alias"),
+                request("https://example.com/four", "batch-taken")));
+
+    assertEquals(5, results.size());
+    assertTrue(results.get(0).isSuccess());
+    assertFalse(results.get(1).isSuccess());
+    assertEquals("batch-alias", results.get(2).shortCode());
+    assertFalse(results.get(3).isSuccess());
+    assertEquals("Custom alias already exists", results.get(4).error());
+    for (int i = 0; i < results.size(); i++) {
+      assertEquals(i, results.get(i).index());
+    }
+
+    String decrypted =
+        service.decryptUrl(
+            service.findByCode(results.get(0).shortCode()).orElseThrow().getEncryptedLongUrl());
+    assertEquals("https://example.com/one", decrypted);
+  }
+
+  @Test
+  void testShortenAll_LargeBatchThroughput() {
+    int size = 5_000;
+    List<ShortenRequest> requests = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      requests.add(request("https://example.com/campaign/" + i, null));
+    }
+
+    long start = System.nanoTime();
+    List<BatchShortenResult> results = batchService.shortenAll(requests);
+    long elapsedNanos = System.nanoTime() - start;
+
+    Set<String> codes = new HashSet<>();
+    for (BatchShortenResult result : results) {
+      assertTrue(result.isSuccess(), result.error());
+      codes.add(result.shortCode());
+    }
+    assertEquals(size, codes.size());
+    assertEquals(size, repository.count());
+
+    log.info(
+        "Batch shortened {} URLs in {} ms ({} URLs/s)",
+        size,
+        elapsedNanos / 1_000_000,
+        size * 1_000_000_000L / elapsedNanos);
+  }
+
+  @Test
+  void testShortenAll_ExceedsMaxBatchSize_ThrowsException() {
+    List<ShortenRequest> requests =
+        Collections.nCopies(
+            batchService.getMaxBatchSize() + 1, request("https://example.com/", null));
+
+    assertThrows(IllegalArgumentException.class, () -> batchService.shortenAll(requests));
+  }
+
+  @Test
+  void testShortenAll_EmptyBatch_ThrowsException() {
+    assertThrows(IllegalArgumentException.class, () -> batchService.shortenAll(List.of()));
+  }
+}
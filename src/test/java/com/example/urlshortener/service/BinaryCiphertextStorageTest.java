@@ -0,0 +1,67 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.model.UrlMapping;
+import java.sql.Timestamp;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = {"encryption.storage=binary", "encryption.compression-threshold=64"})
+class BinaryCiphertextStorageTest {
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Autowired private EncryptionService encryptionService;
+
+  @Autowired private ReencryptionService reencryptionService;
+
+  @Autowired private ShortCodeFilter shortCodeFilter;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testShorten_StoresBinaryCiphertext() {
+    String longUrl = "https://example.com/binary?" + "q=compressible&".repeat(20);
+
+    UrlMapping mapping = urlShortenerService.shorten(longUrl, "binstore", null);
+
+    assertNull(mapping.getEncryptedLongUrl());
+    assertNull(storedText("binstore"));
+    byte[] stored = storedBinary("binstore");
+    assertTrue(stored.length < longUrl.length(), "long URLs are compressed");
+    assertEquals(longUrl, urlShortenerService.resolve("binstore").orElseThrow().targetUrl());
+  }
+
+  @Test
+  void testReencryption_MovesTextRowsToBinary() {
+    jdbcTemplate.update(
+        "INSERT INTO links_core (code, target_url, created_at, is_disabled) VALUES (?, ?, ?, ?)",
+        "bintext",
+        encryptionService.encrypt("https://example.com/text-row"),
+        Timestamp.from(Instant.now()),
+        false);
+    shortCodeFilter.add("bintext");
+
+    reencryptionService.run();
+
+    assertNull(storedText("bintext"));
+    assertNotNull(storedBinary("bintext"));
+    assertEquals(
+        "https://example.com/text-row",
+        urlShortenerService.resolve("bintext").orElseThrow().targetUrl());
+  }
+
+  private String storedText(String code) {
+    return jdbcTemplate.queryForObject(
+        "SELECT target_url FROM links_core WHERE code = ?", String.class, code);
+  }
+
+  private byte[] storedBinary(String code) {
+    return jdbcTemplate.queryForObject(
+        "SELECT target_bin FROM links_core WHERE code = ?", byte[].class, code);
+  }
+}
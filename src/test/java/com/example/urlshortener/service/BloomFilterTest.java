@@ -0,0 +1,51 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+  @Test
+  void testMightContain_NoFalseNegatives() {
+    BloomFilter filter = new BloomFilter(100_000, 0.01);
+    for (int i = 0; i < 100_000; i++) {
+      filter.put("code" + i);
+    }
+
+    for (int i = 0; i < 100_000; i++) {
+      assertTrue(filter.mightContain("code" + i), "code" + i);
+    }
+  }
+
+  @Test
+  void testMightContain_FalsePositiveRateNearTarget() {
+    BloomFilter filter = new BloomFilter(100_000, 0.01);
+    for (int i = 0; i < 100_000; i++) {
+      filter.put("code" + i);
+    }
+
+    int falsePositives = 0;
+    for (int i = 0; i < 100_000; i++) {
+      if (filter.mightContain("other" + i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 2_000, "False positives: " + falsePositives);
+  }
+
+  @Test
+  void testSizing_MatchesOptimalParameters() {
+    BloomFilter filter = new BloomFilter(1_000_000, 0.01);
+
+    // About 9.6 bits and 7 hashes per element for a 1% false positive rate
+    assertEquals(7, filter.hashCount());
+    assertTrue(filter.sizeInBytes() > 1_150_000 && filter.sizeInBytes() < 1_250_000);
+  }
+
+  @Test
+  void testInvalidParameters_Rejected() {
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilter(0, 0.01));
+    assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+  }
+}
@@ -0,0 +1,99 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.UrlShortenerApplication;
+import com.example.urlshortener.model.ResolvedLink;
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.repository.UrlMappingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Runs a second application instance against the same in-memory database. Flushes and polls are
+ * driven by the test, so the scheduled ones are pushed out of the way.
+ */
+@SpringBootTest(
+    properties = {
+      "invalidation.bus=changelog",
+      "invalidation.flush-interval=PT1H",
+      "invalidation.poll-interval=PT1H"
+    })
+class ChangeLogInvalidationBusTest {
+
+  @Autowired private UrlShortenerService service;
+
+  @Autowired private UrlMappingRepository repository;
+
+  @Autowired private ChangeLogInvalidationBus bus;
+
+  private ConfigurableApplicationContext other;
+  private UrlShortenerService otherService;
+  private ChangeLogInvalidationBus otherBus;
+
+  @BeforeEach
+  void setUp() {
+    other =
+        new SpringApplicationBuilder(UrlShortenerApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "invalidation.bus=changelog",
+                "invalidation.flush-interval=PT1H",
+                "invalidation.poll-interval=PT1H")
+            .run();
+    otherService = other.getBean(UrlShortenerService.class);
+    otherBus = other.getBean(ChangeLogInvalidationBus.class);
+    // Start tailing the change log before anything is published
+    otherBus.poll();
+  }
+
+  @AfterEach
+  void tearDown() {
+    other.close();
+  }
+
+  @Test
+  void testDisableOnOneInstance_InvalidatesTheOther() {
+    UrlMapping mapping = service.shorten("https://example.com/clustered", "clustered", null);
+    bus.flush();
+
+    // The code was created after the other instance built its filter
+    assertTrue(otherBus.poll() >= 1);
+    Optional<ResolvedLink> cached = otherService.resolve("clustered");
+    assertTrue(cached.isPresent());
+    assertFalse(cached.get().disabled());
+
+    mapping.setDisabled(true);
+    repository.save(mapping);
+
+    // Still served from the other instance's cache until the change arrives
+    assertFalse(otherService.resolve("clustered").get().disabled());
+
+    assertEquals(1, bus.flush());
+    assertEquals(1, otherBus.poll());
+    assertTrue(otherService.resolve("clustered").get().disabled());
+    assertTrue(
+        other.getBean(MeterRegistry.class).get("urlshortener.invalidation.lag").timer().count()
+            >= 2);
+  }
+
+  @Test
+  void testRepeatedChanges_AreCoalesced() {
+    bus.publish("coalesced");
+    bus.publish("coalesced");
+    bus.publish("coalesced");
+
+    assertEquals(1, bus.flush());
+    assertEquals(1, otherBus.poll());
+    // An instance ignores its own entries
+    assertEquals(0, bus.poll());
+  }
+}
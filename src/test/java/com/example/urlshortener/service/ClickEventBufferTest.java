@@ -0,0 +1,83 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ClickEventBufferTest {
+
+  @Test
+  void testCapacity_RoundedUpToPowerOfTwo() {
+    assertEquals(8, new ClickEventBuffer(5).capacity());
+    assertEquals(8, new ClickEventBuffer(8).capacity());
+  }
+
+  @Test
+  void testDrain_ReturnsEventsInOrder() {
+    ClickEventBuffer buffer = new ClickEventBuffer(8);
+    buffer.offer("a", 1);
+    buffer.offer("b", 2);
+    buffer.offer("a", 3);
+
+    List<String> events = new ArrayList<>();
+    int drained = buffer.drain((code, minute) -> events.add(code + "@" + minute), 10);
+
+    assertEquals(3, drained);
+    assertEquals(List.of("a@1", "b@2", "a@3"), events);
+    assertEquals(0, buffer.size());
+  }
+
+  @Test
+  void testOffer_FullBufferDropsAndCounts() {
+    ClickEventBuffer buffer = new ClickEventBuffer(4);
+    for (int i = 0; i < 4; i++) {
+      assertTrue(buffer.offer("code" + i, i));
+    }
+
+    assertFalse(buffer.offer("overflow", 5));
+    assertEquals(1, buffer.dropped());
+
+    // Draining frees the slots for the next lap
+    assertEquals(4, buffer.drain((code, minute) -> {}, 10));
+    assertTrue(buffer.offer("next", 6));
+  }
+
+  @Test
+  void testConcurrentProducers_EveryEventIsDrainedOrDropped() throws Exception {
+    ClickEventBuffer buffer = new ClickEventBuffer(1024);
+    int producers = 8;
+    int perProducer = 50_000;
+    AtomicLong consumed = new AtomicLong();
+    CountDownLatch done = new CountDownLatch(producers);
+
+    ExecutorService executor = Executors.newFixedThreadPool(producers);
+    try {
+      for (int p = 0; p < producers; p++) {
+        String code = "code" + p;
+        executor.submit(
+            () -> {
+              for (int i = 0; i < perProducer; i++) {
+                buffer.offer(code, i);
+              }
+              done.countDown();
+            });
+      }
+      while (done.getCount() > 0) {
+        consumed.addAndGet(buffer.drain((code, minute) -> assertNotNull(code), 256));
+      }
+      consumed.addAndGet(buffer.drain((code, minute) -> assertNotNull(code), Integer.MAX_VALUE));
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    assertEquals((long) producers * perProducer, consumed.get() + buffer.dropped());
+  }
+}
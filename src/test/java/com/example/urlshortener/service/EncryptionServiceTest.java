@@ -2,13 +2,20 @@ package com.example.urlshortener.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.example.urlshortener.model.EncryptedUrl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.jupiter.api.Test;
 
 class EncryptionServiceTest {
 
   @Test
   void testEncryptDecrypt_Success() {
-    EncryptionService service = new EncryptionService("");
+    EncryptionService service = new EncryptionService("", new SimpleMeterRegistry());
     String plaintext = "https://example.com/test?user=john&id=12345";
 
     String encrypted = service.encrypt(plaintext);
@@ -20,7 +27,7 @@ class EncryptionServiceTest {
 
   @Test
   void testEncrypt_ProducesDifferentCiphertexts() {
-    EncryptionService service = new EncryptionService("");
+    EncryptionService service = new EncryptionService("", new SimpleMeterRegistry());
     String plaintext = "https://example.com/test";
 
     String encrypted1 = service.encrypt(plaintext);
@@ -36,7 +43,7 @@ class EncryptionServiceTest {
 
   @Test
   void testEncrypt_HandlesSpecialCharacters() {
-    EncryptionService service = new EncryptionService("");
+    EncryptionService service = new EncryptionService("", new SimpleMeterRegistry());
     String plaintext = "https://example.com/test?q=hello+world&foo=bar&special=!@#$%^&*()";
 
     String encrypted = service.encrypt(plaintext);
@@ -47,7 +54,7 @@ class EncryptionServiceTest {
 
   @Test
   void testEncrypt_HandlesLongUrls() {
-    EncryptionService service = new EncryptionService("");
+    EncryptionService service = new EncryptionService("", new SimpleMeterRegistry());
     StringBuilder sb = new StringBuilder("https://example.com/");
     for (int i = 0; i < 1000; i++) {
       sb.append("a");
@@ -60,9 +67,35 @@ class EncryptionServiceTest {
     assertEquals(plaintext, decrypted);
   }
 
+  @Test
+  void testEncryptDecrypt_ConcurrentCallers() throws Exception {
+    EncryptionService service = new EncryptionService("", new SimpleMeterRegistry());
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < 1000; i++) {
+        String plaintext = "https://example.com/concurrent/" + i;
+        results.add(
+            executor.submit(() -> plaintext.equals(service.decrypt(service.encrypt(plaintext)))));
+      }
+      for (Future<Boolean> result : results) {
+        assertTrue(result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testDecrypt_TruncatedData_ThrowsException() {
+    EncryptionService service = new EncryptionService("", new SimpleMeterRegistry());
+
+    assertThrows(RuntimeException.class, () -> service.decrypt("AAAA"));
+  }
+
   @Test
   void testDecrypt_InvalidData_ThrowsException() {
-    EncryptionService service = new EncryptionService("");
+    EncryptionService service = new EncryptionService("", new SimpleMeterRegistry());
 
     assertThrows(RuntimeException.class, () -> service.decrypt("invalid-data"));
   }
@@ -71,7 +104,7 @@ class EncryptionServiceTest {
   void testEncryptionService_WithProvidedKey() {
     // Use a properly generated test key (32 bytes)
     String key = "dGVzdGtleWZvcmVuY3J5cHRpb250ZXN0aW5nMTIzNDU="; // base64 of 32-byte string
-    EncryptionService service = new EncryptionService(key);
+    EncryptionService service = new EncryptionService(key, new SimpleMeterRegistry());
 
     String plaintext = "https://example.com/test";
     String encrypted = service.encrypt(plaintext);
@@ -84,6 +117,103 @@ class EncryptionServiceTest {
   void testEncryptionService_InvalidKeyLength_ThrowsException() {
     String invalidKey = "short";
 
-    assertThrows(IllegalArgumentException.class, () -> new EncryptionService(invalidKey));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> new EncryptionService(invalidKey, new SimpleMeterRegistry()));
+  }
+
+  private static final String OLD_KEY = "dGVzdGtleWZvcmVuY3J5cHRpb250ZXN0aW5nMTIzNDU=";
+  private static final String NEW_KEY = "bmV3a2V5Zm9yZW5jcnlwdGlvbnRlc3RpbmcxMjM0NTY=";
+
+  private static EncryptionService withKeyring(
+      String activeKeyId, String storage, int compressionThreshold) {
+    return new EncryptionService(
+        OLD_KEY,
+        "k2:" + NEW_KEY,
+        activeKeyId,
+        storage,
+        compressionThreshold,
+        new SimpleMeterRegistry());
+  }
+
+  @Test
+  void testKeyring_EncryptsWithActiveKeyAndDecryptsLegacy() {
+    EncryptionService legacy = new EncryptionService(OLD_KEY, new SimpleMeterRegistry());
+    EncryptionService rotated = withKeyring("k2", "text", 0);
+    String plaintext = "https://example.com/rotated";
+    String oldCiphertext = legacy.encrypt(plaintext);
+
+    String newCiphertext = rotated.encrypt(plaintext);
+
+    assertTrue(newCiphertext.startsWith("k2$"));
+    assertEquals(plaintext, rotated.decrypt(newCiphertext));
+    assertEquals(plaintext, rotated.decrypt(oldCiphertext));
+    assertFalse(rotated.isEncryptedWithActiveKey(oldCiphertext));
+    assertTrue(rotated.isEncryptedWithActiveKey(newCiphertext));
+  }
+
+  @Test
+  void testReencrypt_MovesCiphertextToActiveKey() {
+    EncryptionService legacy = new EncryptionService(OLD_KEY, new SimpleMeterRegistry());
+    EncryptionService rotated = withKeyring("k2", "text", 0);
+    String oldCiphertext = legacy.encrypt("https://example.com/reencrypt");
+
+    String reencrypted = rotated.reencrypt(oldCiphertext);
+
+    assertTrue(rotated.isEncryptedWithActiveKey(reencrypted));
+    assertEquals("https://example.com/reencrypt", rotated.decrypt(reencrypted));
+  }
+
+  @Test
+  void testDecrypt_UnknownKeyId_ThrowsException() {
+    EncryptionService rotated = withKeyring("k2", "text", 0);
+    String ciphertext = rotated.encrypt("https://example.com/unknown");
+
+    EncryptionService other = new EncryptionService(OLD_KEY, new SimpleMeterRegistry());
+
+    assertThrows(RuntimeException.class, () -> other.decrypt(ciphertext));
+  }
+
+  @Test
+  void testKeyring_ActiveKeyNotInKeyring_ThrowsException() {
+    assertThrows(IllegalArgumentException.class, () -> withKeyring("k3", "text", 0));
+  }
+
+  @Test
+  void testBinaryStorage_RoundTripsAndCompressesLongUrls() {
+    EncryptionService service = withKeyring("k2", "binary", 64);
+    String shortUrl = "https://example.com/short";
+    String longUrl = "https://example.com/long?" + "param=value&".repeat(30);
+
+    EncryptedUrl shortCiphertext = service.encryptForStorage(shortUrl);
+    EncryptedUrl longCiphertext = service.encryptForStorage(longUrl);
+
+    assertTrue(shortCiphertext.isBinary());
+    assertEquals(shortUrl, service.decrypt(shortCiphertext));
+    assertEquals(longUrl, service.decrypt(longCiphertext));
+    assertTrue(longCiphertext.binary().length < longUrl.length());
+    assertTrue(service.isInStorageForm(longCiphertext));
+  }
+
+  @Test
+  void testBinaryStorage_TextCiphertextIsMigrated() {
+    EncryptionService legacy = new EncryptionService(OLD_KEY, new SimpleMeterRegistry());
+    EncryptionService binary = withKeyring("", "binary", 0);
+    EncryptedUrl text = EncryptedUrl.ofText(legacy.encrypt("https://example.com/migrate"));
+
+    assertFalse(binary.isInStorageForm(text));
+    EncryptedUrl migrated = binary.reencrypt(text);
+
+    assertTrue(binary.isInStorageForm(migrated));
+    assertEquals("https://example.com/migrate", binary.decrypt(migrated));
+  }
+
+  @Test
+  void testBinaryStorage_TamperedHeader_ThrowsException() {
+    EncryptionService service = withKeyring("", "binary", 0);
+    byte[] envelope = service.encryptToBytes("https://example.com/tamper");
+    envelope[0] ^= 1;
+
+    assertThrows(RuntimeException.class, () -> service.decryptBytes(envelope));
   }
 }
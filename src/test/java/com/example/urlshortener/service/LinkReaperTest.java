@@ -0,0 +1,135 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.dto.ShortenRequest;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+@Import(ScriptedShortCodeAllocator.Config.class)
+class LinkReaperTest {
+
+  @Autowired private LinkReaper linkReaper;
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Autowired private BatchShortenService batchShortenService;
+
+  @Autowired private ShortCodeFilter shortCodeFilter;
+
+  @Autowired private ScriptedShortCodeAllocator shortCodeAllocator;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testReap_ArchivesExpiredLinksPastGracePeriod() {
+    Instant now = Instant.now();
+    urlShortenerService.shorten(
+        "https://example.com/long-expired", "reapold", now.minus(2, ChronoUnit.DAYS));
+    urlShortenerService.shorten(
+        "https://example.com/just-expired", "reapnew", now.minus(1, ChronoUnit.MINUTES));
+    urlShortenerService.shorten(
+        "https://example.com/live", "reaplive", now.plus(1, ChronoUnit.DAYS));
+
+    // Populate the redirect cache so the reaper has to invalidate it
+    assertTrue(urlShortenerService.resolve("reapold").isPresent());
+
+    linkReaper.reap(now);
+
+    assertFalse(existsInCore("reapold"));
+    assertTrue(existsInCore("reapnew"));
+    assertTrue(existsInCore("reaplive"));
+    assertEquals("expired", archiveReason("reapold"));
+    assertFalse(urlShortenerService.resolve("reapold").isPresent());
+  }
+
+  @Test
+  void testReap_ArchivesLongDisabledLinks() {
+    Instant now = Instant.now();
+    urlShortenerService.shorten("https://example.com/disabled-old", "reapdisold", null);
+    urlShortenerService.shorten("https://example.com/disabled-new", "reapdisnew", null);
+    disable("reapdisold", now.minus(60, ChronoUnit.DAYS));
+    disable("reapdisnew", now.minus(1, ChronoUnit.DAYS));
+
+    linkReaper.reap(now);
+
+    assertFalse(existsInCore("reapdisold"));
+    assertTrue(existsInCore("reapdisnew"));
+    assertEquals("disabled", archiveReason("reapdisold"));
+  }
+
+  @Test
+  void testReap_ReapedAliasStaysReserved() {
+    Instant now = Instant.now();
+    urlShortenerService.shorten(
+        "https://example.com/first", "reapreuse", now.minus(2, ChronoUnit.DAYS));
+    linkReaper.reap(now);
+    // A rebuild must keep archived codes in the filter, or the alias check would be skipped
+    shortCodeFilter.rebuild();
+
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> urlShortenerService.shorten("https://example.com/second", "reapreuse", null));
+
+    assertEquals("Custom alias already exists", e.getMessage());
+    assertFalse(urlShortenerService.resolve("reapreuse").isPresent());
+
+    ShortenRequest request = new ShortenRequest();
+    request.setLongUrl("https://example.com/second");
+    request.setCustomAlias("reapreuse");
+    BatchShortenResult result = batchShortenService.shortenAll(List.of(request)).get(0);
+    assertEquals("Custom alias already exists", result.error());
+  }
+
+  @Test
+  void testReap_ReapedAliasIsNotAllocatedAgain() {
+    Instant now = Instant.now();
+    // A six character Base62 alias lies in the space codes are generated from
+    urlShortenerService.shorten(
+        "https://example.com/promo", "promo1", now.minus(2, ChronoUnit.DAYS));
+    linkReaper.reap(now);
+
+    shortCodeAllocator.willAllocate("promo1");
+    String generated =
+        urlShortenerService.shorten("https://example.com/generated", null, null).getShortCode();
+
+    shortCodeAllocator.willAllocate("promo1");
+    ShortenRequest request = new ShortenRequest();
+    request.setLongUrl("https://example.com/batch-generated");
+    BatchShortenResult result = batchShortenService.shortenAll(List.of(request)).get(0);
+
+    assertNotEquals("promo1", generated);
+    assertTrue(result.isSuccess());
+    assertNotEquals("promo1", result.shortCode());
+    assertFalse(existsInCore("promo1"));
+    assertFalse(urlShortenerService.resolve("promo1").isPresent());
+  }
+
+  private void disable(String code, Instant disabledAt) {
+    jdbcTemplate.update(
+        "UPDATE links_core SET is_disabled = TRUE, disabled_at = ? WHERE code = ?",
+        Timestamp.from(disabledAt),
+        code);
+  }
+
+  private boolean existsInCore(String code) {
+    Integer count =
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM links_core WHERE code = ?", Integer.class, code);
+    return count != null && count > 0;
+  }
+
+  private String archiveReason(String code) {
+    return jdbcTemplate.queryForObject(
+        "SELECT archive_reason FROM links_archive WHERE code = ?", String.class, code);
+  }
+}
@@ -0,0 +1,170 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.model.EncryptedUrl;
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.repository.SnapshotUrlMappingReadRepository;
+import com.example.urlshortener.repository.UrlMappingRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:snapshot",
+      "snapshot.enabled=true",
+      "snapshot.check-interval=PT1H",
+      "redirect.cache.enabled=false"
+    })
+class LinkSnapshotCompilerTest {
+
+  @TempDir static Path snapshotDirectory;
+
+  @DynamicPropertySource
+  static void snapshotPath(DynamicPropertyRegistry registry) {
+    registry.add("snapshot.path", () -> snapshotDirectory.resolve("links.snapshot").toString());
+  }
+
+  @Autowired private LinkSnapshotCompiler linkSnapshotCompiler;
+
+  @Autowired private SnapshotUrlMappingReadRepository snapshotRepository;
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Autowired private UrlMappingRepository repository;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private EncryptionService encryptionService;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Test
+  void testCompile_ServesRedirectsFromSnapshot() {
+    UrlMapping mapping =
+        urlShortenerService.shorten("https://example.com/snapshot", "snapshot-hit", null);
+    linkSnapshotCompiler.compile();
+    double before = lookups("snapshot");
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(
+          "https://example.com/snapshot",
+          urlShortenerService.resolve(mapping.getShortCode()).orElseThrow().targetUrl());
+    }
+
+    assertEquals(before + 3, lookups("snapshot"));
+    assertTrue(snapshotRepository.snapshot().contains("snapshot-hit"));
+  }
+
+  @Test
+  void testResolve_LinkCreatedAfterSnapshotComesFromDatabase() {
+    linkSnapshotCompiler.compile();
+    UrlMapping mapping =
+        urlShortenerService.shorten("https://example.com/snapshot-new", "snapshot-new", null);
+    double before = lookups("database");
+
+    assertEquals(
+        "https://example.com/snapshot-new",
+        urlShortenerService.resolve(mapping.getShortCode()).orElseThrow().targetUrl());
+    assertEquals(before + 1, lookups("database"));
+    assertFalse(snapshotRepository.snapshot().contains("snapshot-new"));
+  }
+
+  @Test
+  void testResolve_LinkDisabledAfterSnapshotIsDisabled() {
+    UrlMapping mapping =
+        urlShortenerService.shorten("https://example.com/snapshot-off", "snapshot-off", null);
+    linkSnapshotCompiler.compile();
+    assertFalse(urlShortenerService.resolve("snapshot-off").orElseThrow().disabled());
+
+    mapping.setDisabled(true);
+    repository.save(mapping);
+
+    assertTrue(urlShortenerService.resolve("snapshot-off").orElseThrow().disabled());
+
+    // The next snapshot holds the change itself
+    linkSnapshotCompiler.compile();
+    double before = lookups("snapshot");
+    assertTrue(urlShortenerService.resolve("snapshot-off").orElseThrow().disabled());
+    assertEquals(before + 1, lookups("snapshot"));
+  }
+
+  @Test
+  void testLoad_MapsExistingFileAndSkipsLinksDisabledSince() {
+    urlShortenerService.shorten("https://example.com/snapshot-restart", "snapshot-restart", null);
+    linkSnapshotCompiler.compile();
+
+    // Disabled while this instance was not running, so no change was reported
+    jdbcTemplate.update(
+        "UPDATE links_core SET is_disabled = TRUE, disabled_at = ? WHERE code = ?",
+        Timestamp.from(Instant.now()),
+        "snapshot-restart");
+
+    assertTrue(linkSnapshotCompiler.load());
+    assertTrue(snapshotRepository.snapshot().contains("snapshot-restart"));
+    assertTrue(urlShortenerService.resolve("snapshot-restart").orElseThrow().disabled());
+  }
+
+  @Test
+  void testLoad_SkipsLinksRecreatedReapedOrLoggedSince() {
+    urlShortenerService.shorten("https://example.com/snapshot-old", "snapshot-recreated", null);
+    urlShortenerService.shorten("https://example.com/snapshot-old", "snapshot-reaped", null);
+    urlShortenerService.shorten("https://example.com/snapshot-old", "snapshot-imported", null);
+    linkSnapshotCompiler.compile();
+    Timestamp now = Timestamp.from(Instant.now());
+
+    // Written while this instance was not running, so no change was reported
+    EncryptedUrl recreated = encryptionService.encryptForStorage("https://example.com/recreated");
+    jdbcTemplate.update(
+        "UPDATE links_core SET target_url = ?, target_bin = ?, created_at = ? WHERE code = ?",
+        recreated.text(),
+        recreated.binary(),
+        now,
+        "snapshot-recreated");
+    jdbcTemplate.update(
+        "INSERT INTO links_archive (code, target_url, target_bin, expiry_ts, is_disabled,"
+            + " disabled_at, created_at, archived_at, archive_reason) SELECT code, target_url,"
+            + " target_bin, expiry_ts, is_disabled, disabled_at, created_at, ?, 'expired'"
+            + " FROM links_core WHERE code = ?",
+        now,
+        "snapshot-reaped");
+    jdbcTemplate.update("DELETE FROM links_core WHERE code = ?", "snapshot-reaped");
+    EncryptedUrl imported = encryptionService.encryptForStorage("https://example.com/imported");
+    jdbcTemplate.update(
+        "UPDATE links_core SET target_url = ?, target_bin = ? WHERE code = ?",
+        imported.text(),
+        imported.binary(),
+        "snapshot-imported");
+    jdbcTemplate.update(
+        "INSERT INTO link_invalidations (code, origin, changed_at) VALUES (?, ?, ?)",
+        "snapshot-imported",
+        "other-instance",
+        now);
+
+    assertTrue(linkSnapshotCompiler.load());
+    assertEquals(
+        "https://example.com/recreated",
+        urlShortenerService.resolve("snapshot-recreated").orElseThrow().targetUrl());
+    assertFalse(urlShortenerService.resolve("snapshot-reaped").isPresent());
+    assertEquals(
+        "https://example.com/imported",
+        urlShortenerService.resolve("snapshot-imported").orElseThrow().targetUrl());
+  }
+
+  private double lookups(String source) {
+    return meterRegistry
+        .get("urlshortener.snapshot.lookups")
+        .tag("source", source)
+        .counter()
+        .count();
+  }
+}
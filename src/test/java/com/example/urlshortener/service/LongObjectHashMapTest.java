@@ -0,0 +1,52 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class LongObjectHashMapTest {
+
+  @Test
+  void testOperations_MatchHashMap() {
+    LongObjectHashMap<Integer> map = new LongObjectHashMap<>();
+    Map<Long, Integer> expected = new HashMap<>();
+    Random random = new Random(42);
+
+    // A small key range so puts, removes and probe runs collide constantly, including key 0
+    for (int i = 0; i < 200_000; i++) {
+      long key = random.nextInt(2_000) - 100;
+      switch (random.nextInt(4)) {
+        case 0 -> assertEquals(expected.put(key, i), map.put(key, i));
+        case 1 -> assertEquals(expected.putIfAbsent(key, i), map.putIfAbsent(key, i));
+        case 2 -> assertEquals(expected.remove(key), map.remove(key));
+        default -> assertEquals(expected.get(key), map.get(key));
+      }
+      assertEquals(expected.size(), map.size());
+    }
+    for (long key = -100; key < 1_900; key++) {
+      assertEquals(expected.get(key), map.get(key), "key " + key);
+    }
+  }
+
+  @Test
+  void testPut_GrowsBeyondExpectedSize() {
+    LongObjectHashMap<String> map = new LongObjectHashMap<>(4);
+    for (long key = 1; key <= 100_000; key++) {
+      map.put(key * 0x9E3779B97F4A7C15L, "value" + key);
+    }
+
+    assertEquals(100_000, map.size());
+    for (long key = 1; key <= 100_000; key++) {
+      assertEquals("value" + key, map.get(key * 0x9E3779B97F4A7C15L));
+    }
+    assertNull(map.get(0));
+  }
+
+  @Test
+  void testPut_RejectsNullValues() {
+    assertThrows(NullPointerException.class, () -> new LongObjectHashMap<>().put(1, null));
+  }
+}
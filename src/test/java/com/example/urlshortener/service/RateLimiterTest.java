@@ -0,0 +1,68 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class RateLimiterTest {
+  private static final long HALF_SECOND = TimeUnit.MILLISECONDS.toNanos(500);
+
+  private final AtomicLong clock = new AtomicLong();
+
+  @Test
+  void testTryAcquire_AllowsBurstThenThrottles() {
+    RateLimiter limiter = new RateLimiter(2, 3, 100, clock::get);
+
+    assertEquals(0, limiter.tryAcquire("client"));
+    assertEquals(0, limiter.tryAcquire("client"));
+    assertEquals(0, limiter.tryAcquire("client"));
+    assertEquals(HALF_SECOND, limiter.tryAcquire("client"));
+  }
+
+  @Test
+  void testTryAcquire_PermitsAreTakenTogether() {
+    RateLimiter limiter = new RateLimiter(2, 3, 100, clock::get);
+
+    assertEquals(0, limiter.tryAcquire("client", 2));
+    // Only one token is left, so two are refused without taking it
+    assertEquals(HALF_SECOND, limiter.tryAcquire("client", 2));
+    assertEquals(0, limiter.tryAcquire("client", 1));
+    assertTrue(limiter.tryAcquire("other", 4) > 0);
+  }
+
+  @Test
+  void testTryAcquire_RefillsAtConfiguredRate() {
+    RateLimiter limiter = new RateLimiter(2, 1, 100, clock::get);
+    assertEquals(0, limiter.tryAcquire("client"));
+    assertTrue(limiter.tryAcquire("client") > 0);
+
+    clock.addAndGet(HALF_SECOND);
+
+    assertEquals(0, limiter.tryAcquire("client"));
+    assertTrue(limiter.tryAcquire("client") > 0);
+  }
+
+  @Test
+  void testTryAcquire_ThrottledRequestsDoNotConsumeTokens() {
+    RateLimiter limiter = new RateLimiter(2, 1, 100, clock::get);
+    limiter.tryAcquire("client");
+    for (int i = 0; i < 10; i++) {
+      limiter.tryAcquire("client");
+    }
+
+    clock.addAndGet(HALF_SECOND);
+
+    assertEquals(0, limiter.tryAcquire("client"));
+  }
+
+  @Test
+  void testTryAcquire_ClientsHaveSeparateBuckets() {
+    RateLimiter limiter = new RateLimiter(1, 1, 100, clock::get);
+
+    assertEquals(0, limiter.tryAcquire("first"));
+    assertTrue(limiter.tryAcquire("first") > 0);
+    assertEquals(0, limiter.tryAcquire("second"));
+  }
+}
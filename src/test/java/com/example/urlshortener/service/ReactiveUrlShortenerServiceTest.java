@@ -0,0 +1,176 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.model.LinkView;
+import com.example.urlshortener.model.ResolvedLink;
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.repository.R2dbcUrlMappingRepository;
+import com.example.urlshortener.repository.ReactiveUrlMappingRepository;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+@SpringBootTest(
+    properties = {
+      "spring.main.web-application-type=reactive",
+      "reactive.r2dbc.url=r2dbc:h2:mem:///testdb"
+    })
+class ReactiveUrlShortenerServiceTest {
+
+  @Autowired private ReactiveUrlShortenerService urlShortenerService;
+
+  @Autowired private CountingRepository repository;
+
+  @Autowired private LinkChangeNotifier linkChangeNotifier;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @AfterEach
+  void openGate() {
+    repository.release();
+  }
+
+  @Test
+  void testResolve_InvalidationDuringLoadIsNotOverwritten() {
+    String code = shorten("https://example.com/reactive-stale");
+    repository.hold();
+
+    // The row is read while the link is live, but the result is held back
+    CompletableFuture<ResolvedLink> stale = urlShortenerService.resolve(code).toFuture();
+    repository.awaitHeldRows(1);
+    jdbcTemplate.update(
+        "UPDATE links_core SET is_disabled = TRUE, disabled_at = ? WHERE code = ?",
+        Timestamp.from(Instant.now()),
+        code);
+    linkChangeNotifier.linkChanged(code);
+    repository.release();
+
+    assertFalse(stale.join().disabled());
+    assertTrue(urlShortenerService.resolve(code).block(Duration.ofSeconds(10)).disabled());
+  }
+
+  @Test
+  void testResolve_ConcurrentMissesShareOneDatabaseRead() {
+    String code = shorten("https://example.com/reactive-herd");
+    repository.hold();
+    int before = repository.findViewCalls();
+
+    // Every lookup joins the load while the first one's row is still held back
+    List<CompletableFuture<ResolvedLink>> lookups = new ArrayList<>();
+    for (int i = 0; i < 32; i++) {
+      lookups.add(urlShortenerService.resolve(code).toFuture());
+    }
+    repository.awaitHeldRows(1);
+    repository.release();
+
+    for (CompletableFuture<ResolvedLink> lookup : lookups) {
+      assertEquals("https://example.com/reactive-herd", lookup.join().targetUrl());
+    }
+    assertEquals(before + 1, repository.findViewCalls());
+  }
+
+  private String shorten(String longUrl) {
+    return urlShortenerService.shorten(longUrl, null, null).block(Duration.ofSeconds(10));
+  }
+
+  /**
+   * Counts {@code findViewByShortCode} calls, which are the database reads behind a redirect, and
+   * can hold the rows they read back until {@link #release} is called.
+   */
+  static class CountingRepository implements ReactiveUrlMappingRepository {
+    private final ReactiveUrlMappingRepository delegate;
+    private final AtomicInteger findViewCalls = new AtomicInteger();
+    private final Semaphore heldRows = new Semaphore(0);
+    private volatile Sinks.Empty<Void> gate;
+
+    CountingRepository(ReactiveUrlMappingRepository delegate) {
+      this.delegate = delegate;
+    }
+
+    int findViewCalls() {
+      return findViewCalls.get();
+    }
+
+    void hold() {
+      heldRows.drainPermits();
+      gate = Sinks.empty();
+    }
+
+    /** Waits until {@code rows} rows read since {@link #hold} are being held back. */
+    void awaitHeldRows(int rows) {
+      try {
+        assertTrue(heldRows.tryAcquire(rows, 10, TimeUnit.SECONDS), "Rows were not read in time");
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    }
+
+    void release() {
+      Sinks.Empty<Void> held = gate;
+      gate = null;
+      if (held != null) {
+        held.tryEmitEmpty();
+      }
+    }
+
+    @Override
+    public Mono<LinkView> findViewByShortCode(String shortCode) {
+      return Mono.defer(
+          () -> {
+            findViewCalls.incrementAndGet();
+            Sinks.Empty<Void> held = gate;
+            Mono<LinkView> view = delegate.findViewByShortCode(shortCode);
+            if (held == null) {
+              return view;
+            }
+            return view.delayUntil(
+                row -> {
+                  heldRows.release();
+                  return held.asMono();
+                });
+          });
+    }
+
+    @Override
+    public Mono<Boolean> existsByShortCode(String shortCode) {
+      return delegate.existsByShortCode(shortCode);
+    }
+
+    @Override
+    public Flux<LinkView> findByUrlHmac(byte[] urlHmac) {
+      return delegate.findByUrlHmac(urlHmac);
+    }
+
+    @Override
+    public Mono<Void> persist(UrlMapping urlMapping) {
+      return delegate.persist(urlMapping);
+    }
+  }
+
+  @TestConfiguration
+  static class CountingRepositoryConfig {
+    @Bean
+    @Primary
+    CountingRepository countingRepository(R2dbcUrlMappingRepository delegate) {
+      return new CountingRepository(delegate);
+    }
+  }
+}
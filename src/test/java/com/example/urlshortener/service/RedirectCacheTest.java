@@ -0,0 +1,227 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.model.ResolvedLink;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+class RedirectCacheTest {
+
+  private static final int CALLERS = 32;
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private RedirectCache newCache(boolean enabled) {
+    return newCache(enabled, Duration.ofSeconds(5));
+  }
+
+  private RedirectCache newCache(boolean enabled, Duration loadTimeout) {
+    return new RedirectCache(
+        enabled, 100, Duration.ofMinutes(10), Duration.ofSeconds(30), loadTimeout, meterRegistry);
+  }
+
+  private Optional<ResolvedLink> load(String code) {
+    loads.incrementAndGet();
+    return Optional.of(
+        new ResolvedLink(code, "https://example.com/" + code, Instant.now(), null, false));
+  }
+
+  private Optional<ResolvedLink> loadMissing(String code) {
+    loads.incrementAndGet();
+    return Optional.empty();
+  }
+
+  @Test
+  void testGet_SecondLookupIsServedFromCache() {
+    RedirectCache cache = newCache(true);
+
+    cache.get("abc123", this::load);
+    Optional<ResolvedLink> result = cache.get("abc123", this::load);
+
+    assertTrue(result.isPresent());
+    assertEquals("https://example.com/abc123", result.get().targetUrl());
+    assertEquals(1, loads.get());
+    assertEquals(
+        1.0, meterRegistry.get("cache.gets").tag("result", "hit").functionCounter().count());
+  }
+
+  @Test
+  void testGet_UnknownCodeIsNegativelyCached() {
+    RedirectCache cache = newCache(true);
+
+    cache.get("missing", this::loadMissing);
+    Optional<ResolvedLink> result = cache.get("missing", this::load);
+
+    assertFalse(result.isPresent());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void testInvalidate_ForcesReload() {
+    RedirectCache cache = newCache(true);
+    cache.get("abc123", this::loadMissing);
+
+    cache.invalidate("abc123");
+    Optional<ResolvedLink> result = cache.get("abc123", this::load);
+
+    assertTrue(result.isPresent());
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testGetAsync_InvalidationDuringLoadIsNotOverwritten() {
+    RedirectCache cache = newCache(true);
+    CompletableFuture<Optional<ResolvedLink>> staleLoad = new CompletableFuture<>();
+    CompletableFuture<Optional<ResolvedLink>> stale = cache.getAsync("abc123", code -> staleLoad);
+
+    cache.invalidate("abc123");
+    staleLoad.complete(load("abc123"));
+
+    assertTrue(stale.join().isPresent());
+    assertFalse(cache.get("abc123", this::loadMissing).isPresent());
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testDisabledCache_AlwaysCallsLoader() {
+    RedirectCache cache = newCache(false);
+
+    cache.get("abc123", this::load);
+    cache.get("abc123", this::load);
+
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testGet_ConcurrentMissesShareOneLoad() throws Exception {
+    assertEquals(0, concurrentLoads(newCache(true), this::load));
+    assertEquals(1, loads.get());
+    assertEquals(CALLERS - 1, sharedLoads());
+  }
+
+  @Test
+  void testDisabledCache_ConcurrentMissesShareOneLoad() throws Exception {
+    assertEquals(0, concurrentLoads(newCache(false), this::load));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void testGet_FailedLoadIsRethrownToEveryWaiterAndNotCached() throws Exception {
+    RedirectCache cache = newCache(true);
+
+    int failures =
+        concurrentLoads(
+            cache,
+            code -> {
+              loads.incrementAndGet();
+              throw new IllegalStateException("database unavailable");
+            });
+
+    assertEquals(CALLERS, failures);
+    assertEquals(1, loads.get());
+    assertTrue(cache.get("abc123", this::load).isPresent());
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void testGet_WaiterGivesUpAfterLoadTimeout() throws Exception {
+    RedirectCache cache = newCache(true, Duration.ofMillis(50));
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Optional<ResolvedLink>> first =
+          executor.submit(
+              () ->
+                  cache.get(
+                      "abc123",
+                      code -> {
+                        loading.countDown();
+                        await(release);
+                        return load(code);
+                      }));
+      loading.await();
+
+      assertThrows(QueryTimeoutException.class, () -> cache.get("abc123", this::load));
+
+      release.countDown();
+      assertTrue(first.get().isPresent());
+      assertEquals(1, loads.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Looks {@code abc123} up from {@link #CALLERS} threads at once while the first load is held back
+   * until every other caller is waiting for it, and returns how many of the lookups failed.
+   */
+  private int concurrentLoads(RedirectCache cache, Function<String, Optional<ResolvedLink>> loader)
+      throws Exception {
+    Function<String, Optional<ResolvedLink>> heldLoader =
+        code -> {
+          awaitSharedLoads(CALLERS - 1);
+          return loader.apply(code);
+        };
+    ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    try {
+      List<Future<Optional<ResolvedLink>>> lookups = new ArrayList<>();
+      for (int i = 0; i < CALLERS; i++) {
+        lookups.add(executor.submit(() -> cache.get("abc123", heldLoader)));
+      }
+      int failures = 0;
+      for (Future<Optional<ResolvedLink>> lookup : lookups) {
+        try {
+          lookup.get(10, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+          assertEquals("database unavailable", e.getCause().getMessage());
+          failures++;
+        }
+      }
+      return failures;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Waits until {@code count} lookups have joined a load started by another lookup. */
+  private void awaitSharedLoads(int count) {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (sharedLoads() < count) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException("Only " + sharedLoads() + " lookups joined the load");
+      }
+      Thread.onSpinWait();
+    }
+  }
+
+  private double sharedLoads() {
+    return meterRegistry.get("urlshortener.redirect.loads.shared").counter().count();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.model.ResolvedLink;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = {"warmup.recent-links=1", "warmup.top-clicked-links=1"})
+class RedirectCacheWarmerTest {
+
+  @Autowired private RedirectCacheWarmer warmer;
+
+  @Autowired private RedirectCache redirectCache;
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void testWarmUp_CachesMostClickedAndMostRecentLinks() {
+    urlShortenerService.shorten("https://example.com/cold", "warmcold", null);
+    urlShortenerService.shorten("https://example.com/popular", "warmpopular", null);
+    jdbcTemplate.update(
+        "INSERT INTO link_clicks (code, bucket_start, clicks) VALUES (?, ?, ?)",
+        "warmpopular",
+        Timestamp.from(Instant.now().minus(1, ChronoUnit.HOURS)),
+        1_000_000);
+    urlShortenerService.shorten("https://example.com/recent", "warmrecent", null);
+
+    assertEquals(2, warmer.warmUp());
+
+    assertEquals("https://example.com/popular", cached("warmpopular").orElseThrow().targetUrl());
+    assertEquals("https://example.com/recent", cached("warmrecent").orElseThrow().targetUrl());
+    assertEquals(0, loads.get());
+    cached("warmcold");
+    assertEquals(1, loads.get());
+  }
+
+  private Optional<ResolvedLink> cached(String code) {
+    return redirectCache.get(
+        code,
+        c -> {
+          loads.incrementAndGet();
+          return Optional.empty();
+        });
+  }
+}
@@ -0,0 +1,63 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.sql.Timestamp;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(
+    properties = {
+      "encryption.key=" + ReencryptionServiceTest.OLD_KEY,
+      "encryption.keys=k2:bmV3a2V5Zm9yZW5jcnlwdGlvbnRlc3RpbmcxMjM0NTY=",
+      "encryption.active-key-id=k2",
+      "reencryption.batch-size=2"
+    })
+class ReencryptionServiceTest {
+  static final String OLD_KEY = "dGVzdGtleWZvcmVuY3J5cHRpb250ZXN0aW5nMTIzNDU=";
+
+  @Autowired private ReencryptionService reencryptionService;
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Autowired private ShortCodeFilter shortCodeFilter;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testRun_RewritesLegacyCiphertextWithActiveKey() {
+    EncryptionService legacy = new EncryptionService(OLD_KEY, new SimpleMeterRegistry());
+    for (int i = 0; i < 5; i++) {
+      String code = "rekey" + i;
+      jdbcTemplate.update(
+          "INSERT INTO links_core (code, target_url, created_at, is_disabled) VALUES (?, ?, ?, ?)",
+          code,
+          legacy.encrypt("https://example.com/rekey/" + i),
+          Timestamp.from(Instant.now()),
+          false);
+      shortCodeFilter.add(code);
+    }
+    urlShortenerService.shorten("https://example.com/rekey/current", "rekeycur", null);
+    String current = storedCiphertext("rekeycur");
+
+    reencryptionService.run();
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(storedCiphertext("rekey" + i).startsWith("k2$"));
+      assertEquals(
+          "https://example.com/rekey/" + i,
+          urlShortenerService.resolve("rekey" + i).orElseThrow().targetUrl());
+    }
+    assertEquals(current, storedCiphertext("rekeycur"), "rows on the active key are untouched");
+    assertFalse(reencryptionService.status().isRunning());
+  }
+
+  private String storedCiphertext(String code) {
+    return jdbcTemplate.queryForObject(
+        "SELECT target_url FROM links_core WHERE code = ?", String.class, code);
+  }
+}
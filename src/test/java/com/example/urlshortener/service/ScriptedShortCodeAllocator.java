@@ -0,0 +1,42 @@
+package com.example.urlshortener.service;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**
+ * A {@link ShortCodeAllocator} that hands out codes queued with {@link #willAllocate} before
+ * falling back to allocating them as usual, so tests can make a generated code collide.
+ */
+class ScriptedShortCodeAllocator extends ShortCodeAllocator {
+  private final Queue<String> scripted = new ConcurrentLinkedQueue<>();
+
+  ScriptedShortCodeAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactions) {
+    super(jdbcTemplate, transactions, 1000, 6, true, "url-shortener");
+  }
+
+  void willAllocate(String... codes) {
+    scripted.addAll(List.of(codes));
+  }
+
+  @Override
+  public String nextCode() {
+    String code = scripted.poll();
+    return code != null ? code : super.nextCode();
+  }
+
+  @TestConfiguration
+  static class Config {
+    @Bean
+    @Primary
+    ScriptedShortCodeAllocator scriptedShortCodeAllocator(
+        JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+      return new ScriptedShortCodeAllocator(jdbcTemplate, transactionManager);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.model.UrlMapping;
+import com.example.urlshortener.repository.LinkShards;
+import com.example.urlshortener.repository.LinkShards.Shard;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest(
+    properties = {
+      "spring.datasource.url=jdbc:h2:mem:sharded",
+      "sharding.enabled=true",
+      "sharding.shards.shard1.url=jdbc:h2:mem:sharded1;DB_CLOSE_DELAY=-1",
+      "sharding.shards.shard2.url=jdbc:h2:mem:sharded2;DB_CLOSE_DELAY=-1",
+      "sharding.previous-shards=primary",
+      "sharding.rebalance.interval=PT1H",
+      "sharding.rebalance.pause-between-batches=PT0S"
+    })
+class ShardRebalancerTest {
+
+  @Autowired private ShardRebalancer shardRebalancer;
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Autowired private EncryptionService encryptionService;
+
+  @Autowired private ShortCodeFilter shortCodeFilter;
+
+  @Autowired private LinkShards linkShards;
+
+  @Test
+  void testRebalance_MovesRowsWrittenBeforeShardingToTheirOwners() {
+    // Rows written while the primary database was the only shard
+    List<String> codes = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      String code = "legacy" + i;
+      insertIntoPrimary(code, "https://example.com/legacy/" + i);
+      codes.add(code);
+    }
+    long misplaced =
+        codes.stream().filter(code -> linkShards.owner(code) != linkShards.primary()).count();
+    assertTrue(misplaced > 0);
+
+    // Lookups fall back to the previous owner until the rows have moved
+    for (int i = 0; i < codes.size(); i++) {
+      assertEquals(
+          "https://example.com/legacy/" + i,
+          urlShortenerService.resolve(codes.get(i)).orElseThrow().targetUrl());
+    }
+
+    assertTrue(shardRebalancer.rebalance() >= misplaced);
+
+    for (int i = 0; i < codes.size(); i++) {
+      String code = codes.get(i);
+      Shard owner = linkShards.owner(code);
+      for (Shard shard : linkShards.all()) {
+        assertEquals(shard == owner ? 1 : 0, count(shard, code), code + " on " + shard.name());
+      }
+      UrlMapping mapping = urlShortenerService.findByCode(code).orElseThrow();
+      assertEquals(
+          "https://example.com/legacy/" + i,
+          urlShortenerService.decryptUrl(mapping.getEncryptedUrl()));
+    }
+    assertEquals(0, shardRebalancer.rebalance());
+  }
+
+  @Test
+  void testShorten_AliasStillOnPreviousShardIsTaken() {
+    String alias = misplacedCode("legacyalias");
+    insertIntoPrimary(alias, "https://example.com/legacy-alias");
+
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> urlShortenerService.shorten("https://example.com/other", alias, null));
+  }
+
+  @Test
+  void testRebalance_KeepsRowAlreadyOnOwner() {
+    String code = misplacedCode("legacycopy");
+    insertIntoPrimary(code, "https://example.com/stale");
+    // Left behind by a move that copied the row but failed before deleting it
+    linkShards
+        .owner(code)
+        .jdbcTemplate()
+        .update(
+            "INSERT INTO links_core (code, target_url) VALUES (?, ?)",
+            code,
+            encryptionService.encrypt("https://example.com/current"));
+
+    shardRebalancer.rebalance();
+
+    assertEquals(0, count(linkShards.primary(), code));
+    assertEquals(
+        "https://example.com/current",
+        urlShortenerService.resolve(code).orElseThrow().targetUrl());
+  }
+
+  private void insertIntoPrimary(String code, String url) {
+    linkShards
+        .primary()
+        .jdbcTemplate()
+        .update(
+            "INSERT INTO links_core (code, target_url) VALUES (?, ?)",
+            code,
+            encryptionService.encrypt(url));
+    shortCodeFilter.add(code);
+  }
+
+  private String misplacedCode(String prefix) {
+    for (int i = 0; ; i++) {
+      String code = prefix + i;
+      if (linkShards.owner(code) != linkShards.primary()) {
+        return code;
+      }
+    }
+  }
+
+  private static int count(Shard shard, String code) {
+    Integer count =
+        shard
+            .jdbcTemplate()
+            .queryForObject("SELECT COUNT(*) FROM links_core WHERE code = ?", Integer.class, code);
+    return count != null ? count : 0;
+  }
+}
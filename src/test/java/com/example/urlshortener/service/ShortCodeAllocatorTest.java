@@ -0,0 +1,115 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+class ShortCodeAllocatorTest {
+
+  private JdbcTemplate jdbcTemplate;
+  private DataSourceTransactionManager transactionManager;
+
+  @BeforeEach
+  void setUp() {
+    // A database of its own, so exhausting or dropping the range does not affect other tests
+    DriverManagerDataSource dataSource =
+        new DriverManagerDataSource(
+            "jdbc:h2:mem:allocator-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+    jdbcTemplate = new JdbcTemplate(dataSource);
+    transactionManager = new DataSourceTransactionManager(dataSource);
+    jdbcTemplate.execute(
+        "CREATE TABLE code_ranges (name VARCHAR(64) PRIMARY KEY, next_id BIGINT NOT NULL)");
+    jdbcTemplate.update("INSERT INTO code_ranges (name, next_id) VALUES ('links_core', 0)");
+  }
+
+  @AfterEach
+  void tearDown() {
+    jdbcTemplate.execute("SHUTDOWN");
+  }
+
+  private ShortCodeAllocator allocator(int blockSize, int length, boolean scramble) {
+    return new ShortCodeAllocator(
+        jdbcTemplate, transactionManager, blockSize, length, scramble, "test-key");
+  }
+
+  private long storedNextId() {
+    return jdbcTemplate.queryForObject(
+        "SELECT next_id FROM code_ranges WHERE name = 'links_core'", Long.class);
+  }
+
+  @Test
+  void testNextCode_ContinuesIntoNextBlock() {
+    ShortCodeAllocator allocator = allocator(3, 2, false);
+
+    List<String> codes = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      codes.add(allocator.nextCode());
+    }
+
+    assertEquals(List.of("00", "01", "02", "03", "04", "05", "06"), codes);
+    // Seven codes take three blocks of three
+    assertEquals(9, storedNextId());
+  }
+
+  @Test
+  void testNextCode_AllocatorsSharingRangeNeverRepeat() {
+    ShortCodeAllocator first = allocator(4, 3, true);
+    ShortCodeAllocator second = allocator(4, 3, true);
+
+    List<CompletableFuture<List<String>>> workers = new ArrayList<>();
+    for (ShortCodeAllocator allocator : List.of(first, second, first, second)) {
+      workers.add(
+          CompletableFuture.supplyAsync(
+              () -> {
+                List<String> codes = new ArrayList<>();
+                for (int i = 0; i < 250; i++) {
+                  codes.add(allocator.nextCode());
+                }
+                return codes;
+              }));
+    }
+
+    Set<String> seen = new HashSet<>();
+    for (CompletableFuture<List<String>> worker : workers) {
+      for (String code : worker.join()) {
+        assertTrue(code.matches("[0-9A-Za-z]{3}"));
+        assertTrue(seen.add(code), "Code " + code + " allocated twice");
+      }
+    }
+    assertEquals(1000, seen.size());
+  }
+
+  @Test
+  void testNextCode_ExhaustedSpaceThrows() {
+    // One Base62 character allows 62 codes; the second block is cut short at the end of the space
+    ShortCodeAllocator allocator = allocator(50, 1, false);
+    for (int i = 0; i < 62; i++) {
+      allocator.nextCode();
+    }
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, allocator::nextCode);
+
+    assertEquals("Short code space of length 1 is exhausted", e.getMessage());
+  }
+
+  @Test
+  void testNextCode_MissingRangeThrows() {
+    jdbcTemplate.update("DELETE FROM code_ranges");
+    ShortCodeAllocator allocator = allocator(10, 6, true);
+
+    IllegalStateException e = assertThrows(IllegalStateException.class, allocator::nextCode);
+
+    assertEquals("Code range 'links_core' is missing", e.getMessage());
+  }
+}
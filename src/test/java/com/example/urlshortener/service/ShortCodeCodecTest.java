@@ -0,0 +1,37 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ShortCodeCodecTest {
+
+  @Test
+  void testPack_RoundTripsCodesAndAliases() {
+    for (String code : new String[] {"", "0", "aZ09", "abc123", "my-link_1", "zzzzzzzzzz", "__"}) {
+      long packed = ShortCodeCodec.pack(code);
+      assertNotEquals(ShortCodeCodec.NOT_PACKED, packed, code);
+      assertEquals(code, ShortCodeCodec.unpack(packed));
+    }
+  }
+
+  @Test
+  void testPack_DistinctCodesPackToDistinctValues() {
+    Set<Long> packed = new HashSet<>();
+    String[] codes = {"0", "00", "000", "A", "a", "-", "_", "0A", "A0"};
+    for (String code : codes) {
+      assertTrue(packed.add(ShortCodeCodec.pack(code)), code);
+    }
+  }
+
+  @Test
+  void testPack_RejectsCodesThatDoNotFit() {
+    for (String code : new String[] {"12345678901", "with space", "dot.ted", "caf\u00e9"}) {
+      assertEquals(ShortCodeCodec.NOT_PACKED, ShortCodeCodec.pack(code), code);
+    }
+    assertEquals("dot.ted", ShortCodeCodec.key("dot.ted"));
+    assertEquals(ShortCodeCodec.pack("abc"), ShortCodeCodec.key("abc"));
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.model.UrlMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest
+class ShortCodeFilterTest {
+
+  @Autowired private ShortCodeFilter shortCodeFilter;
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Autowired private EncryptionService encryptionService;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testShorten_AddsCodeToFilter() {
+    UrlMapping mapping = urlShortenerService.shorten("https://example.com/filter", null, null);
+
+    assertTrue(shortCodeFilter.mightContain(mapping.getShortCode()));
+    assertTrue(urlShortenerService.resolve(mapping.getShortCode()).isPresent());
+  }
+
+  @Test
+  void testResolve_UnknownCodeIsRejected() {
+    assertFalse(shortCodeFilter.mightContain("filter-unknown"));
+    assertFalse(urlShortenerService.resolve("filter-unknown").isPresent());
+  }
+
+  @Test
+  void testRebuild_PicksUpRowsWrittenWithSql() {
+    jdbcTemplate.update(
+        "INSERT INTO links_core (code, target_url) VALUES (?, ?)",
+        "filter-sql",
+        encryptionService.encrypt("https://example.com/sql"));
+    assertFalse(shortCodeFilter.mightContain("filter-sql"));
+
+    shortCodeFilter.rebuild();
+
+    assertTrue(shortCodeFilter.mightContain("filter-sql"));
+    assertTrue(urlShortenerService.resolve("filter-sql").isPresent());
+  }
+}
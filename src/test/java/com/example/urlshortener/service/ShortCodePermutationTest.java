@@ -0,0 +1,51 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.BitSet;
+import org.junit.jupiter.api.Test;
+
+class ShortCodePermutationTest {
+
+  @Test
+  void testApply_IsBijectiveOnDomain() {
+    long domain = 62 * 62 * 62; // three Base62 characters
+    ShortCodePermutation permutation = new ShortCodePermutation(domain, "test-key");
+
+    BitSet seen = new BitSet((int) domain);
+    for (long i = 0; i < domain; i++) {
+      long value = permutation.apply(i);
+      assertTrue(value >= 0 && value < domain);
+      assertFalse(seen.get((int) value), "Value " + value + " produced twice");
+      seen.set((int) value);
+    }
+  }
+
+  @Test
+  void testApply_ScramblesSequentialIds() {
+    ShortCodePermutation permutation = new ShortCodePermutation(56_800_235_584L, "test-key");
+
+    long first = permutation.apply(0);
+    long second = permutation.apply(1);
+
+    assertNotEquals(first + 1, second);
+  }
+
+  @Test
+  void testApply_IsDeterministicPerKey() {
+    long domain = 56_800_235_584L;
+    ShortCodePermutation a = new ShortCodePermutation(domain, "key-a");
+    ShortCodePermutation b = new ShortCodePermutation(domain, "key-a");
+    ShortCodePermutation c = new ShortCodePermutation(domain, "key-b");
+
+    assertEquals(a.apply(12345), b.apply(12345));
+    assertNotEquals(a.apply(12345), c.apply(12345));
+  }
+
+  @Test
+  void testApply_OutOfDomain_ThrowsException() {
+    ShortCodePermutation permutation = new ShortCodePermutation(100, "test-key");
+
+    assertThrows(IllegalArgumentException.class, () -> permutation.apply(100));
+  }
+}
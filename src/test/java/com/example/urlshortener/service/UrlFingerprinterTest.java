@@ -0,0 +1,56 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class UrlFingerprinterTest {
+  private static final String KEY = "dGVzdGtleWZvcmVuY3J5cHRpb250ZXN0aW5nMTIzNDU=";
+
+  @Test
+  void testNormalize_IgnoresSchemeAndHostCaseAndDefaultPort() {
+    assertEquals(
+        "https://example.com/Path?q=A",
+        UrlFingerprinter.normalize("HTTPS://Example.COM:443/Path?q=A"));
+    assertEquals("http://example.com/", UrlFingerprinter.normalize("http://example.com:80"));
+    assertEquals("http://example.com:8080/", UrlFingerprinter.normalize("http://example.com:8080"));
+  }
+
+  @Test
+  void testNormalize_KeepsQueryAndFragment() {
+    assertEquals(
+        "https://example.com/a?b=1&a=2#top",
+        UrlFingerprinter.normalize("https://example.com/a?b=1&a=2#top"));
+  }
+
+  @Test
+  void testFingerprint_EqualForEquivalentUrls() {
+    UrlFingerprinter fingerprinter = new UrlFingerprinter(true, KEY);
+
+    assertArrayEquals(
+        fingerprinter.fingerprint("https://example.com/page"),
+        fingerprinter.fingerprint("https://EXAMPLE.com:443/page"));
+    assertFalse(
+        Arrays.equals(
+            fingerprinter.fingerprint("https://example.com/page"),
+            fingerprinter.fingerprint("https://example.com/Page")));
+  }
+
+  @Test
+  void testFingerprint_DependsOnKey() {
+    UrlFingerprinter other =
+        new UrlFingerprinter(true, "bmV3a2V5Zm9yZW5jcnlwdGlvbnRlc3RpbmcxMjM0NTY=");
+    UrlFingerprinter fingerprinter = new UrlFingerprinter(true, KEY);
+
+    assertFalse(
+        Arrays.equals(
+            fingerprinter.fingerprint("https://example.com/page"),
+            other.fingerprint("https://example.com/page")));
+  }
+
+  @Test
+  void testFingerprint_DisabledReturnsNull() {
+    assertNull(new UrlFingerprinter(false, KEY).fingerprint("https://example.com/page"));
+  }
+}
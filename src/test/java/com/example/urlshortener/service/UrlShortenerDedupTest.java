@@ -0,0 +1,67 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.urlshortener.model.UrlMapping;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@SpringBootTest(properties = "dedup.enabled=true")
+class UrlShortenerDedupTest {
+
+  @Autowired private UrlShortenerService service;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void testShorten_SameUrlReturnsExistingCode() {
+    UrlMapping first = service.shorten("https://example.com/dedup", null, null);
+    UrlMapping second = service.shorten("https://EXAMPLE.com:443/dedup", null, null);
+
+    assertEquals(first.getShortCode(), second.getShortCode());
+    assertEquals(1, countRows(first.getUrlHmac()));
+  }
+
+  @Test
+  void testShorten_DifferentExpiryCreatesNewCode() {
+    Instant expiry = Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+    UrlMapping permanent = service.shorten("https://example.com/dedup-expiry", null, null);
+    UrlMapping expiring = service.shorten("https://example.com/dedup-expiry", null, expiry);
+
+    assertNotEquals(permanent.getShortCode(), expiring.getShortCode());
+    assertEquals(
+        expiring.getShortCode(),
+        service.shorten("https://example.com/dedup-expiry", null, expiry).getShortCode());
+  }
+
+  @Test
+  void testShorten_CustomAliasAlwaysCreatesMapping() {
+    UrlMapping generated = service.shorten("https://example.com/dedup-alias", null, null);
+    UrlMapping aliased = service.shorten("https://example.com/dedup-alias", "dedupalias", null);
+
+    assertNotEquals(generated.getShortCode(), aliased.getShortCode());
+    assertEquals("dedupalias", aliased.getShortCode());
+  }
+
+  @Test
+  void testShorten_DisabledMappingIsNotReused() {
+    UrlMapping first = service.shorten("https://example.com/dedup-disabled", null, null);
+    jdbcTemplate.update(
+        "UPDATE links_core SET is_disabled = TRUE WHERE code = ?", first.getShortCode());
+
+    UrlMapping second = service.shorten("https://example.com/dedup-disabled", null, null);
+
+    assertNotEquals(first.getShortCode(), second.getShortCode());
+  }
+
+  private int countRows(byte[] urlHmac) {
+    Integer count =
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM links_core WHERE url_hmac = ?", Integer.class, urlHmac);
+    return count != null ? count : 0;
+  }
+}
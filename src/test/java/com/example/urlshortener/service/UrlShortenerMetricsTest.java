@@ -0,0 +1,95 @@
+package com.example.urlshortener.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = "dedup.enabled=true")
+@AutoConfigureMockMvc
+@Import(ScriptedShortCodeAllocator.Config.class)
+class UrlShortenerMetricsTest {
+
+  @Autowired private MockMvc mockMvc;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  @Autowired private UrlShortenerService urlShortenerService;
+
+  @Autowired private ScriptedShortCodeAllocator shortCodeAllocator;
+
+  @Test
+  void testRequests_RecordStageTimers() throws Exception {
+    List<String> stages =
+        List.of("shorten", "validate", "persist", "redirect", "findByShortCode", "metadata");
+    Map<String, Long> before = new HashMap<>();
+    for (String stage : stages) {
+      before.put(stage, stageCount(stage));
+    }
+
+    mockMvc
+        .perform(
+            post("/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(
+                    "{\"longUrl\":\"https://example.com/metrics\",\"customAlias\":\"metrics1\"}"))
+        .andExpect(status().isOk());
+    mockMvc.perform(get("/metrics1")).andExpect(status().isFound());
+    mockMvc.perform(head("/metrics1")).andExpect(status().isOk());
+
+    for (String stage : stages) {
+      assertTrue(stageCount(stage) > before.get(stage), "no time recorded for " + stage);
+    }
+  }
+
+  @Test
+  void testShorten_TakenCodeCountsRetry() throws Exception {
+    urlShortenerService.shorten("https://example.com/metrics-alias", "metric2", null);
+    double before = counter("urlshortener.shortcode.retries");
+
+    shortCodeAllocator.willAllocate("metric2");
+    mockMvc
+        .perform(
+            post("/shorten")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"longUrl\":\"https://example.com/metrics-generated\"}"))
+        .andExpect(status().isOk());
+
+    assertEquals(before + 1, counter("urlshortener.shortcode.retries"));
+  }
+
+  @Test
+  void testShorten_RepeatedUrlCountsDedupHit() throws Exception {
+    double before = counter("urlshortener.dedup.hits");
+
+    for (int i = 0; i < 2; i++) {
+      mockMvc
+          .perform(
+              post("/shorten")
+                  .contentType(MediaType.APPLICATION_JSON)
+                  .content("{\"longUrl\":\"https://example.com/metrics-dedup\"}"))
+          .andExpect(status().isOk());
+    }
+
+    assertEquals(before + 1, counter("urlshortener.dedup.hits"));
+  }
+
+  private long stageCount(String stage) {
+    return meterRegistry.get(UrlShortenerMetrics.STAGE_TIMER).tag("stage", stage).timer().count();
+  }
+
+  private double counter(String name) {
+    return meterRegistry.get(name).counter().count();
+  }
+}
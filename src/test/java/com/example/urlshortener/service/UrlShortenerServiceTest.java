@@ -2,11 +2,16 @@ package com.example.urlshortener.service;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import com.example.urlshortener.model.LinkView;
 import com.example.urlshortener.model.UrlMapping;
 import com.example.urlshortener.repository.UrlMappingRepository;
+import jakarta.persistence.EntityManager;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
 import java.util.Optional;
+import java.util.Set;
+import org.hibernate.Session;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -21,6 +26,8 @@ class UrlShortenerServiceTest {
 
   @Autowired private UrlMappingRepository repository;
 
+  @Autowired private EntityManager entityManager;
+
   @BeforeEach
   void setUp() {
     repository.deleteAll();
@@ -40,6 +47,16 @@ class UrlShortenerServiceTest {
     assertFalse(mapping.isExpired());
   }
 
+  @Test
+  void testShortenUrl_GeneratesUniqueBase62Codes() {
+    Set<String> codes = new HashSet<>();
+    for (int i = 0; i < 200; i++) {
+      UrlMapping mapping = service.shorten("https://example.com/" + i, null, null);
+      assertTrue(mapping.getShortCode().matches("[0-9A-Za-z]{6}"));
+      assertTrue(codes.add(mapping.getShortCode()));
+    }
+  }
+
   @Test
   void testShortenUrl_WithCustomAlias() {
     String longUrl = "https://example.com/test";
@@ -84,6 +101,23 @@ class UrlShortenerServiceTest {
     assertEquals(longUrl, service.decryptUrl(found.get().getEncryptedLongUrl()));
   }
 
+  @Test
+  void testFindViewByShortCode_DoesNotLoadEntity() {
+    String longUrl = "https://example.com/view";
+    Instant expiry = Instant.now().plus(1, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+    service.shorten(longUrl, "viewcode", expiry);
+    entityManager.flush();
+    entityManager.clear();
+
+    LinkView view = repository.findViewByShortCode("viewcode").orElseThrow();
+
+    assertEquals("viewcode", view.shortCode());
+    assertEquals(longUrl, service.decryptUrl(view.encryptedUrl()));
+    assertEquals(expiry, view.expiry());
+    assertFalse(view.disabled());
+    assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount());
+  }
+
   @Test
   void testFindByCode_NotFound() {
     Optional<UrlMapping> found = service.findByCode("nonexistent");